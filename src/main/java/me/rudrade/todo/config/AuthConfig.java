@@ -1,5 +1,6 @@
 package me.rudrade.todo.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -9,6 +10,7 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 import me.rudrade.todo.repository.UserRepository;
 
@@ -22,9 +24,9 @@ public class AuthConfig {
     }
 	
 	@Bean
-    AuthenticationProvider authenticationProvider() {
+    AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider(userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
 
         return authProvider;
     }
@@ -34,9 +36,15 @@ public class AuthConfig {
         return config.getAuthenticationManager();
     }
 	 
+	 // Hashing threads default to half the cores, the rest stay free for the requests waiting on them
 	 @Bean
-    BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    BoundedPasswordEncoder passwordEncoder(
+        @Value("${todo.app.auth.bcryptStrength:10}") int bcryptStrength,
+        @Value("${todo.app.auth.hashThreads:0}") int hashThreads,
+        @Value("${todo.app.auth.hashQueueSize:64}") int hashQueueSize
+    ) {
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength), threads, hashQueueSize);
     }
 	 
 	@Bean
@@ -0,0 +1,132 @@
+package me.rudrade.todo.config;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import me.rudrade.todo.dto.response.PasswordMetricsResponse;
+import me.rudrade.todo.exception.ServiceUnavailableException;
+import me.rudrade.todo.exception.UnexpectedErrorException;
+
+/**
+ * Runs password hashing and verification on a small fixed pool, so a burst of logins can't take every
+ * core from the other requests. Callers wait for their hash, and once the queue is full they fail right
+ * away with {@link ServiceUnavailableException} instead of queueing behind the burst.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    enum Operation { ENCODE, MATCHES }
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Map<Operation, Latency> latencies = new EnumMap<>(Operation.class);
+    private final Latency queueWait = new Latency();
+    private final LongAdder rejected = new LongAdder();
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueSize) {
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            Thread.ofPlatform().name("password-hash-", 0).daemon().factory(),
+            new ThreadPoolExecutor.AbortPolicy());
+
+        for (var operation : Operation.values())
+            latencies.put(operation, new Latency());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(Operation.ENCODE, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(Operation.MATCHES, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // Only reads the cost from the hash, cheap enough for the caller's thread
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public PasswordMetricsResponse getMetrics() {
+        var encode = latencies.get(Operation.ENCODE);
+        var matches = latencies.get(Operation.MATCHES);
+
+        return new PasswordMetricsResponse(
+            encode.getCount(), encode.getAverageMs(), encode.getMaxMs(),
+            matches.getCount(), matches.getAverageMs(), matches.getMaxMs(),
+            queueWait.getAverageMs(), rejected.sum(), executor.getQueue().size(), executor.getMaximumPoolSize());
+    }
+
+    private <T> T run(Operation operation, Callable<T> task) {
+        var start = System.nanoTime();
+
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWait.record(System.nanoTime() - start);
+                return task.call();
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceUnavailableException();
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new UnexpectedErrorException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            throw new UnexpectedErrorException(e.getCause());
+        } finally {
+            latencies.get(operation).record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static class Latency {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        long getCount() {
+            return count.sum();
+        }
+
+        double getAverageMs() {
+            long total = count.sum();
+            return total == 0 ? 0 : totalNanos.sum() / 1e6 / total;
+        }
+
+        double getMaxMs() {
+            return maxNanos.get() / 1e6;
+        }
+    }
+}
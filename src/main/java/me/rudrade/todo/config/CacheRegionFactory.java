@@ -0,0 +1,219 @@
+package me.rudrade.todo.config;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.internal.SimpleCacheKeysFactory;
+import org.hibernate.cache.spi.CacheKeysFactory;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import me.rudrade.todo.dto.response.RegionMetricsResponse;
+import me.rudrade.todo.util.ExpiringCache;
+
+/**
+ * Hibernate second-level and query cache on {@link ExpiringCache}, every region is bounded by size and time to live.
+ * Regions are local to each instance. Entity evictions and table update timestamps are sent to the other
+ * instances through {@link RedisCacheRelay}, so entities are cached nonstrict read-write: a write only evicts.
+ * While the relay may miss invalidations entities and queries are read from the database, and the regions
+ * start empty once it is subscribed again.
+ */
+@Component
+public class CacheRegionFactory extends RegionFactoryTemplate {
+
+    enum RegionType { ENTITY, QUERY, TIMESTAMPS }
+
+    private final RedisCacheRelay relay;
+    private final int maxSize;
+    private final Duration ttl;
+    private final Map<String, Storage> regions = new ConcurrentHashMap<>();
+
+    private volatile Storage timestamps;
+
+    public CacheRegionFactory(
+        RedisCacheRelay relay,
+        @Value("${todo.app.entityCache.maxSize:10000}") int maxSize,
+        @Value("${todo.app.entityCache.ttlSeconds:300}") long ttlSeconds
+    ) {
+        this.relay = relay;
+        this.maxSize = maxSize;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+    }
+
+    // Each region holds a single entity, so the id alone is the key and can be sent to other instances
+    @Override
+    protected CacheKeysFactory getImplicitCacheKeysFactory() {
+        return SimpleCacheKeysFactory.INSTANCE;
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig, DomainDataRegionBuildingContext buildingContext) {
+        return register(regionConfig.getRegionName(), RegionType.ENTITY, ttl);
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        return register(regionName, RegionType.QUERY, ttl);
+    }
+
+    // Kept longer than query results, so a result never outlives the timestamp that invalidates it
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        var storage = register(regionName, RegionType.TIMESTAMPS, ttl.multipliedBy(2));
+        timestamps = storage;
+        return storage;
+    }
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+        relay.onSubscribed(this::clear);
+        relay.listen(this::apply);
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        regions.values().forEach(Storage::release);
+        regions.clear();
+        timestamps = null;
+    }
+
+    /**
+     * Marks the table as updated, for writes Hibernate doesn't see. Its cached queries are stale from now on.
+     */
+    public void invalidateTable(String table) {
+        var storage = timestamps;
+        if (storage != null)
+            storage.putIntoCache(table, nextTimestamp(), null);
+    }
+
+    public List<RegionMetricsResponse> getRegionMetrics() {
+        return regions.values().stream()
+            .sorted(Comparator.comparing(Storage::getName))
+            .map(Storage::getMetrics)
+            .toList();
+    }
+
+    void clear() {
+        regions.values().forEach(storage -> storage.cache.invalidateAll());
+    }
+
+    void apply(RedisCacheRelay.Invalidation invalidation) {
+        var storage = regions.get(invalidation.region());
+        if (storage == null)
+            return;
+
+        switch (invalidation.kind()) {
+            case EVICT -> storage.evictLocal(invalidation.key());
+            case CLEAR -> storage.cache.invalidateAll();
+            case TIMESTAMP -> storage.cache.put(invalidation.key(), invalidation.timestamp());
+        }
+    }
+
+    private Storage register(String name, RegionType type, Duration regionTtl) {
+        var storage = new Storage(name, type, new ExpiringCache<>(maxSize, regionTtl));
+        regions.put(name, storage);
+        return storage;
+    }
+
+    class Storage implements DomainDataStorageAccess {
+
+        private final String name;
+        private final RegionType type;
+        private final ExpiringCache<Object, Object> cache;
+
+        Storage(String name, RegionType type, ExpiringCache<Object, Object> cache) {
+            this.name = name;
+            this.type = type;
+            this.cache = cache;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            if (relay.mayMissMessages())
+                return null;
+
+            return cache.get(key).orElse(null);
+        }
+
+        // Timestamps are kept and sent either way, they're this instance's own writes
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            if (type != RegionType.TIMESTAMPS && relay.mayMissMessages())
+                return;
+
+            cache.put(key, value);
+            if (type == RegionType.TIMESTAMPS && value instanceof Long timestamp)
+                relay.timestamp(name, key.toString(), timestamp);
+        }
+
+        @Override
+        public void removeFromCache(Object key, SharedSessionContractImplementor session) {
+            evictData(key);
+        }
+
+        @Override
+        public void clearCache(SharedSessionContractImplementor session) {
+            evictData();
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return !relay.mayMissMessages() && cache.contains(key);
+        }
+
+        @Override
+        public void evictData() {
+            cache.invalidateAll();
+            if (type == RegionType.ENTITY)
+                relay.clear(name);
+        }
+
+        @Override
+        public void evictData(Object key) {
+            cache.invalidate(key);
+            if (type != RegionType.ENTITY)
+                return;
+
+            if (key instanceof UUID)
+                relay.evict(name, key);
+            else
+                relay.clear(name);
+        }
+
+        void evictLocal(String key) {
+            try {
+                cache.invalidate(UUID.fromString(key));
+            } catch (IllegalArgumentException e) {
+                cache.invalidateAll();
+            }
+        }
+
+        @Override
+        public void release() {
+            cache.invalidateAll();
+        }
+
+        RegionMetricsResponse getMetrics() {
+            long hits = cache.hitCount();
+            long misses = cache.missCount();
+            double ratio = hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+            return new RegionMetricsResponse(name, hits, misses, ratio, cache.size());
+        }
+    }
+}
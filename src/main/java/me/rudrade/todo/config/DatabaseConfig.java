@@ -1,15 +1,19 @@
 package me.rudrade.todo.config;
 
-import javax.sql.DataSource;
-
+import org.hibernate.cfg.AvailableSettings;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 
 @Configuration
 public class DatabaseConfig {
 
+	static final String POOL_NAME = "todo-pool";
+
 	@Value("${db_url}")
 	private String url;
 	
@@ -19,17 +23,88 @@ public class DatabaseConfig {
 	@Value("${db_password}")
 	private String password;
 
+	@Value("${todo.app.db.pool.maxSize:10}")
+	private int maxPoolSize;
+
+	@Value("${todo.app.db.pool.minIdle:2}")
+	private int minIdle;
+
+	@Value("${todo.app.db.pool.connectionTimeoutMs:5000}")
+	private long connectionTimeout;
+
+	@Value("${todo.app.db.pool.idleTimeoutMs:600000}")
+	private long idleTimeout;
+
+	@Value("${todo.app.db.pool.maxLifetimeMs:1800000}")
+	private long maxLifetime;
+
+	@Value("${todo.app.db.pool.leakDetectionThresholdMs:20000}")
+	private long leakDetectionThreshold;
+
+	@Value("${todo.app.db.pool.prepStmtCacheSize:250}")
+	private int prepStmtCacheSize;
+
+	@Value("${todo.app.db.pool.prepStmtCacheSqlLimit:2048}")
+	private int prepStmtCacheSqlLimit;
+
+	@Value("${todo.app.db.batchSize:50}")
+	private int batchSize;
+
+	@Bean
+	HikariDataSource dataSource() {
+		return new HikariDataSource(hikariConfig());
+	}
+
+	HikariConfig hikariConfig() {
+		var config = new HikariConfig();
+
+		config.setPoolName(POOL_NAME);
+		config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+		config.setJdbcUrl(url);
+		config.setUsername(username);
+		config.setPassword(password);
+
+		config.setMaximumPoolSize(maxPoolSize);
+		config.setMinimumIdle(minIdle);
+		config.setConnectionTimeout(connectionTimeout);
+		config.setIdleTimeout(idleTimeout);
+		config.setMaxLifetime(maxLifetime);
+		config.setLeakDetectionThreshold(leakDetectionThreshold);
+		config.setRegisterMbeans(true);
+
+		// MySQL Connector/J statement caching and batch rewriting
+		config.addDataSourceProperty("cachePrepStmts", "true");
+		config.addDataSourceProperty("useServerPrepStmts", "true");
+		config.addDataSourceProperty("rewriteBatchedStatements", "true");
+		config.addDataSourceProperty("prepStmtCacheSize", String.valueOf(prepStmtCacheSize));
+		config.addDataSourceProperty("prepStmtCacheSqlLimit", String.valueOf(prepStmtCacheSqlLimit));
+		config.addDataSourceProperty("cacheResultSetMetadata", "true");
+		config.addDataSourceProperty("cacheServerConfiguration", "true");
+		config.addDataSourceProperty("useLocalSessionState", "true");
+		config.addDataSourceProperty("elideSetAutoCommits", "true");
+		config.addDataSourceProperty("maintainTimeStats", "false");
+
+		return config;
+	}
+
+	// JDBC batching, grouped by entity so rewriteBatchedStatements can turn inserts into multi-row statements
+	@Bean
+	HibernatePropertiesCustomizer batchingCustomizer() {
+		return properties -> {
+			properties.put(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+			properties.put(AvailableSettings.ORDER_INSERTS, true);
+			properties.put(AvailableSettings.ORDER_UPDATES, true);
+		};
+	}
 
+	// Second-level and query cache, entities opt in with @Cache and queries with the cacheable hint
 	@Bean
-	DataSource dataSource() {
-		DriverManagerDataSource dataSource = new DriverManagerDataSource();
-		
-		dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-		dataSource.setUsername(username);
-		dataSource.setPassword(password);
-		dataSource.setUrl(url);
-		
-		return dataSource;
+	HibernatePropertiesCustomizer cacheCustomizer(CacheRegionFactory regionFactory) {
+		return properties -> {
+			properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+			properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+			properties.put(AvailableSettings.CACHE_REGION_FACTORY, regionFactory);
+		};
 	}
 	
 }
@@ -6,9 +6,9 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -26,8 +26,8 @@ import me.rudrade.todo.service.JwtService;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
 	private final JwtService jwtService;
-	private final UserDetailsService userDetailsService;
 	private final UserRepository userRepository;
+	private final SecurityContextRepository securityContextRepository = new RequestAttributeSecurityContextRepository();
 
 	@Override
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -40,28 +40,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 			return;
 		}
 		
-		final var jwt = authHeader.substring(7);
-		final var subject = jwtService.getSubjectId(jwt);
-		
+		// Verified once here, the decoded claims travel as the authentication credentials
+		final var token = jwtService.verifyWithLeeway(authHeader.substring(7));
+
 		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-		if (subject != null && authentication == null &&
-			jwtService.isTokenValidWithLeeway(jwt, subject)
-		) {
-			var user = userRepository.findById(subject).orElseThrow(InvalidAccessException::new);
+		if (authentication == null) {
+			// Read from the user cache region, which every instance evicts on user writes
+			var user = userRepository.findById(token.subjectId()).orElseThrow(InvalidAccessException::new);
 			if (user.isActive()) {
-				UserDetails userDetails = userDetailsService.loadUserByUsername(user.getUsername());
-				if (userDetails != null) {
-					UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-							userDetails,
-							null,
-							userDetails.getAuthorities());
-					
-					authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-					SecurityContextHolder.getContext().setAuthentication(authToken);
-					
-					filterChain.doFilter(request, response);
-					return;
-				}
+				// The user is the principal, controllers get it through @AuthenticationPrincipal
+				UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+						user,
+						token,
+						user.getAuthorities());
+
+				authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+				SecurityContextHolder.getContext().setAuthentication(authToken);
+				// Kept on the request so async dispatches (e.g. from the rate limiter) stay authenticated
+				securityContextRepository.saveContext(SecurityContextHolder.getContext(), request, response);
+
+				filterChain.doFilter(request, response);
+				return;
 			}
 		}
 		
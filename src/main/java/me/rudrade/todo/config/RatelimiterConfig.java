@@ -1,43 +1,49 @@
 package me.rudrade.todo.config;
 
 import java.time.Duration;
-import java.util.function.Supplier;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import io.github.bucket4j.BucketConfiguration;
-import io.github.bucket4j.distributed.proxy.ProxyManager;
-import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
 import io.lettuce.core.RedisClient;
 import io.lettuce.core.RedisURI;
-import io.lettuce.core.api.StatefulRedisConnection;
-import io.lettuce.core.codec.ByteArrayCodec;
-import io.lettuce.core.codec.RedisCodec;
-import io.lettuce.core.codec.StringCodec;
 
 @Configuration
 public class RatelimiterConfig {
 
     @Bean
-    RedisClient redisClient() {
-        return RedisClient.create(RedisURI.builder()
-            .withHost("redis")
-            .withPort(6379)
-            .withSsl(false).build());
+    RedisURI redisUri(@Value("${todo.app.redis.host:redis}") String host,
+                      @Value("${todo.app.redis.port:6379}") int port,
+                      @Value("${todo.app.redis.ssl:false}") boolean ssl,
+                      @Value("${todo.app.redis.timeoutMs:500}") long timeout) {
+        return RedisURI.builder()
+            .withHost(host)
+            .withPort(port)
+            .withSsl(ssl)
+            .withTimeout(Duration.ofMillis(timeout))
+            .build();
     }
 
     @Bean
-    ProxyManager<String> proxyManager(RedisClient redisClient) {
-        StatefulRedisConnection<String, byte[]> redisConnection = redisClient.connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
-        return LettuceBasedProxyManager.builderFor(redisConnection).build();
+    RedisClient redisClient(RedisURI redisUri) {
+        return RedisClient.create(redisUri);
     }
 
     @Bean
-    Supplier<BucketConfiguration> bucketConfiguration() {
-        return () -> BucketConfiguration.builder()
-        .addLimit(limit ->  limit.capacity(30L).refillGreedy(30L, Duration.ofMinutes(1L)))
-        .build();
+    RedisBucketPool redisBucketPool(RedisClient redisClient, RedisURI redisUri, BucketConfiguration bucketConfiguration,
+                                    @Value("${todo.app.ratelimit.poolSize:4}") int poolSize,
+                                    @Value("${todo.app.ratelimit.redisRetrySeconds:10}") long redisRetrySeconds) {
+        return new RedisBucketPool(redisClient, redisUri, bucketConfiguration, poolSize, Duration.ofSeconds(redisRetrySeconds));
+    }
+
+    @Bean
+    BucketConfiguration bucketConfiguration(@Value("${todo.app.ratelimit.capacity:30}") long capacity,
+                                            @Value("${todo.app.ratelimit.periodSeconds:60}") long periodSeconds) {
+        return BucketConfiguration.builder()
+            .addLimit(limit -> limit.capacity(capacity).refillGreedy(capacity, Duration.ofSeconds(periodSeconds)))
+            .build();
     }
 
 }
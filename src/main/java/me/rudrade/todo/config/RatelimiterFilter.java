@@ -1,14 +1,13 @@
 package me.rudrade.todo.config;
 
 import java.io.IOException;
-import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
-import io.github.bucket4j.BucketConfiguration;
-import io.github.bucket4j.distributed.proxy.ProxyManager;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -22,8 +21,7 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class RatelimiterFilter implements Filter {
 
-    private final Supplier<BucketConfiguration> bucketConfiguration;
-    private final ProxyManager<String> proxyManager;
+    private final TieredRatelimiter ratelimiter;
 
     @Value("${profile.active}")
     private String profile;
@@ -32,23 +30,45 @@ public class RatelimiterFilter implements Filter {
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
 
-        if ("test".equals(profile)) {
+        if ("test".equals(profile) || request.getDispatcherType() == DispatcherType.ASYNC) {
             chain.doFilter(request, response);
             return;
         }
 
-        var key = request.getRemoteAddr();
-        var bucket = proxyManager.builder().build(key, bucketConfiguration);
+        var decision = ratelimiter.tryConsume(request.getRemoteAddr());
 
-        var consumed = bucket.tryConsume(1L);
-        if (consumed) {
-            chain.doFilter(request, response);
-
-        } else {
-            var httpResponse = (HttpServletResponse) response;
-            httpResponse.setContentType("text/plain");
-            httpResponse.setStatus(429);
-            httpResponse.getWriter().append("Too many requests");
+        // Most requests are decided by the local tier without waiting on Redis
+        if (decision.isDone() || !request.isAsyncSupported()) {
+            if (Boolean.TRUE.equals(decision.join())) {
+                chain.doFilter(request, response);
+            } else {
+                reject(response);
+            }
+            return;
         }
+
+        // Release the servlet thread while Redis answers, the request is dispatched again when allowed
+        AsyncContext asyncContext = request.startAsync(request, response);
+        decision.whenComplete((allowed, e) -> {
+            if (Boolean.TRUE.equals(allowed)) {
+                asyncContext.dispatch();
+                return;
+            }
+
+            try {
+                reject(asyncContext.getResponse());
+            } catch (IOException ex) {
+                // Client went away, nothing left to answer
+            } finally {
+                asyncContext.complete();
+            }
+        });
+    }
+
+    private void reject(ServletResponse response) throws IOException {
+        var httpResponse = (HttpServletResponse) response;
+        httpResponse.setContentType("text/plain");
+        httpResponse.setStatus(429);
+        httpResponse.getWriter().append("Too many requests");
     }
 }
@@ -0,0 +1,64 @@
+package me.rudrade.todo.config;
+
+import java.util.function.LongConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.lettuce.core.RedisClient;
+
+/**
+ * Sends the usernames and emails taken on this instance to the others through a Redis channel, so their
+ * availability filters know them before the next rebuild. Only the hashes are sent, never the names.
+ */
+@Component
+public class RedisAvailabilityRelay extends RedisRelay {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisAvailabilityRelay.class);
+
+    static final String CHANNEL = "todo:availability";
+
+    private volatile LongConsumer listener;
+
+    public RedisAvailabilityRelay(RedisClient redisClient,
+                                  @Value("${todo.app.ratelimit.redisRetrySeconds:10}") long redisRetrySeconds) {
+        super(redisClient, CHANNEL, "availability-relay-", redisRetrySeconds);
+    }
+
+    public void taken(long hash) {
+        publish(encode(instanceId(), hash));
+    }
+
+    public void listen(LongConsumer hashListener) {
+        listener = hashListener;
+        subscribe();
+    }
+
+    @Override
+    void receive(String message) {
+        var hash = decode(instanceId(), message);
+        var current = listener;
+        if (hash != null && current != null)
+            current.accept(hash);
+    }
+
+    static String encode(String instanceId, long hash) {
+        return instanceId + " " + Long.toHexString(hash);
+    }
+
+    // Null for this instance's own messages and for anything it can't read
+    static Long decode(String instanceId, String message) {
+        var parts = message.split(" ");
+        if (parts.length != 2 || parts[0].equals(instanceId))
+            return null;
+
+        try {
+            return Long.parseUnsignedLong(parts[1], 16);
+        } catch (NumberFormatException e) {
+            LOGGER.debug("[RedisAvailabilityRelay.decode] Ignoring message {}", message);
+            return null;
+        }
+    }
+}
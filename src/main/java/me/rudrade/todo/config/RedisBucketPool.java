@@ -0,0 +1,143 @@
+package me.rudrade.todo.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.github.bucket4j.distributed.proxy.AsyncProxyManager;
+import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+
+/**
+ * Fixed set of Redis connections for the rate limiter buckets. A key always maps to the same
+ * connection and connections are opened on first use, so the app starts without Redis.
+ * Connections are opened in the background with the URI's timeout, a slot has no bucket while its
+ * connection is pending or for the retry delay after it failed, callers limit locally meanwhile.
+ */
+public class RedisBucketPool implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisBucketPool.class);
+    private static final RedisCodec<String, byte[]> CODEC = RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE);
+
+    private final RedisClient redisClient;
+    private final RedisURI redisUri;
+    private final BucketConfiguration configuration;
+    private final long retryNanos;
+    private final AtomicReferenceArray<Slot> slots;
+    private final List<StatefulRedisConnection<String, byte[]>> connections = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean closed;
+
+    public RedisBucketPool(RedisClient redisClient, RedisURI redisUri, BucketConfiguration configuration, int size, Duration retryDelay) {
+        this.redisClient = redisClient;
+        this.redisUri = redisUri;
+        this.configuration = configuration;
+        this.retryNanos = retryDelay.toNanos();
+        this.slots = new AtomicReferenceArray<>(Math.max(1, size));
+    }
+
+    /**
+     * The key's bucket, or null while its connection isn't open.
+     */
+    public AsyncBucketProxy getBucket(String key) {
+        var manager = getManager(Math.floorMod(key.hashCode(), slots.length()));
+        return manager == null ? null : manager.builder().build(key, configuration);
+    }
+
+    public int size() {
+        return slots.length();
+    }
+
+    private AsyncProxyManager<String> getManager(int index) {
+        var slot = slots.get(index);
+        if (slot != null) {
+            if (slot.manager().isDone() && !slot.manager().isCompletedExceptionally())
+                return slot.manager().join();
+
+            if (!slot.manager().isCompletedExceptionally() || System.nanoTime() - slot.retryAt() < 0)
+                return null;
+        }
+
+        // Whoever swaps in the pending slot opens the connection, the others go on without waiting
+        var pending = new Slot(new CompletableFuture<>(), System.nanoTime() + retryNanos);
+        if (slots.compareAndSet(index, slot, pending))
+            connect(pending);
+        return null;
+    }
+
+    private void connect(Slot slot) {
+        CompletableFuture<StatefulRedisConnection<String, byte[]>> connecting;
+        try {
+            connecting = redisClient.connectAsync(CODEC, redisUri).toCompletableFuture();
+        } catch (RuntimeException e) {
+            fail(slot, e);
+            return;
+        }
+
+        // orTimeout fails the future it is called on, the copy leaves the connection future to the check below
+        connecting.copy()
+            .orTimeout(redisUri.getTimeout().toMillis(), TimeUnit.MILLISECONDS)
+            .whenComplete((connection, e) -> {
+                if (e != null) {
+                    fail(slot, e);
+                } else if (register(connection)) {
+                    slot.manager().complete(LettuceBasedProxyManager.builderFor(connection).build().asAsync());
+                } else {
+                    connection.close();
+                    slot.manager().cancel(false);
+                }
+            });
+
+        // A connection that only opens after the timeout isn't used
+        connecting.thenAccept(connection -> {
+            if (slot.manager().isCompletedExceptionally())
+                connection.close();
+        });
+    }
+
+    private void fail(Slot slot, Throwable e) {
+        slot.manager().completeExceptionally(e);
+        LOGGER.warn("[RedisBucketPool.connect] Redis connection failed, retrying in {} seconds", TimeUnit.NANOSECONDS.toSeconds(retryNanos), e);
+    }
+
+    private boolean register(StatefulRedisConnection<String, byte[]> connection) {
+        lock.lock();
+        try {
+            if (closed)
+                return false;
+
+            connections.add(connection);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            connections.forEach(StatefulRedisConnection::close);
+            connections.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Slot(CompletableFuture<AsyncProxyManager<String>> manager, long retryAt) {}
+}
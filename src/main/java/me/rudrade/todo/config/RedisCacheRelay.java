@@ -0,0 +1,81 @@
+package me.rudrade.todo.config;
+
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.lettuce.core.RedisClient;
+
+/**
+ * Sends second-level cache invalidations to the other instances through a Redis channel: entity
+ * evictions and the update timestamps of tables, which invalidate their cached queries. Without
+ * Redis the other instances keep their entries until they expire.
+ */
+@Component
+public class RedisCacheRelay extends RedisRelay {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisCacheRelay.class);
+
+    static final String CHANNEL = "todo:cache";
+    private static final String NO_KEY = "-";
+
+    enum Kind { EVICT, CLEAR, TIMESTAMP }
+
+    /**
+     * An evicted key or a cleared region, or the update timestamp of a table.
+     */
+    record Invalidation(Kind kind, String region, String key, long timestamp) {}
+
+    private volatile Consumer<Invalidation> listener;
+
+    public RedisCacheRelay(RedisClient redisClient,
+                           @Value("${todo.app.ratelimit.redisRetrySeconds:10}") long redisRetrySeconds) {
+        super(redisClient, CHANNEL, "cache-relay-", redisRetrySeconds);
+    }
+
+    public void evict(String region, Object key) {
+        publish(encode(instanceId(), new Invalidation(Kind.EVICT, region, key.toString(), 0)));
+    }
+
+    public void clear(String region) {
+        publish(encode(instanceId(), new Invalidation(Kind.CLEAR, region, NO_KEY, 0)));
+    }
+
+    public void timestamp(String region, String table, long timestamp) {
+        publish(encode(instanceId(), new Invalidation(Kind.TIMESTAMP, region, table, timestamp)));
+    }
+
+    public void listen(Consumer<Invalidation> invalidationListener) {
+        listener = invalidationListener;
+        subscribe();
+    }
+
+    @Override
+    void receive(String message) {
+        var invalidation = decode(instanceId(), message);
+        var current = listener;
+        if (invalidation != null && current != null)
+            current.accept(invalidation);
+    }
+
+    static String encode(String instanceId, Invalidation invalidation) {
+        return instanceId + " " + invalidation.kind() + " " + invalidation.region() + " " + invalidation.key() + " " + invalidation.timestamp();
+    }
+
+    // Null for this instance's own messages and for anything it can't read
+    static Invalidation decode(String instanceId, String message) {
+        var parts = message.split(" ");
+        if (parts.length != 5 || parts[0].equals(instanceId))
+            return null;
+
+        try {
+            return new Invalidation(Kind.valueOf(parts[1]), parts[2], parts[3], Long.parseLong(parts[4]));
+        } catch (IllegalArgumentException e) {
+            LOGGER.debug("[RedisCacheRelay.decode] Ignoring message {}", message);
+            return null;
+        }
+    }
+}
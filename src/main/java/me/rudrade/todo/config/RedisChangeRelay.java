@@ -0,0 +1,80 @@
+package me.rudrade.todo.config;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.lettuce.core.RedisClient;
+import me.rudrade.todo.model.types.ChangeType;
+import me.rudrade.todo.service.ChangeEvent;
+
+/**
+ * Fans change events out to the other instances through a Redis channel. Every listener gets every
+ * event of the other instances, so their versions, summaries and streams follow the writes made there.
+ * Without Redis each instance only sees its own writes.
+ */
+@Component
+public class RedisChangeRelay extends RedisRelay {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisChangeRelay.class);
+
+    static final String CHANNEL = "todo:changes";
+
+    private final List<Consumer<ChangeEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    public RedisChangeRelay(RedisClient redisClient,
+                            @Value("${todo.app.ratelimit.redisRetrySeconds:10}") long redisRetrySeconds) {
+        super(redisClient, CHANNEL, "change-relay-", redisRetrySeconds);
+    }
+
+    public void publish(ChangeEvent event) {
+        publish(encode(instanceId(), event));
+    }
+
+    /**
+     * Adds a listener for the other instances' events, registered once by each bean that needs them.
+     */
+    public void listen(Consumer<ChangeEvent> eventListener) {
+        listeners.add(eventListener);
+        subscribe();
+    }
+
+    @Override
+    void receive(String message) {
+        var event = decode(instanceId(), message);
+        if (event == null)
+            return;
+
+        for (var eventListener : listeners) {
+            try {
+                eventListener.accept(event);
+            } catch (RuntimeException e) {
+                LOGGER.error("[RedisChangeRelay.receive] Listener failed for {}", message, e);
+            }
+        }
+    }
+
+    static String encode(String instanceId, ChangeEvent event) {
+        return instanceId + " " + event.userId() + " " + event.type() + " " + event.seq();
+    }
+
+    // Null for this instance's own messages and for anything it can't read
+    static ChangeEvent decode(String instanceId, String message) {
+        var parts = message.split(" ");
+        if (parts.length != 4 || parts[0].equals(instanceId))
+            return null;
+
+        try {
+            return new ChangeEvent(UUID.fromString(parts[1]), ChangeType.valueOf(parts[2]), Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException e) {
+            LOGGER.debug("[RedisChangeRelay.decode] Ignoring message {}", message);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package me.rudrade.todo.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+
+/**
+ * Publishes to and listens on one Redis channel. Connections are opened on first use and all Redis
+ * calls run on virtual threads, so callers never wait on Redis and the app keeps working without it.
+ * Messages carry the sender's {@link #instanceId()}, so an instance can skip its own when they come back.
+ * Caches fed by the messages check {@link #mayMissMessages()} and start over on {@link #onSubscribed(Runnable)}.
+ */
+public abstract class RedisRelay implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisRelay.class);
+
+    private final RedisClient redisClient;
+    private final String channel;
+    private final long redisRetryNanos;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ExecutorService executor;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Runnable> subscribedActions = new CopyOnWriteArrayList<>();
+
+    private StatefulRedisConnection<String, String> publisher;
+    private volatile StatefulRedisPubSubConnection<String, String> subscriber;
+    private volatile long redisRetryAt;
+    private volatile boolean redisDown;
+    private volatile boolean subscribeRequested;
+
+    protected RedisRelay(RedisClient redisClient, String channel, String threadPrefix, long redisRetrySeconds) {
+        this.redisClient = redisClient;
+        this.channel = channel;
+        this.redisRetryNanos = Duration.ofSeconds(redisRetrySeconds).toNanos();
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadPrefix, 0).factory());
+    }
+
+    abstract void receive(String message);
+
+    String instanceId() {
+        return instanceId;
+    }
+
+    void publish(String message) {
+        if (!isRedisAvailable())
+            return;
+
+        executor.execute(() -> {
+            try {
+                getPublisher().sync().publish(channel, message);
+                markRedisUp();
+            } catch (RuntimeException e) {
+                markRedisDown(e);
+            }
+        });
+    }
+
+    /**
+     * Starts receiving the other instances' messages, does nothing once subscribed.
+     * Lettuce subscribes again by itself after a reconnect.
+     */
+    void subscribe() {
+        subscribeRequested = true;
+        if (subscriber != null || !isRedisAvailable())
+            return;
+
+        executor.execute(() -> {
+            lock.lock();
+            try {
+                if (subscriber != null)
+                    return;
+
+                var connection = redisClient.connectPubSub();
+                connection.addListener(new RedisPubSubAdapter<>() {
+                    @Override
+                    public void message(String channel, String message) {
+                        receive(message);
+                    }
+
+                    @Override
+                    public void subscribed(String channel, long count) {
+                        runSubscribedActions();
+                    }
+                });
+                connection.sync().subscribe(channel);
+                subscriber = connection;
+                markRedisUp();
+            } catch (RuntimeException e) {
+                markRedisDown(e);
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    // Subscribes again while Redis was unreachable, does nothing once subscribed
+    @Scheduled(fixedDelayString = "${todo.app.ratelimit.redisRetrySeconds:10}", timeUnit = TimeUnit.SECONDS)
+    public void keepSubscribed() {
+        if (subscribeRequested)
+            subscribe();
+    }
+
+    public boolean isRedisDown() {
+        return redisDown;
+    }
+
+    /**
+     * True until the channel is subscribed and while its connection is down, messages of the other instances are lost meanwhile.
+     */
+    public boolean mayMissMessages() {
+        var connection = subscriber;
+        return connection == null || !connection.isOpen();
+    }
+
+    /**
+     * Runs the action each time the channel is subscribed, also when Lettuce subscribes again after a reconnect.
+     */
+    public void onSubscribed(Runnable action) {
+        subscribedActions.add(action);
+    }
+
+    private void runSubscribedActions() {
+        for (var action : subscribedActions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("[RedisRelay.runSubscribedActions] Action failed on channel {}", channel, e);
+            }
+        }
+    }
+
+    private StatefulRedisConnection<String, String> getPublisher() {
+        lock.lock();
+        try {
+            if (publisher == null)
+                publisher = redisClient.connect();
+            return publisher;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isRedisAvailable() {
+        return !redisDown || System.nanoTime() - redisRetryAt >= 0;
+    }
+
+    private void markRedisUp() {
+        if (redisDown) {
+            redisDown = false;
+            LOGGER.info("Redis channel {} is reachable again", channel);
+        }
+    }
+
+    private void markRedisDown(Throwable e) {
+        redisRetryAt = System.nanoTime() + redisRetryNanos;
+        if (!redisDown) {
+            redisDown = true;
+            LOGGER.warn("Redis channel {} unreachable, other instances aren't notified", channel, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        subscribeRequested = false;
+        executor.shutdownNow();
+        lock.lock();
+        try {
+            if (publisher != null)
+                publisher.close();
+            if (subscriber != null)
+                subscriber.close();
+            publisher = null;
+            subscriber = null;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package me.rudrade.todo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.amazonaws.client.builder.AwsClientBuilder.EndpointConfiguration;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+
+@Configuration
+public class S3Config {
+
+    /**
+     * Single client shared by every upload, it is thread safe and keeps its own connection pool.
+     * Setting an endpoint points it to a S3 compatible server, such as a local stand-in.
+     */
+    @Bean(destroyMethod = "shutdown")
+    AmazonS3 amazonS3(@Value("${todo.app.s3.endpoint:}") String endpoint,
+                      @Value("${todo.app.s3.region:}") String region,
+                      @Value("${todo.app.s3.pathStyleAccess:false}") boolean pathStyleAccess) {
+        var builder = AmazonS3ClientBuilder.standard()
+            .withPathStyleAccessEnabled(pathStyleAccess);
+
+        if (!endpoint.isBlank()) {
+            builder.withEndpointConfiguration(new EndpointConfiguration(endpoint, region));
+        } else if (!region.isBlank()) {
+            builder.withRegion(region);
+        }
+
+        return builder.build();
+    }
+
+}
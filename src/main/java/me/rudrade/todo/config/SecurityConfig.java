@@ -57,6 +57,7 @@ public class SecurityConfig {
                         .requestMatchers("/auth/login").permitAll()
 						.requestMatchers("/auth/refresh").permitAll()
 						.requestMatchers(HttpMethod.POST, "/users/register").permitAll()
+						.requestMatchers(HttpMethod.GET, "/users/availability").permitAll()
 						.requestMatchers(HttpMethod.POST, "/users/activate/{id}").permitAll()
 						.requestMatchers("/users/requests/mail/{id}").permitAll()
 						.requestMatchers(HttpMethod.POST, "/users/reset-password").permitAll()
@@ -64,6 +65,7 @@ public class SecurityConfig {
 						.requestMatchers(HttpMethod.GET, "/users/{id}").hasAnyAuthority(Role.ROLE_USER.name())
 						.requestMatchers(HttpMethod.PATCH, "/users/{id}").hasAuthority(Role.ROLE_USER.name())
 						.requestMatchers("/users/**").hasAuthority(Role.ROLE_ADMIN.name())
+						.requestMatchers("/metrics/**").hasAuthority(Role.ROLE_ADMIN.name())
                         .requestMatchers("/tag/**").hasAuthority(Role.ROLE_USER.name())
 						.requestMatchers("/task/**").hasAuthority(Role.ROLE_USER.name());
 
@@ -84,7 +86,8 @@ public class SecurityConfig {
 		CorsConfiguration configuration = new CorsConfiguration();
 		configuration.setAllowedOrigins(List.of(corsUrl));
 		configuration.setAllowedMethods(List.of("GET", "POST", "DELETE", "PATCH"));
-		configuration.setAllowedHeaders(List.of("Authorization", "Content-Type"));
+		configuration.setAllowedHeaders(List.of("Authorization", "Content-Type", "If-None-Match"));
+		configuration.setExposedHeaders(List.of("ETag"));
 		
 		UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
 		source.registerCorsConfiguration("/**", configuration);
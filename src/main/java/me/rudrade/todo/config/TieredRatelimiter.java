@@ -0,0 +1,195 @@
+package me.rudrade.todo.config;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+
+/**
+ * Two tier rate limiter. Each client key keeps a local pool of tokens reserved in batches
+ * from its Redis bucket, so only about one request per batch reaches Redis. While Redis is
+ * unreachable, or the key's connection is still opening, the keys are limited by in-memory buckets
+ * with the same configuration.
+ * Redis is only called asynchronously, the returned future never completes exceptionally.
+ */
+@Component
+public class TieredRatelimiter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TieredRatelimiter.class);
+
+    private static final CompletableFuture<Boolean> ALLOWED = CompletableFuture.completedFuture(true);
+    private static final CompletableFuture<Boolean> REJECTED = CompletableFuture.completedFuture(false);
+
+    private final RedisBucketPool bucketPool;
+    private final BucketConfiguration bucketConfiguration;
+    private final long batchSize;
+    private final long redisRetryNanos;
+    private final int maxKeys;
+    private final long idleNanos;
+
+    private final ConcurrentHashMap<String, LocalBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong redisRetryAt = new AtomicLong();
+    private volatile boolean redisDown;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisCalls = new LongAdder();
+    private final LongAdder fallbackCalls = new LongAdder();
+
+    public TieredRatelimiter(RedisBucketPool bucketPool,
+                             BucketConfiguration bucketConfiguration,
+                             @Value("${todo.app.ratelimit.localBatchSize:5}") long batchSize,
+                             @Value("${todo.app.ratelimit.redisRetrySeconds:10}") long redisRetrySeconds,
+                             @Value("${todo.app.ratelimit.localMaxKeys:100000}") int maxKeys,
+                             @Value("${todo.app.ratelimit.localIdleSeconds:300}") long idleSeconds) {
+        this.bucketPool = bucketPool;
+        this.bucketConfiguration = bucketConfiguration;
+        this.batchSize = Math.max(1, batchSize);
+        this.redisRetryNanos = Duration.ofSeconds(redisRetrySeconds).toNanos();
+        this.maxKeys = maxKeys;
+        this.idleNanos = Duration.ofSeconds(idleSeconds).toNanos();
+    }
+
+    public CompletableFuture<Boolean> tryConsume(String key) {
+        var now = System.nanoTime();
+        var local = getLocalBucket(key, now);
+
+        if (local.tryTakeReserved()) {
+            localHits.increment();
+            return ALLOWED;
+        }
+
+        // No bucket while the key's connection is being opened
+        var bucket = isRedisAvailable(now) ? bucketPool.getBucket(key) : null;
+        if (bucket != null) {
+            try {
+                return bucket
+                    .tryConsumeAsMuchAsPossible(batchSize)
+                    .handle((granted, e) -> {
+                        if (e != null) {
+                            markRedisDown(System.nanoTime(), e);
+                            return tryConsumeFallback(local);
+                        }
+
+                        redisCalls.increment();
+                        markRedisUp();
+
+                        if (granted == null || granted <= 0)
+                            return false;
+
+                        local.addReserved(granted - 1);
+                        return true;
+                    });
+
+            } catch (RuntimeException e) {
+                markRedisDown(now, e);
+            }
+        }
+
+        return tryConsumeFallback(local) ? ALLOWED : REJECTED;
+    }
+
+    public long getLocalHits() {
+        return localHits.sum();
+    }
+
+    public long getRedisCalls() {
+        return redisCalls.sum();
+    }
+
+    public long getFallbackCalls() {
+        return fallbackCalls.sum();
+    }
+
+    public boolean isRedisDown() {
+        return redisDown;
+    }
+
+    private boolean tryConsumeFallback(LocalBucket local) {
+        fallbackCalls.increment();
+        return local.fallback().tryConsume(1L);
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private LocalBucket getLocalBucket(String key, long now) {
+        var local = buckets.get(key);
+        if (local == null) {
+            if (buckets.size() >= maxKeys)
+                removeIdle(now);
+
+            local = buckets.computeIfAbsent(key, k -> new LocalBucket());
+        }
+        local.lastAccess = now;
+        return local;
+    }
+
+    private void removeIdle(long now) {
+        buckets.values().removeIf(bucket -> now - bucket.lastAccess > idleNanos);
+    }
+
+    private boolean isRedisAvailable(long now) {
+        return !redisDown || now - redisRetryAt.get() >= 0;
+    }
+
+    private void markRedisUp() {
+        if (redisDown) {
+            redisDown = false;
+            LOGGER.info("Redis rate limiter is reachable again");
+        }
+    }
+
+    private void markRedisDown(long now, Throwable e) {
+        redisRetryAt.set(now + redisRetryNanos);
+        if (!redisDown) {
+            redisDown = true;
+            LOGGER.warn("Redis rate limiter unreachable, limiting locally", e);
+        }
+    }
+
+    private final class LocalBucket {
+
+        private final AtomicLong reserved = new AtomicLong();
+        private volatile Bucket fallback;
+        private volatile long lastAccess;
+
+        boolean tryTakeReserved() {
+            long current;
+            do {
+                current = reserved.get();
+                if (current <= 0)
+                    return false;
+            } while (!reserved.compareAndSet(current, current - 1));
+
+            return true;
+        }
+
+        void addReserved(long tokens) {
+            if (tokens > 0)
+                reserved.addAndGet(tokens);
+        }
+
+        Bucket fallback() {
+            var result = fallback;
+            if (result == null) {
+                var builder = Bucket.builder();
+                for (var bandwidth : bucketConfiguration.getBandwidths()) {
+                    builder.addLimit(bandwidth);
+                }
+                result = builder.build();
+                fallback = result;
+            }
+            return result;
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package me.rudrade.todo.controller;
 
 import lombok.RequiredArgsConstructor;
+import me.rudrade.todo.exception.InvalidAccessException;
 import me.rudrade.todo.service.JwtService;
-import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import me.rudrade.todo.dto.response.LoginResponse;
@@ -15,7 +16,6 @@ import me.rudrade.todo.service.AuthenticationService;
 public class AuthController {
 
 	private final AuthenticationService authenticationService;
-	private final JwtService jwtService;
 
 	@PostMapping("/login")
 	public LoginResponse authenticate(@RequestBody UserLoginDto userDto) {
@@ -23,8 +23,12 @@ public class AuthController {
 	}
 
 	@GetMapping("/refresh")
-	public LoginResponse refreshToken(@RequestHeader(HttpHeaders.AUTHORIZATION) String token) {
-		return new LoginResponse(authenticationService.refreshToken(jwtService.cleanBearer(token)), null, null);
+	public LoginResponse refreshToken(Authentication authentication) {
+		// The token was already verified by the authentication filter
+		if (authentication == null || !(authentication.getCredentials() instanceof JwtService.VerifiedToken token))
+			throw new InvalidAccessException();
+
+		return new LoginResponse(authenticationService.refreshToken(token), null, null);
 	}
 
 }
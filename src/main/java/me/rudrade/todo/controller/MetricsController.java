@@ -0,0 +1,92 @@
+package me.rudrade.todo.controller;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import me.rudrade.todo.config.BoundedPasswordEncoder;
+import me.rudrade.todo.config.TieredRatelimiter;
+import me.rudrade.todo.dto.response.AvailabilityMetricsResponse;
+import me.rudrade.todo.dto.response.CacheMetricsResponse;
+import me.rudrade.todo.dto.response.MailMetricsResponse;
+import me.rudrade.todo.dto.response.PasswordMetricsResponse;
+import me.rudrade.todo.dto.response.PoolMetricsResponse;
+import me.rudrade.todo.dto.response.RatelimitMetricsResponse;
+import me.rudrade.todo.dto.response.RegionMetricsResponse;
+import me.rudrade.todo.service.AvailabilityService;
+import me.rudrade.todo.service.EntityCache;
+import me.rudrade.todo.service.MailOutboxService;
+import me.rudrade.todo.service.SummaryCache;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+
+    private final HikariDataSource dataSource;
+    private final TieredRatelimiter ratelimiter;
+    private final MailOutboxService mailOutboxService;
+    private final SummaryCache summaryCache;
+    private final EntityCache entityCache;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final AvailabilityService availabilityService;
+
+    @GetMapping("/pool")
+    public PoolMetricsResponse getPoolMetrics() {
+        var pool = dataSource.getHikariPoolMXBean();
+
+        return new PoolMetricsResponse(
+            dataSource.getPoolName(),
+            pool.getActiveConnections(),
+            pool.getIdleConnections(),
+            pool.getTotalConnections(),
+            pool.getThreadsAwaitingConnection(),
+            dataSource.getMaximumPoolSize(),
+            dataSource.getMinimumIdle());
+    }
+
+    @GetMapping("/ratelimit")
+    public RatelimitMetricsResponse getRatelimitMetrics() {
+        return new RatelimitMetricsResponse(
+            ratelimiter.getLocalHits(),
+            ratelimiter.getRedisCalls(),
+            ratelimiter.getFallbackCalls(),
+            ratelimiter.isRedisDown());
+    }
+
+    @GetMapping("/mail")
+    public MailMetricsResponse getMailMetrics() {
+        return new MailMetricsResponse(
+            mailOutboxService.getSentCount(),
+            mailOutboxService.getFailedCount(),
+            mailOutboxService.getRemainingCount());
+    }
+
+    @GetMapping("/cache")
+    public CacheMetricsResponse getCacheMetrics() {
+        return new CacheMetricsResponse(
+            summaryCache.getTagHits(),
+            summaryCache.getTagMisses(),
+            summaryCache.getListHits(),
+            summaryCache.getListMisses(),
+            summaryCache.size());
+    }
+
+    @GetMapping("/cache/regions")
+    public List<RegionMetricsResponse> getRegionMetrics() {
+        return entityCache.getRegionMetrics();
+    }
+
+    @GetMapping("/password")
+    public PasswordMetricsResponse getPasswordMetrics() {
+        return passwordEncoder.getMetrics();
+    }
+
+    @GetMapping("/availability")
+    public AvailabilityMetricsResponse getAvailabilityMetrics() {
+        return availabilityService.getMetrics();
+    }
+}
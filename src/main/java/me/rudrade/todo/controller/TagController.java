@@ -1,42 +1,39 @@
 package me.rudrade.todo.controller;
 
-import me.rudrade.todo.dto.Mapper;
-import me.rudrade.todo.dto.TagDto;
 import me.rudrade.todo.dto.response.TagListResponse;
 import me.rudrade.todo.model.User;
-import me.rudrade.todo.service.AuthenticationService;
+import me.rudrade.todo.service.ChangeVersions;
 import me.rudrade.todo.service.TagService;
+import me.rudrade.todo.util.ConditionalResponse;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/tag")
 public class TagController {
 
-    private final AuthenticationService authenticationService;
     private final TagService tagService;
+    private final ChangeVersions changeVersions;
 
-    public TagController(AuthenticationService authenticationService, TagService tagService) {
-        this.authenticationService = authenticationService;
+    public TagController(TagService tagService, ChangeVersions changeVersions) {
         this.tagService = tagService;
+        this.changeVersions = changeVersions;
     }
 
     @GetMapping()
-    public TagListResponse getAll(@RequestHeader(HttpHeaders.AUTHORIZATION) String authToken) {
-        User user = authenticationService.getUserByAuth(authToken);
+    public ResponseEntity<TagListResponse> getAll(
+        @AuthenticationPrincipal User user,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
-        List<TagDto> lstDto = tagService.findByUser(user).stream()
-            .map(Mapper::toTagDto)
-            .toList();
-
-        return new TagListResponse(lstDto);
+        return ConditionalResponse.of(ifNoneMatch, changeVersions.etag(user), () -> new TagListResponse(tagService.getSummaries(user)));
     }
 
     @DeleteMapping("/{id}")
-    public void deleteTag(@RequestHeader(HttpHeaders.AUTHORIZATION) String authToken, @PathVariable UUID id) {
-        tagService.deleteById(id, authenticationService.getUserByAuth(authToken));
+    public void deleteTag(@AuthenticationPrincipal User user, @PathVariable UUID id) {
+        tagService.deleteById(id, user);
     }
 }
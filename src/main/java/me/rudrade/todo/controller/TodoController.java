@@ -1,15 +1,27 @@
 package me.rudrade.todo.controller;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.UUID;
 
 import me.rudrade.todo.dto.filter.TaskListFilter;
+import me.rudrade.todo.dto.response.TaskBatchResponse;
+import me.rudrade.todo.dto.response.TaskChangesResponse;
 import me.rudrade.todo.dto.response.TaskListResponse;
 import me.rudrade.todo.dto.response.UserListResponse;
-import me.rudrade.todo.service.AuthenticationService;
+import me.rudrade.todo.model.User;
+import me.rudrade.todo.service.ChangeStream;
+import me.rudrade.todo.service.ChangeVersions;
 import me.rudrade.todo.service.UserListService;
+import me.rudrade.todo.util.ConditionalResponse;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import me.rudrade.todo.dto.TaskBatchDto;
 import me.rudrade.todo.dto.TaskDto;
 import me.rudrade.todo.service.TaskService;
 
@@ -19,54 +31,93 @@ public class TodoController {
 	
 	private final TaskService service;
 	private final UserListService userListService;
-	private final AuthenticationService authenticationService;
+	private final ChangeVersions changeVersions;
+	private final ChangeStream changeStream;
 
-	public TodoController(TaskService service, UserListService userListService, AuthenticationService authenticationService) {
+	public TodoController(TaskService service, UserListService userListService, ChangeVersions changeVersions, ChangeStream changeStream) {
 		this.service = service;
 		this.userListService = userListService;
-		this.authenticationService = authenticationService;
+		this.changeVersions = changeVersions;
+		this.changeStream = changeStream;
 	}
 
 	@PostMapping("/save")
 	public TaskDto saveTask(@RequestBody TaskDto task,
-							@RequestHeader(HttpHeaders.AUTHORIZATION) String authToken) {
+							@AuthenticationPrincipal User user) {
 
-		return service.saveTask(task, authenticationService.getUserByAuth(authToken));
+		return service.saveTask(task, user);
+	}
+
+	@PostMapping("/batch")
+	public TaskBatchResponse saveBatch(@RequestBody TaskBatchDto batch,
+									   @AuthenticationPrincipal User user) {
+
+		return service.saveBatch(batch, user);
 	}
 	
 	@GetMapping()
-	public TaskListResponse getAll(
-		@RequestHeader(HttpHeaders.AUTHORIZATION) String authToken,
+	public ResponseEntity<TaskListResponse> getAll(
+		@AuthenticationPrincipal User user,
+		@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
 		@RequestParam(required = false) String filter,
-		@RequestParam(required = false) String searchTerm
+		@RequestParam(required = false) String searchTerm,
+		@RequestParam(required = false) String cursor,
+		@RequestParam(required = false) Integer size,
+		@RequestParam(defaultValue = "false") boolean withTotal,
+		@RequestParam(required = false) List<String> tags,
+		@RequestParam(required = false) String tagMatch
 	) {
 
         TaskListFilter listFilter = new TaskListFilter(
                 filter==null || filter.isEmpty() ? null : TaskListFilter.Filter.valueOf(filter.toUpperCase()),
                 searchTerm,
-				authenticationService.getUserByAuth(authToken));
+				user,
+				cursor,
+				size,
+				withTotal,
+				tags,
+				tagMatch==null || tagMatch.isEmpty() ? null : TaskListFilter.TagMatch.valueOf(tagMatch.toUpperCase()));
 
-        return service.getAll(listFilter);
+        // Today and upcoming filters change with the date
+        return ConditionalResponse.of(ifNoneMatch, changeVersions.etag(user, LocalDate.now()), () -> service.getAll(listFilter));
 	}
 	
+	@GetMapping("/changes")
+	public ResponseEntity<TaskChangesResponse> getChanges(
+		@AuthenticationPrincipal User user,
+		@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+		@RequestParam(defaultValue = "0") long since) {
+
+		return ConditionalResponse.of(ifNoneMatch, changeVersions.etag(user), () -> service.getChanges(user, since));
+	}
+
+	@GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter getEvents(@AuthenticationPrincipal User user) {
+
+		return changeStream.subscribe(user);
+	}
+
 	@GetMapping("/detail/{id}")
 	public TaskDto getDetail(
-		@RequestHeader(HttpHeaders.AUTHORIZATION) String authToken,
+		@AuthenticationPrincipal User user,
 		@PathVariable UUID id) {
 
-		return service.getById(id, authenticationService.getUserByAuth(authToken));
+		return service.getById(id, user);
 	}
 	
 	@DeleteMapping("/remove/{id}")
 	public void delete(
-		@RequestHeader(HttpHeaders.AUTHORIZATION) String authToken,
+		@AuthenticationPrincipal User user,
 		@PathVariable UUID id) {
 
-		service.deleteById(id, authenticationService.getUserByAuth(authToken));
+		service.deleteById(id, user);
 	}
 
 	@GetMapping("/lists")
-	public UserListResponse getUserLists(@RequestHeader(HttpHeaders.AUTHORIZATION) String authToken) {
-		return new UserListResponse(userListService.getUserListsByToken(authToken));
+	public ResponseEntity<UserListResponse> getUserLists(
+		@AuthenticationPrincipal User user,
+		@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+		return ConditionalResponse.of(ifNoneMatch, changeVersions.etag(user), () -> new UserListResponse(userListService.getUserLists(user)));
 	}
 }
@@ -1,7 +1,7 @@
 package me.rudrade.todo.controller;
 
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 
 import java.util.Locale;
 import java.util.UUID;
@@ -14,10 +14,12 @@ import me.rudrade.todo.dto.PasswordResetDto;
 import me.rudrade.todo.dto.UserChangeDto;
 import me.rudrade.todo.dto.UserDto;
 import me.rudrade.todo.dto.UserRequestDto;
+import me.rudrade.todo.dto.response.AvailabilityResponse;
 import me.rudrade.todo.dto.response.RequestListResponse;
 import me.rudrade.todo.dto.response.UsersResponse;
 import me.rudrade.todo.dto.types.UserSearchType;
-import me.rudrade.todo.service.AuthenticationService;
+import me.rudrade.todo.model.User;
+import me.rudrade.todo.service.AvailabilityService;
 import me.rudrade.todo.service.UserService;
 
 @RestController
@@ -26,40 +28,46 @@ import me.rudrade.todo.service.UserService;
 public class UserController {
 
     private final UserService userService;
-    private final AuthenticationService authenticationService;
+    private final AvailabilityService availabilityService;
 
     @PostMapping("/register")
     public void createUser(@RequestBody UserRequestDto body, Locale locale) {
         userService.createUser(body, locale);
     }
 
+    @GetMapping("/availability")
+    public AvailabilityResponse getAvailability(
+        @RequestParam(required = false) String username,
+        @RequestParam(required = false) String email,
+        Locale locale
+    ) {
+        return availabilityService.getAvailability(username, email, locale);
+    }
+
     @GetMapping("/{id}")
     public UserDto getUser(
-        @RequestHeader(HttpHeaders.AUTHORIZATION) String authToken,
+        @AuthenticationPrincipal User requester,
         @PathVariable UUID id
     ) {
-        var requester = authenticationService.getUserByAuth(authToken);
         return userService.getById(id, requester);
     }
 
     @PatchMapping(value = "/{id}", consumes = {MediaType.MULTIPART_FORM_DATA_VALUE,MediaType.APPLICATION_FORM_URLENCODED_VALUE})
     public UserDto updateUser(
-        @RequestHeader(HttpHeaders.AUTHORIZATION) String authToken,
+        @AuthenticationPrincipal User requester,
         @PathVariable UUID id,
         @ModelAttribute UserChangeDto body
     ) {
-        var requester = authenticationService.getUserByAuth(authToken);
         return userService.updateUser(id, body, requester);
     }
 
     @GetMapping()
     public UsersResponse getUsers(
-        @RequestHeader(HttpHeaders.AUTHORIZATION) String authToken,
+        @AuthenticationPrincipal User requester,
         @RequestParam(required = false) Boolean active,
         @RequestParam(required = false) UserSearchType searchType,
         @RequestParam(required = false) String searchTerm
     ) {
-        var requester = authenticationService.getUserByAuth(authToken);
         return new UsersResponse(userService.getAllUsers(active, searchType, searchTerm, requester));
     }
 
@@ -41,10 +41,6 @@ public class Mapper {
 		return new Tag(null, dto.name(), dto.color(), null, null);
 	}
 
-	public static UserListDto toListDto(UserList lst) {
-		return new UserListDto(lst.getName(), lst.getColor(), lst.getTasks() == null ? 0 : lst.getTasks().size());
-	}
-
 	public static UserRequest toUserRequest(UserRequestDto dto) {
 		var user = new UserRequest();
 		user.setUsername(dto.getUsername());
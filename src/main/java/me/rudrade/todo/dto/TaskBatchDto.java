@@ -0,0 +1,7 @@
+package me.rudrade.todo.dto;
+
+import java.util.List;
+
+public record TaskBatchDto(List<TaskOperationDto> operations) {
+
+}
@@ -0,0 +1,13 @@
+package me.rudrade.todo.dto;
+
+import java.util.UUID;
+
+import me.rudrade.todo.dto.types.TaskOperationType;
+
+/**
+ * One operation of a task batch. {@link TaskOperationType#SAVE} creates or updates the given task,
+ * {@link TaskOperationType#DELETE} removes the task with the given id.
+ */
+public record TaskOperationDto(TaskOperationType type, UUID id, TaskDto task) {
+
+}
@@ -0,0 +1,38 @@
+package me.rudrade.todo.dto.filter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a search page. Search results are ranked by relevance, so they are paged by offset
+ * instead of by the last task returned. Clients only see the opaque url-safe encoded form.
+ */
+public record SearchCursor(long offset) {
+
+    private static final String PREFIX = "search|";
+
+    public String encode() {
+        var raw = PREFIX + offset;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value isn't a cursor previously produced by {@link #encode()}
+     */
+    public static SearchCursor decode(String value) {
+        var raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+
+        if (!raw.startsWith(PREFIX))
+            throw new IllegalArgumentException("Invalid cursor");
+
+        try {
+            var offset = Long.parseLong(raw.substring(PREFIX.length()));
+            if (offset < 0)
+                throw new IllegalArgumentException("Invalid cursor");
+
+            return new SearchCursor(offset);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
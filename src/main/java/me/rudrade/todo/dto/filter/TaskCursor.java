@@ -0,0 +1,47 @@
+package me.rudrade.todo.dto.filter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.UUID;
+
+import me.rudrade.todo.model.Task;
+
+/**
+ * Position of the last task returned in a keyset page (ordered by due date, nulls first, then id).
+ * Clients only see the opaque url-safe encoded form.
+ */
+public record TaskCursor(LocalDate dueDate, UUID id) {
+
+    private static final String SEPARATOR = "|";
+
+    public static TaskCursor of(Task task) {
+        return new TaskCursor(task.getDueDate(), task.getId());
+    }
+
+    public String encode() {
+        var raw = (dueDate == null ? "" : dueDate.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value isn't a cursor previously produced by {@link #encode()}
+     */
+    public static TaskCursor decode(String value) {
+        var raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+
+        int idx = raw.indexOf(SEPARATOR);
+        if (idx < 0)
+            throw new IllegalArgumentException("Invalid cursor");
+
+        try {
+            var strDate = raw.substring(0, idx);
+            return new TaskCursor(
+                strDate.isEmpty() ? null : LocalDate.parse(strDate),
+                UUID.fromString(raw.substring(idx + 1))
+            );
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
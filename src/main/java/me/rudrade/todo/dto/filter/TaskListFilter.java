@@ -1,8 +1,42 @@
 package me.rudrade.todo.dto.filter;
 
+import java.util.List;
+import java.util.Locale;
+
 import me.rudrade.todo.model.User;
 
-public record TaskListFilter(Filter filter, String searchTerm, User user) {
+public record TaskListFilter(Filter filter, String searchTerm, User user, String cursor, Integer size, boolean withTotal,
+                             List<String> tags, TagMatch tagMatch) {
+
+    public TaskListFilter(Filter filter, String searchTerm, User user) {
+        this(filter, searchTerm, user, null, null, false);
+    }
+
+    public TaskListFilter(Filter filter, String searchTerm, User user, String cursor, Integer size, boolean withTotal) {
+        this(filter, searchTerm, user, cursor, size, withTotal, null, null);
+    }
+
+    /**
+     * Keyset pagination is used as soon as the client sends a cursor or a page size,
+     * otherwise the whole result is returned.
+     */
+    public boolean isPaged() {
+        return cursor != null || size != null;
+    }
+
+    /**
+     * Tags to filter by, the search term is used when no tags are sent.
+     * Tag names are compared ignoring case, so names differing only in case are sent once.
+     */
+    public List<String> tagNames() {
+        var names = tags == null || tags.isEmpty() ? (searchTerm == null ? List.<String>of() : List.of(searchTerm)) : tags;
+
+        return names.stream()
+            .filter(name -> name != null && !name.isBlank())
+            .map(name -> name.trim().toLowerCase(Locale.ROOT))
+            .distinct()
+            .toList();
+    }
 
     public enum Filter {
         UPCOMING,
@@ -11,5 +45,12 @@ public record TaskListFilter(Filter filter, String searchTerm, User user) {
         LIST,
         TAG
     }
-}
 
+    /**
+     * How tasks must match the tags of a {@link Filter#TAG} filter, defaults to {@link #ANY}.
+     */
+    public enum TagMatch {
+        ANY,
+        ALL
+    }
+}
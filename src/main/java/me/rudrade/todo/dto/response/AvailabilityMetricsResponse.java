@@ -0,0 +1,5 @@
+package me.rudrade.todo.dto.response;
+
+public record AvailabilityMetricsResponse(long checks, long skipped, long falsePositives, long names) {
+
+}
@@ -0,0 +1,5 @@
+package me.rudrade.todo.dto.response;
+
+public record AvailabilityResponse(Boolean usernameAvailable, Boolean emailAvailable) {
+
+}
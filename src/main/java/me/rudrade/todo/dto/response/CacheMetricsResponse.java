@@ -0,0 +1,5 @@
+package me.rudrade.todo.dto.response;
+
+public record CacheMetricsResponse(long tagHits, long tagMisses, long listHits, long listMisses, int size) {
+
+}
@@ -0,0 +1,5 @@
+package me.rudrade.todo.dto.response;
+
+public record MailMetricsResponse(long sent, long failed, long remaining) {
+
+}
@@ -0,0 +1,7 @@
+package me.rudrade.todo.dto.response;
+
+public record PasswordMetricsResponse(long encodeCount, double encodeAvgMs, double encodeMaxMs,
+                                      long matchesCount, double matchesAvgMs, double matchesMaxMs,
+                                      double queueWaitAvgMs, long rejected, int queued, int threads) {
+
+}
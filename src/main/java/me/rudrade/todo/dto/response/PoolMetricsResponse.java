@@ -0,0 +1,5 @@
+package me.rudrade.todo.dto.response;
+
+public record PoolMetricsResponse(String pool, int active, int idle, int total, int waiting, int maxSize, int minIdle) {
+
+}
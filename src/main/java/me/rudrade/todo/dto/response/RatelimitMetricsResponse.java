@@ -0,0 +1,5 @@
+package me.rudrade.todo.dto.response;
+
+public record RatelimitMetricsResponse(long localHits, long redisCalls, long fallbackCalls, boolean redisDown) {
+
+}
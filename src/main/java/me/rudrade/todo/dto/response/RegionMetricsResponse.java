@@ -0,0 +1,5 @@
+package me.rudrade.todo.dto.response;
+
+public record RegionMetricsResponse(String region, long hits, long misses, double hitRatio, int size) {
+
+}
@@ -0,0 +1,7 @@
+package me.rudrade.todo.dto.response;
+
+import java.util.List;
+
+public record TaskBatchResponse(List<TaskOperationResult> results) {
+
+}
@@ -0,0 +1,22 @@
+package me.rudrade.todo.dto.response;
+
+import me.rudrade.todo.dto.TagDto;
+import me.rudrade.todo.dto.TaskDto;
+import me.rudrade.todo.dto.UserListDto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Everything changed after the requested sequence number, {@code seq} is the one to ask from next time.
+ */
+public record TaskChangesResponse(
+    long seq,
+    List<TaskDto> tasks,
+    List<UUID> deletedTasks,
+    List<TagDto> tags,
+    List<String> deletedTags,
+    List<UserListDto> lists,
+    List<String> deletedLists
+) {
+}
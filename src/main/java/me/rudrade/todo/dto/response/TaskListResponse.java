@@ -4,5 +4,9 @@ import me.rudrade.todo.dto.TaskDto;
 
 import java.util.List;
 
-public record TaskListResponse(long count, List<TaskDto> tasks) {
+public record TaskListResponse(Long count, List<TaskDto> tasks, String nextCursor) {
+
+    public TaskListResponse(long count, List<TaskDto> tasks) {
+        this(Long.valueOf(count), tasks, null);
+    }
 }
@@ -0,0 +1,17 @@
+package me.rudrade.todo.dto.response;
+
+import java.util.UUID;
+
+import me.rudrade.todo.dto.TaskDto;
+import me.rudrade.todo.dto.types.TaskOperationType;
+
+public record TaskOperationResult(int index, TaskOperationType type, UUID id, boolean success, TaskDto task, String error) {
+
+    public static TaskOperationResult ok(int index, TaskOperationType type, UUID id, TaskDto task) {
+        return new TaskOperationResult(index, type, id, true, task, null);
+    }
+
+    public static TaskOperationResult failed(int index, TaskOperationType type, UUID id, String error) {
+        return new TaskOperationResult(index, type, id, false, null, error);
+    }
+}
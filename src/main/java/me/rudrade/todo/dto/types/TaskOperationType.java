@@ -0,0 +1,6 @@
+package me.rudrade.todo.dto.types;
+
+public enum TaskOperationType {
+    SAVE,
+    DELETE
+}
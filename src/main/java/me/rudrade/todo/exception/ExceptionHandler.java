@@ -6,6 +6,7 @@ import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authorization.AuthorizationDeniedException;
@@ -75,6 +76,13 @@ public class ExceptionHandler {
 		return new ResponseEntity<>(new Error("Access Invalid", null), HttpStatus.FORBIDDEN);
 	}
 
+	@org.springframework.web.bind.annotation.ExceptionHandler(ServiceUnavailableException.class)
+	public ResponseEntity<Error> handleServiceUnavailableException(ServiceUnavailableException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+			.header(HttpHeaders.RETRY_AFTER, "1")
+			.body(new Error("Service unavailable", null));
+	}
+
     @org.springframework.web.bind.annotation.ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Error> handleRuntimeException(RuntimeException ex) {
         LOGGER.error("Uncaught exception", ex);
@@ -0,0 +1,11 @@
+package me.rudrade.todo.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceUnavailableException extends RuntimeException {
+
+	private static final long serialVersionUID = -3127485093312759614L;
+
+}
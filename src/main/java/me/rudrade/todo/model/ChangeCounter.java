@@ -0,0 +1,24 @@
+package me.rudrade.todo.model;
+
+import java.util.UUID;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Last modification sequence number given to a user, incremented by ChangeLog.
+ */
+@Table(name = "change_counter")
+@Entity
+@Getter
+@Setter
+public class ChangeCounter {
+
+	@Id
+	@Column(name = "user_id", nullable = false, updatable = false)
+	private UUID userId;
+
+	@Column(name = "seq", nullable = false)
+	private long seq;
+}
@@ -0,0 +1,46 @@
+package me.rudrade.todo.model;
+
+import java.util.UUID;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import me.rudrade.todo.model.types.ChangeType;
+
+/**
+ * Last change of a task, tag or list, a deleted one is kept as a tombstone.
+ * Written with upserts by ChangeLog, one row per entity.
+ */
+@Table(name = "entity_change", indexes = {
+	@Index(name = "idx_entity_change_user_seq", columnList = "user_id, seq")
+})
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class EntityChange {
+
+	@Id
+	@Column(name = "entity_id", nullable = false, updatable = false)
+	private UUID entityId;
+
+	@Column(name = "user_id", nullable = false, updatable = false)
+	private UUID userId;
+
+	@Column(name = "type", nullable = false, updatable = false, length = 10)
+	@Enumerated(EnumType.STRING)
+	private ChangeType type;
+
+	// Tags and lists are identified by name on the client, so their tombstones keep it
+	@Column(name = "name")
+	private String name;
+
+	@Column(name = "seq", nullable = false)
+	private long seq;
+
+	@Column(name = "deleted", nullable = false)
+	private boolean deleted;
+}
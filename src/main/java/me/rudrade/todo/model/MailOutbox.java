@@ -0,0 +1,76 @@
+package me.rudrade.todo.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.UuidGenerator;
+import lombok.Getter;
+import lombok.Setter;
+import me.rudrade.todo.model.types.MailStatus;
+import me.rudrade.todo.model.types.MailType;
+import me.rudrade.todo.util.UuidV7;
+
+@Table(name = "mail_outbox", indexes = {
+	@Index(name = "idx_mail_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+	@Index(name = "idx_mail_outbox_claimed_by", columnList = "claimed_by")
+})
+@Entity
+@Getter
+@Setter
+public class MailOutbox {
+
+	@Id
+	@GeneratedValue
+	@UuidGenerator(algorithm = UuidV7.class)
+	@Column(name = "id", nullable = false, updatable = false)
+	private UUID id;
+
+	@Column(name = "type", nullable = false, updatable = false)
+	@Enumerated(EnumType.STRING)
+	@NotNull
+	private MailType type;
+
+	// Id of the user_request or password_request the mail is built from
+	@Column(name = "request_id", nullable = false, updatable = false)
+	@NotNull
+	private UUID requestId;
+
+	@Column(name = "recipient", nullable = false, updatable = false)
+	@NotNull
+	private String recipient;
+
+	@Column(name = "status", nullable = false)
+	@Enumerated(EnumType.STRING)
+	@NotNull
+	private MailStatus status;
+
+	@Column(name = "attempts", nullable = false)
+	private int attempts;
+
+	@Column(name = "next_attempt_at", nullable = false)
+	@NotNull
+	private LocalDateTime nextAttemptAt;
+
+	@Column(name = "last_error", length = 500)
+	private String lastError;
+
+	// Set while an app instance is sending the mail, so others skip it until the claim expires
+	@Column(name = "claimed_by", length = 36)
+	private String claimedBy;
+
+	@Column(name = "claimed_until")
+	private LocalDateTime claimedUntil;
+
+	@Column(name = "dt_created", nullable = false, updatable = false)
+	@NotNull
+	private LocalDateTime dtCreated;
+
+	public String getDomain() {
+		if (recipient == null) return "";
+
+		var index = recipient.lastIndexOf('@');
+		return index < 0 ? "" : recipient.substring(index + 1).toLowerCase();
+	}
+}
@@ -10,6 +10,8 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import me.rudrade.todo.util.UuidV7;
+import org.hibernate.annotations.UuidGenerator;
 
 @Entity
 @Table(name = "task")
@@ -20,7 +22,8 @@ import lombok.*;
 public class Task {
 	
 	@Id
-	@GeneratedValue(strategy = GenerationType.UUID)
+	@GeneratedValue
+	@UuidGenerator(algorithm = UuidV7.class)
 	@Column(name = "id", updatable = false, nullable = false)
 	private UUID id;
 	
@@ -49,7 +52,8 @@ public class Task {
 	@JoinTable(
 		name = "tag_task",
 		joinColumns = @JoinColumn(name = "task_id"),
-		inverseJoinColumns = @JoinColumn(name = "tag_id")
+		inverseJoinColumns = @JoinColumn(name = "tag_id"),
+		indexes = @Index(name = "idx_tag_task_tag_task", columnList = "tag_id, task_id")
 	)
 	private List<Tag> tags;
 
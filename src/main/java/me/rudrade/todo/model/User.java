@@ -11,6 +11,9 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UuidGenerator;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -19,9 +22,12 @@ import lombok.Getter;
 import lombok.Setter;
 import me.rudrade.todo.model.types.Language;
 import me.rudrade.todo.model.types.Role;
+import me.rudrade.todo.util.UuidV7;
 
 @Table(name = "user")
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "user")
 @Getter
 @Setter
 public class User implements UserDetails {
@@ -30,7 +36,8 @@ public class User implements UserDetails {
     private static final long serialVersionUID = -4583113882616923801L;
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.UUID)
+	@GeneratedValue
+	@UuidGenerator(algorithm = UuidV7.class)
 	@Column(name = "id", nullable = false, updatable = false)
 	private UUID id;
 	
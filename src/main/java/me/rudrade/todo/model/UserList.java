@@ -3,16 +3,22 @@ package me.rudrade.todo.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UuidGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import me.rudrade.todo.util.UuidV7;
 
 import java.util.List;
 import java.util.UUID;
 
 @Table(name = "user_list")
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "user_list")
 @Getter
 @Setter
 @AllArgsConstructor
@@ -20,7 +26,8 @@ import java.util.UUID;
 public class UserList {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedValue
+    @UuidGenerator(algorithm = UuidV7.class)
     @Column(name = "id", nullable = false, updatable = false)
     private UUID id;
 
@@ -0,0 +1,7 @@
+package me.rudrade.todo.model.types;
+
+public enum MailStatus {
+    PENDING,
+    SENT,
+    FAILED
+}
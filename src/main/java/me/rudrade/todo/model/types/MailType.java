@@ -0,0 +1,6 @@
+package me.rudrade.todo.model.types;
+
+public enum MailType {
+    ACTIVATION,
+    PASSWORD_RESET
+}
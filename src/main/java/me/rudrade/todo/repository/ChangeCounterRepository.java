@@ -0,0 +1,12 @@
+package me.rudrade.todo.repository;
+
+import java.util.UUID;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import me.rudrade.todo.model.ChangeCounter;
+
+@Repository
+public interface ChangeCounterRepository extends CrudRepository<ChangeCounter, UUID> {
+}
@@ -0,0 +1,15 @@
+package me.rudrade.todo.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import me.rudrade.todo.model.EntityChange;
+
+@Repository
+public interface EntityChangeRepository extends CrudRepository<EntityChange, UUID> {
+
+    List<EntityChange> findByUserIdAndSeqGreaterThanOrderBySeqAsc(UUID userId, long seq);
+}
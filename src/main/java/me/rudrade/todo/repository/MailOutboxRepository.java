@@ -0,0 +1,57 @@
+package me.rudrade.todo.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.NativeQuery;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import me.rudrade.todo.model.MailOutbox;
+import me.rudrade.todo.model.types.MailStatus;
+
+@Repository
+public interface MailOutboxRepository extends CrudRepository<MailOutbox, UUID> {
+
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @NativeQuery("""
+        update mail_outbox set claimed_by = ?1, claimed_until = ?2
+        where status = 'PENDING' and next_attempt_at <= ?3 and (claimed_until is null or claimed_until < ?3)
+        order by next_attempt_at
+        limit ?4""")
+    int claimDue(String token, LocalDateTime claimedUntil, LocalDateTime now, int limit);
+
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+        UPDATE MailOutbox m SET m.claimedBy = ?2, m.claimedUntil = ?3
+        WHERE m.id = ?1 AND m.status = me.rudrade.todo.model.types.MailStatus.PENDING
+        AND (m.claimedUntil IS NULL OR m.claimedUntil < ?4)""")
+    int claim(UUID id, String token, LocalDateTime claimedUntil, LocalDateTime now);
+
+    List<MailOutbox> findByClaimedBy(String token);
+
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+        UPDATE MailOutbox m SET m.claimedUntil = ?3
+        WHERE m.id IN ?1 AND m.claimedBy = ?2 AND m.status = me.rudrade.todo.model.types.MailStatus.PENDING""")
+    int extendClaim(Collection<UUID> ids, String token, LocalDateTime claimedUntil);
+
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+        UPDATE MailOutbox m SET m.status = me.rudrade.todo.model.types.MailStatus.SENT, m.attempts = m.attempts + 1,
+        m.lastError = NULL, m.claimedBy = NULL, m.claimedUntil = NULL
+        WHERE m.id IN ?1 AND m.claimedBy = ?2""")
+    int markSent(Collection<UUID> ids, String token);
+
+    long countByStatus(MailStatus status);
+
+}
@@ -1,12 +1,15 @@
 package me.rudrade.todo.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.NativeQuery;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import me.rudrade.todo.model.PasswordRequest;
 
@@ -19,4 +22,9 @@ public interface PasswordRequestRepository extends CrudRepository<PasswordReques
 
     List<PasswordRequest> findAllByMailSentIsFalse();
 
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE PasswordRequest r SET r.mailSent = true WHERE r.id IN ?1")
+    void markMailSent(Collection<UUID> ids);
+
 }
@@ -1,9 +1,15 @@
 package me.rudrade.todo.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import me.rudrade.todo.model.Tag;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -11,9 +17,22 @@ import java.util.UUID;
 @Repository
 public interface TagRepository extends CrudRepository<Tag, UUID> {
 
+    // Lookups served from the query cache, invalidated by any write to the tag table
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"), @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "tag-queries")})
     List<Tag> findByUserId(UUID userId);
 
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"), @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "tag-queries")})
     Optional<Tag> findByNameAndUserId(String name, UUID userId);
 
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"), @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "tag-queries")})
     Optional<Tag> findByIdAndUserId(UUID id, UUID userId);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"), @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "tag-queries")})
+    List<Tag> findByUserIdAndNameIn(UUID userId, Collection<String> names);
+
+    List<Tag> findAllByIdInAndUserId(Collection<UUID> ids, UUID userId);
+
+    // A locking read returns the latest committed rows, not the transaction snapshot
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    List<Tag> findLockedByUserIdAndNameIn(UUID userId, Collection<String> names);
 }
@@ -1,5 +1,8 @@
 package me.rudrade.todo.repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -15,6 +18,21 @@ import me.rudrade.todo.model.Task;
 @Repository
 public interface TaskRepository extends CrudRepository<Task, UUID>{
 
+    // Keyset pagination: rows strictly after (:lastDueDate, :lastId) in "due date, id" order, tasks without a
+    // due date come first as MySQL sorts nulls. The order matches idx_task_user_due_date, so pages are read
+    // from the index without a filesort. A null :lastId means the first page.
+    String SEEK_AFTER = " AND (:lastId IS NULL" +
+        " OR (:lastDueDate IS NULL AND (t.dueDate IS NOT NULL OR t.id > :lastId))" +
+        " OR t.dueDate > :lastDueDate OR (t.dueDate = :lastDueDate AND t.id > :lastId))";
+    String SEEK_ORDER = " ORDER BY t.dueDate ASC, t.id ASC";
+
+    // Tag filters as semi-joins on tag_task, no DISTINCT over the join is needed
+    String HAS_ANY_TAG = " AND EXISTS (SELECT 1 FROM t.tags tg WHERE tg.user.id = :userId AND tg.name IN :names)";
+    String HAS_ALL_TAGS = " AND (SELECT count(DISTINCT tg.name) FROM t.tags tg WHERE tg.user.id = :userId AND tg.name IN :names) = :tagCount";
+
+    // Boolean mode full-text match on the ft_task_title_description index, also used as the relevance
+    String MATCH = "match(t.title, t.description) against (?1 in boolean mode)";
+
     @Query(value = "SELECT t FROM Task t WHERE t.dueDate = CURRENT_DATE AND t.user.id = ?1",
         countQuery = "SELECT count(t.id) FROM Task t WHERE t.dueDate = CURRENT_DATE AND t.user.id = ?1"
     )
@@ -25,19 +43,68 @@ public interface TaskRepository extends CrudRepository<Task, UUID>{
     )
     Page<Task> findDueUpcoming(UUID userId, Pageable pageable);
 
-    @Query(value = "SELECT t FROM Task t WHERE LOWER(t.title) LIKE LOWER(CONCAT('%', ?1, '%')) AND t.user.id = ?2",
-        countQuery = "SELECT count(t.id) FROM Task t WHERE LOWER(t.title) LIKE LOWER(CONCAT('%', ?1, '%')) AND t.user.id = ?2"
-    )
-    Page<Task> findByTitleContains(String title, UUID userId, Pageable pageable);
-
     Optional<Task> findByIdAndUserId(UUID id, UUID userId);
 
+    List<Task> findAllByIdInAndUserId(Collection<UUID> ids, UUID userId);
+
     Page<Task> findAllByUserId(UUID userId, Pageable pageable);
 
     Page<Task> findAllByUserListNameAndUserId(String name, UUID userId, Pageable pageable);
 
-    @NativeQuery(value = "select distinct t.* from task t inner join tag_task tt on tt.task_id = t.id inner join tag tg on tg.id = tt.tag_id where tg.name = ?1 and t.user_id = ?2",
-        countQuery = "select count(distinct(t.id)) from task t inner join tag_task tt on tt.task_id = t.id inner join tag tg on tg.id = tt.tag_id where tg.name = ?1 and t.user_id = ?2"
-    )
-    Page<Task> findAllByTagsNameAndUserId(String name, UUID userId, Pageable pageable);
+    // Keyset pages, the pageable only carries the limit
+
+    @Query("SELECT t FROM Task t WHERE t.user.id = :userId" + SEEK_AFTER + SEEK_ORDER)
+    List<Task> seekAllByUserId(UUID userId, LocalDate lastDueDate, UUID lastId, Pageable pageable);
+
+    @Query("SELECT t FROM Task t WHERE t.dueDate = CURRENT_DATE AND t.user.id = :userId" + SEEK_AFTER + SEEK_ORDER)
+    List<Task> seekDueToday(UUID userId, LocalDate lastDueDate, UUID lastId, Pageable pageable);
+
+    @Query("SELECT t FROM Task t WHERE t.dueDate > CURRENT_DATE AND t.user.id = :userId" + SEEK_AFTER + SEEK_ORDER)
+    List<Task> seekDueUpcoming(UUID userId, LocalDate lastDueDate, UUID lastId, Pageable pageable);
+
+    @Query("SELECT t FROM Task t WHERE t.userList.name = :name AND t.user.id = :userId" + SEEK_AFTER + SEEK_ORDER)
+    List<Task> seekByUserListName(String name, UUID userId, LocalDate lastDueDate, UUID lastId, Pageable pageable);
+
+    @Query("SELECT t FROM Task t WHERE t.user.id = :userId" + HAS_ANY_TAG + SEEK_AFTER + SEEK_ORDER)
+    List<Task> seekByAnyTag(Collection<String> names, UUID userId, LocalDate lastDueDate, UUID lastId, Pageable pageable);
+
+    @Query("SELECT t FROM Task t WHERE t.user.id = :userId" + HAS_ALL_TAGS + SEEK_AFTER + SEEK_ORDER)
+    List<Task> seekByAllTags(Collection<String> names, long tagCount, UUID userId, LocalDate lastDueDate, UUID lastId, Pageable pageable);
+
+    // Totals for keyset pages, only ran when requested by the client
+
+    long countByUserId(UUID userId);
+
+    @Query("SELECT count(t.id) FROM Task t WHERE t.dueDate = CURRENT_DATE AND t.user.id = ?1")
+    long countDueToday(UUID userId);
+
+    @Query("SELECT count(t.id) FROM Task t WHERE t.dueDate > CURRENT_DATE AND t.user.id = ?1")
+    long countDueUpcoming(UUID userId);
+
+    long countByUserListNameAndUserId(String name, UUID userId);
+
+    @Query("SELECT count(t.id) FROM Task t WHERE t.user.id = :userId" + HAS_ANY_TAG)
+    long countByAnyTag(Collection<String> names, UUID userId);
+
+    @Query("SELECT count(t.id) FROM Task t WHERE t.user.id = :userId" + HAS_ALL_TAGS)
+    long countByAllTags(Collection<String> names, long tagCount, UUID userId);
+
+    // Search, ranked by relevance and paged by offset
+
+    @NativeQuery("select t.* from task t where t.user_id = ?2 and " + MATCH + " order by " + MATCH + " desc, t.id limit ?3 offset ?4")
+    List<Task> searchFullText(String query, UUID userId, int limit, long offset);
+
+    @NativeQuery("select count(*) from task t where t.user_id = ?2 and " + MATCH)
+    long countFullText(String query, UUID userId);
+
+    // Terms shorter than the full-text token size aren't indexed, those are matched with a scan
+    @NativeQuery("select t.* from task t where t.user_id = ?2 and (lower(t.title) like ?1 or lower(t.description) like ?1) order by t.id limit ?3 offset ?4")
+    List<Task> searchContains(String pattern, UUID userId, int limit, long offset);
+
+    @NativeQuery("select count(*) from task t where t.user_id = ?2 and (lower(t.title) like ?1 or lower(t.description) like ?1)")
+    long countContains(String pattern, UUID userId);
+
+    // Loads the list and tags of already selected tasks in a single round-trip, used before mapping to dto
+    @Query("SELECT DISTINCT t FROM Task t LEFT JOIN FETCH t.userList LEFT JOIN FETCH t.tags WHERE t.id IN ?1")
+    List<Task> fetchListsAndTags(Collection<UUID> ids);
 }
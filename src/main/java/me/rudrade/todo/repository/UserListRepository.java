@@ -1,15 +1,32 @@
 package me.rudrade.todo.repository;
 
+import me.rudrade.todo.dto.UserListDto;
 import me.rudrade.todo.model.UserList;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface UserListRepository extends CrudRepository<UserList, UUID> {
 
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"), @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "user_list-queries")})
     Optional<UserList> findByNameAndUserId(String name, UUID userId);
 
+    // Task counts are aggregated in the database instead of loading each list's tasks
+    @Query("SELECT new me.rudrade.todo.dto.UserListDto(l.name, l.color, count(t.id)) FROM UserList l LEFT JOIN l.tasks t" +
+        " WHERE l.user.id = ?1 GROUP BY l.id, l.name, l.color ORDER BY l.name")
+    List<UserListDto> findSummariesByUserId(UUID userId);
+
+    @Query("SELECT new me.rudrade.todo.dto.UserListDto(l.name, l.color, count(t.id)) FROM UserList l LEFT JOIN l.tasks t" +
+        " WHERE l.id IN ?1 AND l.user.id = ?2 GROUP BY l.id, l.name, l.color ORDER BY l.name")
+    List<UserListDto> findSummariesByIdIn(Collection<UUID> ids, UUID userId);
+
 }
@@ -4,18 +4,30 @@ import java.util.Optional;
 import java.util.List;
 import java.util.UUID;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.QueryHint;
 import me.rudrade.todo.model.User;
 
 @Repository
 public interface UserRepository extends CrudRepository<User, UUID> {
 	
+	@QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"), @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "user-queries")})
 	Optional<User> findByUsername(String username);
 
+	@QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"), @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "user-queries")})
 	List<User> findActiveByUsernameOrEmail(String username, String email);
 
+	boolean existsByUsername(String username);
+
+	boolean existsByEmail(String email);
+
 	List<User> findByActive(boolean active);
 
 	List<User> findByUsernameContainingIgnoreCase(String username);
@@ -26,4 +38,10 @@ public interface UserRepository extends CrudRepository<User, UUID> {
 
 	List<User> findByActiveAndEmailContainingIgnoreCase(boolean active, String email);
 
+	// Only replaces the hash it was read with, a password changed meanwhile is kept. Evicts the user cache region.
+	@Transactional
+	@Modifying(clearAutomatically = true, flushAutomatically = true)
+	@Query("UPDATE User u SET u.password = ?3 WHERE u.id = ?1 AND u.password = ?2")
+	int updatePassword(UUID id, String oldPassword, String newPassword);
+
 }
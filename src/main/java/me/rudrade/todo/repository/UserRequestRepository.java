@@ -1,12 +1,15 @@
 package me.rudrade.todo.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.NativeQuery;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import me.rudrade.todo.model.UserRequest;
 
@@ -15,12 +18,24 @@ public interface UserRequestRepository extends CrudRepository<UserRequest, UUID>
 
     boolean existsByUsernameOrEmail(String username, String email);
 
+    boolean existsByUsername(String username);
+
+    boolean existsByEmail(String email);
+
+    // Flushed right away, so a taken username or email fails here on its unique constraint
+    UserRequest saveAndFlush(UserRequest request);
+
     @Modifying(clearAutomatically = true, flushAutomatically = true)
     @NativeQuery("delete from user_request ur where timestampdiff(minute, ur.dt_created, current_timestamp) >= ?1")
     void deleteIfExpired(int minutes);
 
     List<UserRequest> findAllByMailSentIsFalse();
 
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE UserRequest r SET r.mailSent = true WHERE r.id IN ?1")
+    void markMailSent(Collection<UUID> ids);
+
     List<UserRequest> findAllByUsernameContainingIgnoringCase(String username);
 
     List<UserRequest> findAllByEmailContainingIgnoringCase(String email);
@@ -1,6 +1,5 @@
 package me.rudrade.todo.service;
 
-import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
 import me.rudrade.todo.dto.response.LoginResponse;
 import me.rudrade.todo.exception.InvalidAccessException;
@@ -39,6 +38,12 @@ public class AuthenticationService {
 		 if (!oUser.isActive())
 			 throw new InvalidAccessException();
 
+		 // The raw password is only known here, hashes made with a lower cost are redone with the current one.
+		 // Conditional on the hash checked above, so a password changed in between is never overwritten
+		 if (passwordEncoder.upgradeEncoding(oUser.getPassword())) {
+			userRepository.updatePassword(oUser.getId(), oUser.getPassword(), passwordEncoder.encode(user.getPassword()));
+		 }
+
 		 String imageUrl = null;
 		 if (oUser.getImageVersion() != null) {
 			imageUrl = s3Service.getImagePath(oUser.getId(), oUser.getImageVersion());
@@ -47,33 +52,18 @@ public class AuthenticationService {
 		return new LoginResponse(jwtService.generateToken(oUser), imageUrl, oUser.getLanguage());
 	}
 
-	public String refreshToken(@NotBlank String authToken) {
-		var id = jwtService.getSubjectId(authToken);
-		if (id == null)
-			throw new InvalidAccessException();
-
-		// Validate if token is valid, ignoring expiration date
-		var isTokenValid = jwtService.isTokenValidWithLeeway(authToken, id);
-		if (!isTokenValid)
+	public String refreshToken(JwtService.VerifiedToken token) {
+		if (token == null || token.subjectId() == null)
 			throw new InvalidAccessException();
 
 		// Validate if token has claim nr_refresh < X, if false, throw ex
-		int refreshes = jwtService.getTokenRefreshes(authToken);
-		if (Integer.parseInt(nrAllowedRefreshes) <= refreshes)
+		if (Integer.parseInt(nrAllowedRefreshes) <= token.refreshes())
 			throw new InvalidAccessException();
 
-		var user = getUserByAuth(authToken);
+		var user = userRepository.findById(token.subjectId()).orElseThrow(InvalidAccessException::new);
 
 		// Update claim with +1 nr_refresh and return generated token
-		return jwtService.generateToken(user, refreshes+1);
-	}
-
-	public User getUserByAuth(@NotBlank String authToken) {
-		var id = jwtService.getSubjectId(authToken);
-		if (id == null)
-			throw new InvalidAccessException();
-
-		return userRepository.findById(id).orElseThrow(InvalidAccessException::new);
+		return jwtService.generateToken(user, token.refreshes()+1);
 	}
 
 }
@@ -0,0 +1,245 @@
+package me.rudrade.todo.service;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.MessageSource;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import me.rudrade.todo.config.RedisAvailabilityRelay;
+import me.rudrade.todo.dto.response.AvailabilityMetricsResponse;
+import me.rudrade.todo.dto.response.AvailabilityResponse;
+import me.rudrade.todo.exception.InvalidDataException;
+import me.rudrade.todo.repository.UserRepository;
+import me.rudrade.todo.repository.UserRequestRepository;
+import me.rudrade.todo.util.BloomFilter;
+
+/**
+ * Whether usernames and emails are taken, answered by a Bloom filter over the users and the pending requests.
+ * Only names the filter might contain are looked up in the database. The filter is rebuilt at startup and
+ * every night, in between names are added as they are taken, here or on the other instances.
+ * Until it's built, while names taken on the other instances may be missed, or when disabled, every check
+ * goes to the database. After the relay subscribes again the filter is rebuilt.
+ */
+@Service
+public class AvailabilityService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AvailabilityService.class);
+
+    private static final String COUNT_NAMES = "select (select count(*) from user) + (select count(*) from user_request)";
+    private static final String SELECT_NAMES = "select username, email from user union all select username, email from user_request";
+    private static final Pattern IGNORED = Pattern.compile("[\\p{M}\\p{Cf}\\p{Cc}]");
+
+    private static final String USERNAME = "u:";
+    private static final String EMAIL = "e:";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final UserRequestRepository userRequestRepository;
+    private final RedisAvailabilityRelay relay;
+    private final MessageSource messageSource;
+    private final boolean enabled;
+    private final long expectedNames;
+    private final double falsePositiveRate;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile BloomFilter filter;
+    private BloomFilter building;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public AvailabilityService(
+        JdbcTemplate jdbcTemplate,
+        UserRepository userRepository,
+        UserRequestRepository userRequestRepository,
+        RedisAvailabilityRelay relay,
+        MessageSource messageSource,
+        @Value("${todo.app.availability.enabled:true}") boolean enabled,
+        @Value("${todo.app.availability.expectedNames:100000}") long expectedNames,
+        @Value("${todo.app.availability.falsePositiveRate:0.01}") double falsePositiveRate
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+        this.userRequestRepository = userRequestRepository;
+        this.relay = relay;
+        this.messageSource = messageSource;
+        this.enabled = enabled;
+        this.expectedNames = expectedNames;
+        this.falsePositiveRate = falsePositiveRate;
+        if (enabled) {
+            relay.onSubscribed(this::rebuildAfterReconnect);
+            relay.listen(this::add);
+        }
+    }
+
+    public AvailabilityResponse getAvailability(String username, String email, Locale locale) {
+        var hasUsername = username != null && !username.isBlank();
+        var hasEmail = email != null && !email.isBlank();
+        if (!hasUsername && !hasEmail)
+            throw new InvalidDataException(messageSource.getMessage("user.passwordEmail.missing", null, locale));
+
+        var current = currentFilter();
+        return new AvailabilityResponse(
+            hasUsername ? isAvailable(current, USERNAME, username, name -> userRepository.existsByUsername(name) || userRequestRepository.existsByUsername(name)) : null,
+            hasEmail ? isAvailable(current, EMAIL, email, name -> userRepository.existsByEmail(name) || userRequestRepository.existsByEmail(name)) : null);
+    }
+
+    /**
+     * False when neither name is taken, true when one of them might be and the database has to tell.
+     */
+    public boolean mightBeTaken(String username, String email) {
+        checks.increment();
+        var current = currentFilter();
+        if (current == null
+            || (username != null && current.mightContain(key(USERNAME, username)))
+            || (email != null && current.mightContain(key(EMAIL, email))))
+            return true;
+
+        skipped.increment();
+        return false;
+    }
+
+    public void taken(String username, String email) {
+        if (!enabled)
+            return;
+
+        if (username != null)
+            taken(key(USERNAME, username));
+        if (email != null)
+            taken(key(EMAIL, email));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${todo.app.availability.rebuildCron:0 0 4 * * *}")
+    public void rebuild() {
+        if (!enabled)
+            return;
+
+        var count = jdbcTemplate.queryForObject(COUNT_NAMES, Long.class);
+        // Two names per row, with room for as many new ones until the next rebuild
+        var rebuilt = new BloomFilter(Math.max(expectedNames, (count == null ? 0 : count) * 4), falsePositiveRate);
+
+        lock.lock();
+        try {
+            building = rebuilt;
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            jdbcTemplate.query(SELECT_NAMES, (RowCallbackHandler) row -> {
+                rebuilt.put(key(USERNAME, row.getString(1)));
+                rebuilt.put(key(EMAIL, row.getString(2)));
+            });
+        } catch (RuntimeException e) {
+            LOGGER.error("[AvailabilityService.rebuild] Keeping the previous filter", e);
+            lock.lock();
+            try {
+                building = null;
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+
+        lock.lock();
+        try {
+            filter = rebuilt;
+            building = null;
+        } finally {
+            lock.unlock();
+        }
+        LOGGER.info("[AvailabilityService.rebuild] Filter rebuilt with {} names", rebuilt.size());
+    }
+
+    public AvailabilityMetricsResponse getMetrics() {
+        var current = filter;
+        return new AvailabilityMetricsResponse(checks.sum(), skipped.sum(), falsePositives.sum(), current == null ? 0 : current.size());
+    }
+
+    // Names taken meanwhile on the other instances were missed, the startup rebuild runs before the first subscription
+    private void rebuildAfterReconnect() {
+        if (filter != null)
+            Thread.ofVirtual().name("availability-rebuild").start(this::rebuild);
+    }
+
+    private BloomFilter currentFilter() {
+        var current = filter;
+        return current == null || relay.mayMissMessages() ? null : current;
+    }
+
+    private boolean isAvailable(BloomFilter current, String prefix, String name, Predicate<String> exists) {
+        checks.increment();
+        if (current != null && !current.mightContain(key(prefix, name))) {
+            skipped.increment();
+            return true;
+        }
+
+        if (exists.test(name))
+            return false;
+
+        if (current != null)
+            falsePositives.increment();
+        return true;
+    }
+
+    private void taken(long hash) {
+        add(hash);
+        relay.taken(hash);
+    }
+
+    private void add(long hash) {
+        lock.lock();
+        try {
+            if (filter != null)
+                filter.put(hash);
+            if (building != null)
+                building.put(hash);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Coarser than the utf8mb4_0900_ai_ci column collation: names it treats as equal (case, accents,
+     * compatibility forms, expansions like ß and ss) share a key, names that only share a key are
+     * false positives the lookup sorts out.
+     */
+    static long key(String prefix, String name) {
+        var folded = IGNORED.matcher(Normalizer.normalize(name.strip(), Normalizer.Form.NFKD))
+            .replaceAll("")
+            .toLowerCase(Locale.ROOT);
+
+        var key = new StringBuilder(prefix.length() + folded.length()).append(prefix);
+        for (int i = 0; i < folded.length(); i++) {
+            var c = folded.charAt(i);
+            switch (c) {
+                case 'ß' -> key.append("ss");
+                case 'æ' -> key.append("ae");
+                case 'œ' -> key.append("oe");
+                case 'þ' -> key.append("th");
+                case 'ø' -> key.append('o');
+                case 'đ', 'ð' -> key.append('d');
+                case 'ł' -> key.append('l');
+                case 'ħ' -> key.append('h');
+                case 'ı' -> key.append('i');
+                default -> key.append(c);
+            }
+        }
+        return BloomFilter.hash(key.toString());
+    }
+}
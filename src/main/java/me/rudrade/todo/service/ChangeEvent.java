@@ -0,0 +1,11 @@
+package me.rudrade.todo.service;
+
+import java.util.UUID;
+
+import me.rudrade.todo.model.types.ChangeType;
+
+/**
+ * Published by ChangeLog for every write, seq is the user's change sequence after it.
+ */
+public record ChangeEvent(UUID userId, ChangeType type, long seq) {
+}
@@ -0,0 +1,101 @@
+package me.rudrade.todo.service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import me.rudrade.todo.exception.UnexpectedErrorException;
+import me.rudrade.todo.model.ChangeCounter;
+import me.rudrade.todo.model.EntityChange;
+import me.rudrade.todo.model.types.ChangeType;
+import me.rudrade.todo.repository.ChangeCounterRepository;
+import me.rudrade.todo.repository.EntityChangeRepository;
+import me.rudrade.todo.util.ServiceUtil;
+
+/**
+ * Modification sequence of each user's tasks, tags and lists, with tombstones for the deleted ones.
+ * Every write takes the next number of the user's counter. The counter row stays locked until the
+ * writing transaction commits, so a reader never sees a number before the ones under it.
+ * Each write also publishes a ChangeEvent, listeners get it once the transaction commits.
+ */
+@Service
+public class ChangeLog {
+
+    static final String NEXT_SEQ = "insert into change_counter (user_id, seq) values (?, last_insert_id(1))" +
+        " on duplicate key update seq = last_insert_id(seq + 1)";
+    static final String UPSERT = "insert into entity_change (entity_id, user_id, type, name, seq, deleted) values (?, ?, ?, ?, ?, ?)" +
+        " on duplicate key update name = values(name), seq = values(seq), deleted = values(deleted)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChangeCounterRepository counterRepository;
+    private final EntityChangeRepository changeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ChangeLog(JdbcTemplate jdbcTemplate, ChangeCounterRepository counterRepository, EntityChangeRepository changeRepository,
+                     ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.counterRepository = counterRepository;
+        this.changeRepository = changeRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void saved(UUID userId, ChangeType type, Collection<UUID> ids) {
+        record(userId, ids.stream().map(id -> new EntityChange(id, userId, type, null, 0, false)).toList());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void saved(UUID userId, ChangeType type, UUID id) {
+        record(userId, Collections.singletonList(new EntityChange(id, userId, type, null, 0, false)));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleted(UUID userId, ChangeType type, Collection<UUID> ids) {
+        record(userId, ids.stream().map(id -> new EntityChange(id, userId, type, null, 0, true)).toList());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleted(UUID userId, ChangeType type, UUID id, String name) {
+        record(userId, List.of(new EntityChange(id, userId, type, name, 0, true)));
+    }
+
+    @Transactional(readOnly = true)
+    public long getSeq(UUID userId) {
+        return counterRepository.findById(userId).map(ChangeCounter::getSeq).orElse(0L);
+    }
+
+    @Transactional(readOnly = true)
+    public List<EntityChange> findSince(UUID userId, long seq) {
+        return changeRepository.findByUserIdAndSeqGreaterThanOrderBySeqAsc(userId, seq);
+    }
+
+    // Must run on the writing transaction's connection, last_insert_id() is per connection
+    private void record(UUID userId, List<EntityChange> changes) {
+        if (changes.isEmpty())
+            return;
+
+        byte[] user = ServiceUtil.toBytes(userId);
+        jdbcTemplate.update(NEXT_SEQ, (Object) user);
+        Long seq = jdbcTemplate.queryForObject("select last_insert_id()", Long.class);
+        if (seq == null)
+            throw new UnexpectedErrorException("No change sequence for user " + userId);
+
+        jdbcTemplate.batchUpdate(UPSERT, changes, changes.size(), (ps, change) -> {
+            ps.setBytes(1, ServiceUtil.toBytes(change.getEntityId()));
+            ps.setBytes(2, user);
+            ps.setString(3, change.getType().name());
+            ps.setString(4, change.getName());
+            ps.setLong(5, seq);
+            ps.setBoolean(6, change.isDeleted());
+        });
+
+        eventPublisher.publishEvent(new ChangeEvent(userId, changes.get(0).getType(), seq));
+    }
+}
@@ -0,0 +1,135 @@
+package me.rudrade.todo.service;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+import me.rudrade.todo.config.RedisChangeRelay;
+import me.rudrade.todo.exception.InvalidAccessException;
+import me.rudrade.todo.exception.InvalidDataException;
+import me.rudrade.todo.model.User;
+
+/**
+ * Server-sent event streams telling each user's clients that their tasks, tags or lists changed.
+ * An event only carries the type and the change sequence, clients fetch the changes from /task/changes.
+ * Open streams are async requests and sends run on virtual threads, so idle streams hold no thread.
+ * Events of other instances arrive through the Redis relay.
+ */
+@Service
+public class ChangeStream {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChangeStream.class);
+
+    private static final Set<DataWithMediaType> PING = SseEmitter.event().comment("ping").build();
+
+    private final RedisChangeRelay relay;
+    private final MessageSource messageSource;
+    private final long timeoutMs;
+    private final int maxPerUser;
+
+    private final ConcurrentHashMap<UUID, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("change-stream-", 0).factory());
+
+    public ChangeStream(RedisChangeRelay relay, MessageSource messageSource,
+                        @Value("${todo.app.changeStream.timeoutMs:1800000}") long timeoutMs,
+                        @Value("${todo.app.changeStream.maxPerUser:5}") int maxPerUser) {
+        this.relay = relay;
+        this.messageSource = messageSource;
+        this.timeoutMs = timeoutMs;
+        this.maxPerUser = maxPerUser;
+        relay.listen(this::deliver);
+    }
+
+    public SseEmitter subscribe(User user) {
+        if (user == null || user.getId() == null)
+            throw new InvalidAccessException();
+
+        var emitter = new SseEmitter(timeoutMs);
+        emitters.compute(user.getId(), (id, userEmitters) -> {
+            var result = userEmitters == null ? ConcurrentHashMap.<SseEmitter>newKeySet() : userEmitters;
+            if (result.size() >= maxPerUser)
+                throw new InvalidDataException(messageSource.getMessage("task.events.max", new Object[]{maxPerUser}, user.getLocale()));
+
+            result.add(emitter);
+            return result;
+        });
+        emitter.onCompletion(() -> remove(user.getId(), emitter));
+        emitter.onTimeout(() -> remove(user.getId(), emitter));
+        emitter.onError(e -> remove(user.getId(), emitter));
+
+        return emitter;
+    }
+
+    @TransactionalEventListener
+    public void onChange(ChangeEvent event) {
+        deliver(event);
+        relay.publish(event);
+    }
+
+    void deliver(ChangeEvent event) {
+        var userEmitters = emitters.get(event.userId());
+        if (userEmitters == null)
+            return;
+
+        var message = SseEmitter.event()
+            .id(Long.toString(event.seq()))
+            .name(event.type().name().toLowerCase())
+            .data(event.seq())
+            .build();
+
+        for (var emitter : userEmitters) {
+            executor.execute(() -> send(event.userId(), emitter, message));
+        }
+    }
+
+    // Finds the streams closed by the client, which are only noticed on a write
+    @Scheduled(fixedDelayString = "${todo.app.changeStream.heartbeatMs:30000}")
+    public void heartbeat() {
+        if (emitters.isEmpty())
+            return;
+
+        emitters.forEach((userId, userEmitters) -> userEmitters.forEach(emitter ->
+            executor.execute(() -> send(userId, emitter, PING))));
+    }
+
+    public int size() {
+        return emitters.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void send(UUID userId, SseEmitter emitter, Set<DataWithMediaType> message) {
+        try {
+            emitter.send(message);
+        } catch (IOException | IllegalStateException e) {
+            LOGGER.debug("[ChangeStream.send] Dropping closed stream of user {}", userId);
+            remove(userId, emitter);
+        }
+    }
+
+    private void remove(UUID userId, SseEmitter emitter) {
+        emitters.computeIfPresent(userId, (id, userEmitters) -> {
+            userEmitters.remove(emitter);
+            return userEmitters.isEmpty() ? null : userEmitters;
+        });
+    }
+
+    @PreDestroy
+    void close() {
+        emitters.values().forEach(userEmitters -> userEmitters.forEach(SseEmitter::complete));
+        emitters.clear();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,70 @@
+package me.rudrade.todo.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import me.rudrade.todo.config.RedisChangeRelay;
+import me.rudrade.todo.exception.InvalidAccessException;
+import me.rudrade.todo.model.User;
+import me.rudrade.todo.util.AfterCommit;
+import me.rudrade.todo.util.ExpiringCache;
+
+/**
+ * Per user version of the tasks, tags and lists, used as their ETag.
+ * A version is never reused: a bump drops the user's entry and the next read takes a new number
+ * from a counter that starts at a random point, so tags from before a restart or an eviction don't match.
+ * Writes of the other instances bump through the change relay. While it isn't subscribed those writes
+ * aren't seen, so no version is kept and every read gets a new one.
+ */
+@Service
+public class ChangeVersions {
+
+    private final AtomicLong counter = new AtomicLong(ThreadLocalRandom.current().nextLong(1L << 40) << 20);
+    private final RedisChangeRelay relay;
+    private final ExpiringCache<UUID, Long> versions;
+
+    public ChangeVersions(
+        RedisChangeRelay relay,
+        @Value("${todo.app.changeVersions.maxSize:100000}") int maxSize,
+        @Value("${todo.app.changeVersions.ttlSeconds:300}") long ttlSeconds
+    ) {
+        this.relay = relay;
+        this.versions = new ExpiringCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+        relay.onSubscribed(versions::invalidateAll);
+        relay.listen(event -> bump(event.userId()));
+    }
+
+    public long getVersion(UUID userId) {
+        if (relay.mayMissMessages())
+            return counter.incrementAndGet();
+
+        return versions.get(userId, key -> counter.incrementAndGet());
+    }
+
+    public String etag(User user) {
+        return "\"" + Long.toString(getVersion(userId(user)), 36) + "\"";
+    }
+
+    // For results that also depend on the current date
+    public String etag(User user, LocalDate day) {
+        return "\"" + Long.toString(getVersion(userId(user)), 36) + "-" + day.toEpochDay() + "\"";
+    }
+
+    public void bump(UUID userId) {
+        if (userId != null)
+            AfterCommit.runNowAndAfterCommit(() -> versions.invalidate(userId));
+    }
+
+    private static UUID userId(User user) {
+        if (user == null || user.getId() == null)
+            throw new InvalidAccessException();
+
+        return user.getId();
+    }
+}
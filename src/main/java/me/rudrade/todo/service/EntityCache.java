@@ -0,0 +1,39 @@
+package me.rudrade.todo.service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import me.rudrade.todo.config.CacheRegionFactory;
+import me.rudrade.todo.dto.response.RegionMetricsResponse;
+import me.rudrade.todo.util.AfterCommit;
+
+/**
+ * Second-level cache upkeep for the services. Does nothing when Hibernate runs without the cache.
+ */
+@Service
+public class EntityCache {
+
+    private final ObjectProvider<CacheRegionFactory> regionFactory;
+
+    public EntityCache(ObjectProvider<CacheRegionFactory> regionFactory) {
+        this.regionFactory = regionFactory;
+    }
+
+    /**
+     * Invalidates the cached queries over a table written outside Hibernate.
+     */
+    public void invalidateTable(String table) {
+        var factory = regionFactory.getIfAvailable();
+        if (factory == null)
+            return;
+
+        AfterCommit.runNowAndAfterCommit(() -> factory.invalidateTable(table));
+    }
+
+    public List<RegionMetricsResponse> getRegionMetrics() {
+        var factory = regionFactory.getIfAvailable();
+        return factory == null ? List.of() : factory.getRegionMetrics();
+    }
+}
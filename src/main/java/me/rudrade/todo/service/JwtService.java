@@ -4,14 +4,16 @@ import java.util.Date;
 import java.util.UUID;
 
 import jakarta.validation.constraints.NotBlank;
+import me.rudrade.todo.exception.InvalidAccessException;
 import me.rudrade.todo.exception.InvalidDataException;
 import me.rudrade.todo.model.User;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
-import com.auth0.jwt.interfaces.DecodedJWT;
+import com.auth0.jwt.exceptions.JWTVerificationException;
 
 @Service
 public class JwtService {
@@ -19,6 +21,7 @@ public class JwtService {
 	private static final String CLAIM_USERNAME = "username";
 	private static final String CLAIM_ROLE = "role";
 	private static final String CLAIM_REFRESHES = "refreshes";
+	private static final long LEEWAY_SECONDS = 60;
 
 	@Value("${jwt-secret-key}")
 	private String secretKey;
@@ -29,6 +32,12 @@ public class JwtService {
 	@Value("${jwt-issuer}")
 	private String issuer;
 
+	// Algorithm and verifiers are immutable and thread-safe, built once on first use
+	private volatile Algorithm algorithm;
+	private volatile JWTVerifier leewayVerifier;
+
+	public record VerifiedToken(UUID subjectId, int refreshes) {}
+
 	public String generateToken(User user) {
 		return generateToken(user, 0);
 	}
@@ -49,55 +58,49 @@ public class JwtService {
 	}
 	
 	private Algorithm getAlgorithm() {
-		return Algorithm.HMAC256(secretKey);
-	}
-	
-	public UUID getSubjectId(@NotBlank String authToken) {
-		try {
-			var strId = JWT.decode(cleanBearer(authToken)).getSubject();
-			return UUID.fromString(strId);
-		} catch (IllegalArgumentException | NullPointerException e) {
-			return null;
+		var result = algorithm;
+		if (result == null) {
+			result = Algorithm.HMAC256(secretKey);
+			algorithm = result;
 		}
+		return result;
 	}
 
-	public String cleanBearer(@NotBlank String token) {
-		if (token.startsWith("Bearer "))
-			return token.substring(7);
-
-		return token;
+	private JWTVerifier getLeewayVerifier() {
+		var result = leewayVerifier;
+		if (result == null) {
+			result = JWT.require(getAlgorithm())
+				.withIssuer(issuer)
+				.acceptLeeway(LEEWAY_SECONDS)
+				.build();
+			leewayVerifier = result;
+		}
+		return result;
 	}
 
-	private DecodedJWT decodeTokenWithLeeway(@NotBlank String token) {
-		return JWT.require(getAlgorithm())
-			.withIssuer(issuer)
-			.acceptLeeway(60)
-			.build()
-			.verify(token);
-	}
+	/**
+	 * Parses and verifies the token a single time, ignoring an expiration within the leeway.
+	 * @throws InvalidAccessException when the token can't be verified or has no valid subject
+	 */
+	public VerifiedToken verifyWithLeeway(@NotBlank String token) {
+		try {
+			var decoded = getLeewayVerifier().verify(cleanBearer(token));
+			var refreshes = decoded.getClaim(CLAIM_REFRESHES).asInt();
 
-	public boolean isTokenValidWithLeeway(@NotBlank String token, @NotBlank UUID id) {
-		var decoded = decodeTokenWithLeeway(token);
+			return new VerifiedToken(
+				UUID.fromString(decoded.getSubject()),
+				refreshes == null ? 0 : refreshes);
 
-		return id.toString().equals(decoded.getSubject());
+		} catch (JWTVerificationException | IllegalArgumentException | NullPointerException e) {
+			throw new InvalidAccessException();
+		}
 	}
 	
-	public boolean isTokenValid(@NotBlank String token, @NotBlank UUID id) {
-		var decodedJwt = decodeJWT(token);
-		
-		return id.toString().equals(decodedJwt.getSubject()); 
-	}
+	public String cleanBearer(@NotBlank String token) {
+		if (token.startsWith("Bearer "))
+			return token.substring(7);
 
-	private DecodedJWT decodeJWT(String token) {
-		return JWT.require(getAlgorithm())
-			.withIssuer(issuer)
-			.build()
-			.verify(token);
+		return token;
 	}
 
-	public int getTokenRefreshes(String token) {
-		var decoded = decodeTokenWithLeeway(token);
-		return decoded.getClaim(CLAIM_REFRESHES).asInt();
-	}
-	
 }
@@ -0,0 +1,407 @@
+package me.rudrade.todo.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.mail.internet.MimeMessage;
+import me.rudrade.todo.model.MailOutbox;
+import me.rudrade.todo.model.PasswordRequest;
+import me.rudrade.todo.model.UserRequest;
+import me.rudrade.todo.model.types.MailStatus;
+import me.rudrade.todo.model.types.MailType;
+import me.rudrade.todo.repository.MailOutboxRepository;
+import me.rudrade.todo.repository.PasswordRequestRepository;
+import me.rudrade.todo.repository.UserRequestRepository;
+import me.rudrade.todo.util.AfterCommit;
+
+/**
+ * Persistent outbox for outgoing mails. Requests only store a record, which is handed after commit
+ * to a bounded pool of virtual threads. Failed sends are retried with exponential backoff and
+ * {@link me.rudrade.todo.job.SendMissingMailsJob} picks up whatever was left behind.
+ * Mails are claimed before sending, so several app instances never send the same mail. The claim is
+ * extended right before the SMTP exchange, mails whose claim was taken over meanwhile are left to its new owner.
+ */
+@Service
+public class MailOutboxService implements DisposableBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MailOutboxService.class);
+
+    private final MailOutboxRepository outboxRepository;
+    private final UserRequestRepository userRequestRepository;
+    private final PasswordRequestRepository passwordRequestRepository;
+    private final MailService mailService;
+
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Duration maxBackoff;
+    private final int maxQueued;
+    private final int perDomainLimit;
+    private final Duration claimDuration;
+
+    private final ExecutorService workers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mail-worker-", 0).factory());
+    // SMTPTransport.sendMessage is synchronized, on a virtual thread it would pin the carrier for the whole SMTP exchange
+    private final ExecutorService senders;
+    private final ScheduledExecutorService retries = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("mail-retry").daemon(true).factory());
+    private final Semaphore workerPermits;
+    // Only domains with mails in flight, an entry goes away with its last user
+    private final ConcurrentHashMap<String, DomainPermits> domainPermits = new ConcurrentHashMap<>();
+    private final Set<UUID> queued = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+
+    public MailOutboxService(MailOutboxRepository outboxRepository,
+                             UserRequestRepository userRequestRepository,
+                             PasswordRequestRepository passwordRequestRepository,
+                             MailService mailService,
+                             @Value("${todo.app.mail.outbox.workers:4}") int workers,
+                             @Value("${todo.app.mail.outbox.perDomain:2}") int perDomainLimit,
+                             @Value("${todo.app.mail.outbox.maxAttempts:5}") int maxAttempts,
+                             @Value("${todo.app.mail.outbox.backoffSeconds:30}") long backoffSeconds,
+                             @Value("${todo.app.mail.outbox.maxBackoffSeconds:3600}") long maxBackoffSeconds,
+                             @Value("${todo.app.mail.outbox.maxQueued:1000}") int maxQueued,
+                             @Value("${todo.app.mail.outbox.claimSeconds:300}") long claimSeconds) {
+        this.outboxRepository = outboxRepository;
+        this.userRequestRepository = userRequestRepository;
+        this.passwordRequestRepository = passwordRequestRepository;
+        this.mailService = mailService;
+        this.workerPermits = new Semaphore(Math.max(1, workers));
+        this.senders = Executors.newFixedThreadPool(Math.max(1, workers), Thread.ofPlatform().name("mail-sender-", 0).daemon(true).factory());
+        this.perDomainLimit = Math.max(1, perDomainLimit);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoff = Duration.ofSeconds(backoffSeconds);
+        this.maxBackoff = Duration.ofSeconds(maxBackoffSeconds);
+        this.maxQueued = maxQueued;
+        this.claimDuration = Duration.ofSeconds(claimSeconds);
+    }
+
+    /**
+     * Stores the mail in the caller's transaction, it is only handed to the workers after commit.
+     */
+    public MailOutbox enqueue(MailType type, UUID requestId, String recipient) {
+        var now = LocalDateTime.now();
+
+        var mail = new MailOutbox();
+        mail.setType(type);
+        mail.setRequestId(requestId);
+        mail.setRecipient(recipient);
+        mail.setStatus(MailStatus.PENDING);
+        mail.setNextAttemptAt(now);
+        mail.setDtCreated(now);
+        outboxRepository.save(mail);
+
+        AfterCommit.run(() -> dispatch(mail.getId()));
+        return mail;
+    }
+
+    /**
+     * Claims and sends due pending mails one page at a time, until none are left.
+     * @return how many mails were processed
+     */
+    public int recover(int pageSize) {
+        int processed = 0;
+
+        while (true) {
+            var token = UUID.randomUUID().toString();
+            var now = LocalDateTime.now();
+
+            var claimed = outboxRepository.claimDue(token, now.plus(claimDuration), now, pageSize);
+            if (claimed == 0)
+                break;
+
+            var page = outboxRepository.findByClaimedBy(token);
+            process(token, page);
+            processed += page.size();
+
+            if (claimed < pageSize)
+                break;
+        }
+
+        return processed;
+    }
+
+    public long getSentCount() {
+        return sentCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    public long getRemainingCount() {
+        return outboxRepository.countByStatus(MailStatus.PENDING);
+    }
+
+    boolean dispatch(UUID id) {
+        // Mails that don't fit stay pending for the sweeper
+        if (id == null || queued.size() >= maxQueued || !queued.add(id))
+            return false;
+
+        try {
+            workers.execute(() -> {
+                try {
+                    deliver(id);
+                } catch (Exception e) {
+                    LOGGER.error("[MailOutboxService.dispatch] ", e);
+                } finally {
+                    queued.remove(id);
+                }
+            });
+            return true;
+
+        } catch (RejectedExecutionException e) {
+            queued.remove(id);
+            return false;
+        }
+    }
+
+    void deliver(UUID id) {
+        var token = UUID.randomUUID().toString();
+        var now = LocalDateTime.now();
+
+        // Already sent, or being sent by another instance
+        if (outboxRepository.claim(id, token, now.plus(claimDuration), now) == 0)
+            return;
+
+        process(token, outboxRepository.findByClaimedBy(token));
+    }
+
+    private void process(String token, List<MailOutbox> mails) {
+        if (mails.isEmpty())
+            return;
+
+        var userRequests = findUserRequests(mails);
+        var passwordRequests = findPasswordRequests(mails);
+
+        Map<String, List<Outgoing>> byDomain = new HashMap<>();
+        for (var mail : mails) {
+            MimeMessage message;
+            try {
+                message = switch (mail.getType()) {
+                    case ACTIVATION -> {
+                        var request = userRequests.get(mail.getRequestId());
+                        yield request == null ? null : mailService.buildActivationMail(request);
+                    }
+                    case PASSWORD_RESET -> {
+                        var request = passwordRequests.get(mail.getRequestId());
+                        yield request == null ? null : mailService.buildPasswordReset(request);
+                    }
+                };
+            } catch (Exception e) {
+                LOGGER.error("[MailOutboxService.process] ", e);
+                retryLater(mail, e.getMessage());
+                continue;
+            }
+
+            if (message == null) {
+                fail(mail, "Request no longer exists");
+                continue;
+            }
+
+            byDomain.computeIfAbsent(mail.getDomain(), domain -> new ArrayList<>()).add(new Outgoing(mail, message));
+        }
+
+        // One connection per domain, domains are sent concurrently
+        Map<MailOutbox, String> failures = new ConcurrentHashMap<>();
+        List<MailOutbox> sent = new ArrayList<>();
+        var sends = byDomain.entrySet().stream()
+            .map(entry -> CompletableFuture.supplyAsync(() -> sendDomain(token, entry.getKey(), entry.getValue(), failures), workers))
+            .toList();
+        sends.forEach(send -> sent.addAll(send.join()));
+
+        markSent(token, sent);
+        failures.forEach(this::retryLater);
+    }
+
+    private List<MailOutbox> sendDomain(String token, String domain, List<Outgoing> outgoing, Map<MailOutbox, String> failures) {
+        var domainPermit = acquireDomain(domain);
+        workerPermits.acquireUninterruptibly();
+        try {
+            // Waiting for the permits may have outlived the claim
+            outgoing = extendClaim(token, outgoing);
+            if (outgoing.isEmpty())
+                return List.of();
+
+            var messages = outgoing.stream().map(Outgoing::message).toList();
+            var failed = CompletableFuture.supplyAsync(() -> mailService.sendAll(messages), senders).join();
+
+            List<MailOutbox> sent = new ArrayList<>();
+            for (var mail : outgoing) {
+                if (failed.containsKey(mail.message())) {
+                    failures.put(mail.mail(), String.valueOf(failed.get(mail.message())));
+                } else {
+                    sent.add(mail.mail());
+                }
+            }
+            return sent;
+
+        } finally {
+            workerPermits.release();
+            releaseDomain(domain, domainPermit);
+        }
+    }
+
+    private DomainPermits acquireDomain(String domain) {
+        var permits = domainPermits.compute(domain, (d, current) -> {
+            var counted = current == null ? new DomainPermits(new Semaphore(perDomainLimit)) : current;
+            counted.users++;
+            return counted;
+        });
+        permits.semaphore().acquireUninterruptibly();
+        return permits;
+    }
+
+    private void releaseDomain(String domain, DomainPermits permits) {
+        permits.semaphore().release();
+        domainPermits.computeIfPresent(domain, (d, current) -> --current.users == 0 ? null : current);
+    }
+
+    private List<Outgoing> extendClaim(String token, List<Outgoing> outgoing) {
+        var ids = outgoing.stream().map(mail -> mail.mail().getId()).toList();
+        if (outboxRepository.extendClaim(ids, token, LocalDateTime.now().plus(claimDuration)) == ids.size())
+            return outgoing;
+
+        var claimed = outboxRepository.findByClaimedBy(token).stream().map(MailOutbox::getId).collect(Collectors.toSet());
+        var kept = outgoing.stream().filter(mail -> claimed.contains(mail.mail().getId())).toList();
+        LOGGER.warn("[MailOutboxService.extendClaim] {} of {} mails were claimed elsewhere", ids.size() - kept.size(), ids.size());
+        return kept;
+    }
+
+    int domainCount() {
+        return domainPermits.size();
+    }
+
+    private void markSent(String token, List<MailOutbox> sent) {
+        if (sent.isEmpty())
+            return;
+
+        outboxRepository.markSent(sent.stream().map(MailOutbox::getId).toList(), token);
+
+        var activations = requestIds(sent, MailType.ACTIVATION);
+        if (!activations.isEmpty())
+            userRequestRepository.markMailSent(activations);
+
+        var passwordResets = requestIds(sent, MailType.PASSWORD_RESET);
+        if (!passwordResets.isEmpty())
+            passwordRequestRepository.markMailSent(passwordResets);
+
+        sentCount.add(sent.size());
+    }
+
+    private Map<UUID, UserRequest> findUserRequests(List<MailOutbox> mails) {
+        var ids = requestIds(mails, MailType.ACTIVATION);
+        if (ids.isEmpty())
+            return Map.of();
+
+        return StreamSupport.stream(userRequestRepository.findAllById(ids).spliterator(), false)
+            .collect(Collectors.toMap(UserRequest::getId, Function.identity()));
+    }
+
+    private Map<UUID, PasswordRequest> findPasswordRequests(List<MailOutbox> mails) {
+        var ids = requestIds(mails, MailType.PASSWORD_RESET);
+        if (ids.isEmpty())
+            return Map.of();
+
+        return StreamSupport.stream(passwordRequestRepository.findAllById(ids).spliterator(), false)
+            .collect(Collectors.toMap(PasswordRequest::getId, Function.identity()));
+    }
+
+    private static List<UUID> requestIds(List<MailOutbox> mails, MailType type) {
+        return mails.stream()
+            .filter(mail -> mail.getType() == type)
+            .map(MailOutbox::getRequestId)
+            .toList();
+    }
+
+    private void retryLater(MailOutbox mail, String error) {
+        failedCount.increment();
+        mail.setAttempts(mail.getAttempts() + 1);
+
+        if (mail.getAttempts() >= maxAttempts) {
+            fail(mail, error);
+            return;
+        }
+
+        var delay = getBackoff(mail.getAttempts());
+        mail.setNextAttemptAt(LocalDateTime.now().plus(delay));
+        mail.setLastError(truncate(error));
+        release(mail);
+
+        var id = mail.getId();
+        retries.schedule(() -> dispatch(id), delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void fail(MailOutbox mail, String error) {
+        LOGGER.error("[MailOutboxService.fail] Giving up on mail {}: {}", mail.getId(), error);
+
+        mail.setStatus(MailStatus.FAILED);
+        mail.setLastError(truncate(error));
+        release(mail);
+    }
+
+    private void release(MailOutbox mail) {
+        mail.setClaimedBy(null);
+        mail.setClaimedUntil(null);
+        outboxRepository.save(mail);
+    }
+
+    Duration getBackoff(int attempts) {
+        var delay = backoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String truncate(String error) {
+        if (error == null || error.length() <= 500)
+            return error;
+
+        return error.substring(0, 500);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        retries.shutdownNow();
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS))
+            workers.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    private record Outgoing(MailOutbox mail, MimeMessage message) {}
+
+    // Users are only counted inside the map's compute, which runs one at a time per domain
+    private static final class DomainPermits {
+        private final Semaphore semaphore;
+        private int users;
+
+        DomainPermits(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        Semaphore semaphore() {
+            return semaphore;
+        }
+    }
+}
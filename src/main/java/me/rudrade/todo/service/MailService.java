@@ -1,18 +1,22 @@
 package me.rudrade.todo.service;
 
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import me.rudrade.todo.model.PasswordRequest;
 import me.rudrade.todo.model.UserRequest;
-import me.rudrade.todo.repository.PasswordRequestRepository;
-import me.rudrade.todo.repository.UserRequestRepository;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
@@ -23,8 +27,6 @@ public class MailService {
     private static final Logger LOGGER = LoggerFactory.getLogger(MailService.class);
 
     private final JavaMailSender mailSender;
-    private final UserRequestRepository userRequestRepository;
-    private final PasswordRequestRepository passwordRequestRepository;
     private final MessageSource messageSource;
 
     @Value("${todo.app.mail.activationUrl}")
@@ -36,57 +38,72 @@ public class MailService {
     @Value("${profile.active}")
     private String profile;
     
-    public boolean sendActivationMail(UserRequest user) {
+    public MimeMessage buildActivationMail(UserRequest user) throws MessagingException {
         if (activationUrl == null || !activationUrl.contains("{id}"))
             throw new IllegalStateException("Activation url is miss configured");
 
-        try {
-            var url = activationUrl.replace("{id}", user.getId().toString());
-
-            var message = messageSource.getMessage("mail.activation.body", null, user.getLocale());
-            message = message.replace("${username}", user.getUsername());
-            message = message.replace("${url}", url);
+        var url = activationUrl.replace("{id}", user.getId().toString());
 
-            var subject = getAppSubject() + messageSource.getMessage("mail.activation.subject", null, user.getLocale());
+        var message = messageSource.getMessage("mail.activation.body", null, user.getLocale());
+        message = message.replace("${username}", user.getUsername());
+        message = message.replace("${url}", url);
 
-            send(user.getEmail(), subject, message);
+        var subject = getAppSubject() + messageSource.getMessage("mail.activation.subject", null, user.getLocale());
 
-            user.setMailSent(true);
-            userRequestRepository.save(user);
-            return true;
-        } catch (Exception e) {
-            LOGGER.error("[MailService.sendActivationMail] ", e);
-            return false;
-        }
+        return createMessage(user.getEmail(), subject, message);
     }
 
-    public boolean sendPasswordReset(@NotNull PasswordRequest request) {
+    public MimeMessage buildPasswordReset(@NotNull PasswordRequest request) throws MessagingException {
         if (resetPasswordUrl == null || !resetPasswordUrl.contains("{id}"))
             throw new IllegalStateException("Password reset url is miss configured");
 
-        try {
-            var locale = request.getUser().getLocale();
+        var locale = request.getUser().getLocale();
 
-            var url = resetPasswordUrl.replace("{id}", request.getId().toString());
+        var url = resetPasswordUrl.replace("{id}", request.getId().toString());
 
-            var message = messageSource.getMessage("mail.passwordReset.body", null, locale);
-            message = message.replace("${username}", request.getUser().getUsername());
-            message = message.replace("${url}", url);
+        var message = messageSource.getMessage("mail.passwordReset.body", null, locale);
+        message = message.replace("${username}", request.getUser().getUsername());
+        message = message.replace("${url}", url);
 
-            var subject = getAppSubject() + messageSource.getMessage("mail.passwordReset.subject", null, locale);
+        var subject = getAppSubject() + messageSource.getMessage("mail.passwordReset.subject", null, locale);
 
-            send(request.getUser().getEmail(), subject, message);
+        return createMessage(request.getUser().getEmail(), subject, message);
+    }
 
-            request.setMailSent(true);
-            passwordRequestRepository.save(request);
+    /**
+     * Sends all messages over a single connection to the mail server.
+     * @return the messages that could not be sent, with the reason
+     */
+    public Map<MimeMessage, String> sendAll(List<MimeMessage> messages) {
+        if (messages.isEmpty())
+            return Map.of();
 
-            return true;
-        } catch (Exception e) {
-            LOGGER.error("[MailService.sendPasswordReset] ", e);
-            return false;
+        try {
+            mailSender.send(messages.toArray(MimeMessage[]::new));
+            return Map.of();
+
+        } catch (MailSendException e) {
+            LOGGER.error("[MailService.sendAll] ", e);
+
+            Map<MimeMessage, String> failed = new IdentityHashMap<>();
+            e.getFailedMessages().forEach((message, ex) -> {
+                if (message instanceof MimeMessage mimeMessage)
+                    failed.put(mimeMessage, ex.getMessage());
+            });
+            return failed.isEmpty() ? allFailed(messages, e) : failed;
+
+        } catch (MailException e) {
+            LOGGER.error("[MailService.sendAll] ", e);
+            return allFailed(messages, e);
         }
     }
 
+    private static Map<MimeMessage, String> allFailed(List<MimeMessage> messages, Exception e) {
+        Map<MimeMessage, String> failed = new IdentityHashMap<>();
+        messages.forEach(message -> failed.put(message, e.getMessage()));
+        return failed;
+    }
+
     private String getAppSubject() {
         if ("dev".equalsIgnoreCase(profile)) {
             return "[DEV] TodoApp ";
@@ -98,12 +115,16 @@ public class MailService {
     }
 
     public void send(String to, String subject, String body) throws MessagingException {
+        mailSender.send(createMessage(to, subject, body));
+    }
+
+    private MimeMessage createMessage(String to, String subject, String body) throws MessagingException {
         MimeMessage message = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message);
         helper.setTo(to);
         helper.setSubject(subject);
         helper.setText(body, false);
 
-        mailSender.send(message);
+        return message;
     }
 }
@@ -1,36 +1,55 @@
 package me.rudrade.todo.service;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
 
 import jakarta.validation.constraints.NotNull;
 import me.rudrade.todo.exception.InvalidDataException;
 import me.rudrade.todo.exception.UnexpectedErrorException;
 
 @Service
-public class S3Service {
+public class S3Service implements DisposableBean {
+
     private static final Logger LOGGER = LoggerFactory.getLogger(S3Service.class);
 
     private static final long MAX_SIZE = 1572864L; // 1.5MB
     private static final String ALLOWED_EXTENSION = ".webp";
+    private static final String CONTENT_TYPE = "image/webp";
+
+    private final AmazonS3 s3;
+    private final String imageBucket;
+    private final String imageUrl;
 
-    @Value("${todo.app.user.image.bucket}")
-    private String imageBucket;
+    private final ExecutorService uploads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("s3-upload-", 0).factory());
 
-    @Value("${todo.app.user.image.url}")
-    private String imageUrl;
+    public S3Service(AmazonS3 s3,
+                     @Value("${todo.app.user.image.bucket}") String imageBucket,
+                     @Value("${todo.app.user.image.url}") String imageUrl) {
+        this.s3 = s3;
+        this.imageBucket = imageBucket;
+        this.imageUrl = imageUrl;
+    }
 
-    public String uploadImage(@NotNull MultipartFile image, @NotNull UUID userId) {
+    /**
+     * Validates the image and streams it to S3 in the background.
+     * The multipart is only readable during the request, so callers must wait for the result before returning.
+     * @return the version of the uploaded image
+     */
+    public CompletableFuture<String> uploadImage(@NotNull MultipartFile image, @NotNull UUID userId) {
 
         if (image.getSize() > MAX_SIZE) {
             throw new InvalidDataException("Image size cannot exceed 1.5MB");
@@ -41,25 +60,39 @@ public class S3Service {
             throw new InvalidDataException("Image must be a "+ALLOWED_EXTENSION);
         }
 
-        var s3 = AmazonS3ClientBuilder.defaultClient();
-
         var fileName = userId + ALLOWED_EXTENSION;
-        var file = new File(fileName);
-        try {
-            Files.write(file.toPath(), image.getBytes());
-            var result = s3.putObject(imageBucket, fileName, file);
+        return CompletableFuture.supplyAsync(() -> upload(image, fileName), uploads);
+    }
+
+    private String upload(MultipartFile image, String fileName) {
+        var metadata = new ObjectMetadata();
+        metadata.setContentLength(image.getSize());
+        metadata.setContentType(CONTENT_TYPE);
+
+        try (var input = image.getInputStream()) {
+            var result = s3.putObject(new PutObjectRequest(imageBucket, fileName, input, metadata));
             return result.getVersionId();
 
         } catch (IOException e) {
             throw new UnexpectedErrorException(e);
+        }
+    }
+
+    /**
+     * Deletes the version an upload creates once it completes, for when the change it belonged to failed.
+     * Without a version id (an unversioned bucket) the object is the user's only image and is kept.
+     */
+    public void discardUpload(@NotNull CompletableFuture<String> upload, @NotNull UUID userId) {
+        upload.thenAcceptAsync(version -> {
+            if (version == null)
+                return;
 
-        } finally {
             try {
-                Files.deleteIfExists(file.toPath());
-            } catch (IOException e) {
-                LOGGER.error("[S3Service] Error deleting file:"+file.getAbsolutePath(), e);
+                s3.deleteVersion(imageBucket, userId + ALLOWED_EXTENSION, version);
+            } catch (RuntimeException e) {
+                LOGGER.warn("[S3Service.discardUpload] Could not delete version {} of user {} image", version, userId, e);
             }
-        }
+        }, uploads);
     }
 
     public String getImagePath(UUID userId, String version) {
@@ -67,4 +100,9 @@ public class S3Service {
         return imageUrl.replace("{id}", imgName).replace("{version}", version);
     }
 
+    @Override
+    public void destroy() {
+        uploads.close();
+    }
+
 }
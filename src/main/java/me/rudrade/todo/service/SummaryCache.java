@@ -0,0 +1,116 @@
+package me.rudrade.todo.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import me.rudrade.todo.config.RedisChangeRelay;
+import me.rudrade.todo.dto.Mapper;
+import me.rudrade.todo.dto.TagDto;
+import me.rudrade.todo.dto.UserListDto;
+import me.rudrade.todo.repository.TagRepository;
+import me.rudrade.todo.repository.UserListRepository;
+import me.rudrade.todo.util.AfterCommit;
+import me.rudrade.todo.util.ExpiringCache;
+
+/**
+ * Tag and list summaries by user id. List task counts come from an aggregate query, tasks are never loaded.
+ * Entries are evicted by the services writing tags, lists and tasks. Writes of the other
+ * instances evict through the change relay, while it isn't subscribed summaries are loaded on every read.
+ */
+@Service
+public class SummaryCache {
+
+    private final RedisChangeRelay relay;
+    private final TagRepository tagRepository;
+    private final UserListRepository userListRepository;
+    private final ExpiringCache<UUID, List<TagDto>> tags;
+    private final ExpiringCache<UUID, List<UserListDto>> lists;
+
+    public SummaryCache(
+        RedisChangeRelay relay,
+        TagRepository tagRepository,
+        UserListRepository userListRepository,
+        @Value("${todo.app.summaryCache.maxSize:10000}") int maxSize,
+        @Value("${todo.app.summaryCache.ttlSeconds:300}") long ttlSeconds
+    ) {
+        this.relay = relay;
+        this.tagRepository = tagRepository;
+        this.userListRepository = userListRepository;
+        this.tags = new ExpiringCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+        this.lists = new ExpiringCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+        relay.onSubscribed(this::clear);
+        relay.listen(this::evict);
+    }
+
+    public List<TagDto> getTags(UUID userId) {
+        if (relay.mayMissMessages())
+            return loadTags(userId);
+
+        return tags.get(userId, this::loadTags);
+    }
+
+    public List<UserListDto> getLists(UUID userId) {
+        if (relay.mayMissMessages())
+            return loadLists(userId);
+
+        return lists.get(userId, this::loadLists);
+    }
+
+    public void evictTags(UUID userId) {
+        evict(tags, userId);
+    }
+
+    public void evictLists(UUID userId) {
+        evict(lists, userId);
+    }
+
+    public void clear() {
+        tags.invalidateAll();
+        lists.invalidateAll();
+    }
+
+    public long getTagHits() {
+        return tags.hitCount();
+    }
+
+    public long getTagMisses() {
+        return tags.missCount();
+    }
+
+    public long getListHits() {
+        return lists.hitCount();
+    }
+
+    public long getListMisses() {
+        return lists.missCount();
+    }
+
+    public int size() {
+        return tags.size() + lists.size();
+    }
+
+    private List<TagDto> loadTags(UUID userId) {
+        return tagRepository.findByUserId(userId).stream().map(Mapper::toTagDto).toList();
+    }
+
+    private List<UserListDto> loadLists(UUID userId) {
+        return List.copyOf(userListRepository.findSummariesByUserId(userId));
+    }
+
+    // List summaries carry task counts, so task changes evict them too
+    void evict(ChangeEvent event) {
+        switch (event.type()) {
+            case TAG -> evictTags(event.userId());
+            case TASK, LIST -> evictLists(event.userId());
+        }
+    }
+
+    private static void evict(ExpiringCache<UUID, ?> cache, UUID userId) {
+        if (userId != null)
+            AfterCommit.runNowAndAfterCommit(() -> cache.invalidate(userId));
+    }
+}
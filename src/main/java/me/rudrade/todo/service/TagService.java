@@ -1,27 +1,45 @@
 package me.rudrade.todo.service;
 
+import me.rudrade.todo.dto.Mapper;
+import me.rudrade.todo.dto.TagDto;
 import me.rudrade.todo.exception.InvalidAccessException;
 import me.rudrade.todo.exception.InvalidDataException;
+import me.rudrade.todo.exception.UnexpectedErrorException;
 import me.rudrade.todo.model.Tag;
 import me.rudrade.todo.model.User;
+import me.rudrade.todo.model.types.ChangeType;
 import me.rudrade.todo.repository.TagRepository;
 import me.rudrade.todo.util.ServiceUtil;
+import me.rudrade.todo.util.UuidV7;
 
 import org.springframework.context.MessageSource;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import lombok.RequiredArgsConstructor;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class TagService extends ServiceUtil {
 
+    static final String INSERT_IGNORE = "insert ignore into tag (id, user_id, name, color) values (?, ?, ?, ?)";
+
     private final TagRepository tagRepository;
     private final MessageSource messageSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final SummaryCache summaryCache;
+    private final ChangeVersions changeVersions;
+    private final ChangeLog changeLog;
+    private final EntityCache entityCache;
 
     public List<Tag> findByUser(User user) {
         if (user == null || user.getId() == null)
@@ -30,24 +48,70 @@ public class TagService extends ServiceUtil {
         return tagRepository.findByUserId(user.getId());
     }
 
-    public Tag findOrCreateByUser(User user, Tag tag) {
-        if (user == null) {
+    public List<TagDto> getSummaries(User user) {
+        if (user == null || user.getId() == null)
+            throw new InvalidAccessException();
+
+        return summaryCache.getTags(user.getId());
+    }
+
+    /**
+     * Finds the user's tags by name and creates the missing ones, in the order their names first appear.
+     * Names are matched ignoring case, like the column collation. Costs one lookup, plus one batched
+     * insert and one locking read when some are missing, whatever the number of tags.
+     */
+    @Transactional
+    public List<Tag> findOrCreateAllByUser(User user, Collection<Tag> tags) {
+        if (user == null || user.getId() == null)
             throw new InvalidAccessException();
+
+        if (tags == null || tags.isEmpty())
+            return List.of();
+
+        Map<String, Tag> requested = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        List<String> names = new ArrayList<>();
+        for (Tag tag : tags) {
+            if (tag == null)
+                throw new InvalidDataException(messageSource.getMessage("tag.missing", null, user.getLocale()));
+
+            if (tag.getName() == null || tag.getName().isBlank())
+                throw new InvalidAccessException();
+
+            if (requested.putIfAbsent(tag.getName(), tag) == null)
+                names.add(tag.getName());
+        }
+
+        Map<String, Tag> found = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        tagRepository.findByUserIdAndNameIn(user.getId(), names).forEach(tag -> found.put(tag.getName(), tag));
+
+        List<Tag> missing = names.stream().filter(name -> !found.containsKey(name)).map(requested::get).toList();
+        if (!missing.isEmpty()) {
+            // Names created concurrently by another request hit the unique key and are skipped
+            byte[] userId = toBytes(user.getId());
+            jdbcTemplate.batchUpdate(INSERT_IGNORE, missing, missing.size(), (ps, tag) -> {
+                ps.setBytes(1, toBytes(UuidV7.next()));
+                ps.setBytes(2, userId);
+                ps.setString(3, tag.getName());
+                ps.setString(4, tag.getColor() == null || tag.getColor().isBlank() ? generateRandomHexColor() : tag.getColor());
+            });
+            entityCache.invalidateTable("tag");
+            summaryCache.evictTags(user.getId());
+            changeVersions.bump(user.getId());
+
+            var created = tagRepository.findLockedByUserIdAndNameIn(user.getId(), missing.stream().map(Tag::getName).toList());
+            created.forEach(tag -> found.put(tag.getName(), tag));
+            changeLog.saved(user.getId(), ChangeType.TAG, created.stream().map(Tag::getId).toList());
         }
 
-        if (tag == null)
-            throw new InvalidDataException(messageSource.getMessage("tag.missing", null, user.getLocale()));
-
-        Optional<Tag> optionalTag = findByName(tag.getName(), user);
-        return optionalTag.orElseGet(() -> {
-            if (tag.getColor() == null || tag.getColor().isBlank()) {
-                tag.setColor(generateRandomHexColor());
-                tag.setUser(user);
-            }
-          return tagRepository.save(tag);
-        });
+        return names.stream().map(name -> {
+            Tag tag = found.get(name);
+            if (tag == null)
+                throw new UnexpectedErrorException("Tag " + name + " could not be created");
+            return tag;
+        }).toList();
     }
 
+    @Transactional
     public void deleteById(UUID id, User user) {
         if (id == null || user == null || user.getId() == null)
             throw new InvalidAccessException();
@@ -57,6 +121,19 @@ public class TagService extends ServiceUtil {
             throw new InvalidAccessException();
 
         tagRepository.deleteById(id);
+        changeLog.deleted(user.getId(), ChangeType.TAG, id, optionalTag.get().getName());
+        summaryCache.evictTags(user.getId());
+        changeVersions.bump(user.getId());
+    }
+
+    public List<TagDto> findAllById(Collection<UUID> ids, User user) {
+        if (user == null || user.getId() == null)
+            throw new InvalidAccessException();
+
+        if (ids.isEmpty())
+            return List.of();
+
+        return tagRepository.findAllByIdInAndUserId(ids, user.getId()).stream().map(Mapper::toTagDto).toList();
     }
 
     public Optional<Tag> findByName(String name, User user) {
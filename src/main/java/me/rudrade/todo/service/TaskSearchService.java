@@ -0,0 +1,103 @@
+package me.rudrade.todo.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import me.rudrade.todo.model.Task;
+import me.rudrade.todo.repository.TaskRepository;
+
+/**
+ * Full-text search over task titles and descriptions, backed by a MySQL FULLTEXT index.
+ * Terms are split on anything that isn't a letter or digit, every term must match and matches by prefix.
+ * Results are ranked by relevance.
+ */
+@Service
+public class TaskSearchService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskSearchService.class);
+
+    static final int MAX_TERMS = 10;
+    private static final int DEFAULT_MIN_TOKEN_SIZE = 3;
+
+    private final TaskRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private int minTokenSize = DEFAULT_MIN_TOKEN_SIZE;
+
+    public TaskSearchService(TaskRepository repository, JdbcTemplate jdbcTemplate) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * The ft_task_title_description index is created by the V3 migration, terms shorter than the
+     * server's token size aren't in it.
+     */
+    @PostConstruct
+    void readTokenSize() {
+        try {
+            var tokenSize = jdbcTemplate.queryForObject("select @@innodb_ft_min_token_size", Integer.class);
+            if (tokenSize != null)
+                minTokenSize = tokenSize;
+
+        } catch (DataAccessException e) {
+            LOGGER.error("[TaskSearchService.readTokenSize] ", e);
+        }
+    }
+
+    public List<Task> search(String term, UUID userId, int limit, long offset) {
+        var query = toBooleanQuery(term);
+        if (query.isEmpty())
+            return repository.searchContains(toLikePattern(term), userId, limit, offset);
+
+        return repository.searchFullText(query, userId, limit, offset);
+    }
+
+    public long count(String term, UUID userId) {
+        var query = toBooleanQuery(term);
+        if (query.isEmpty())
+            return repository.countContains(toLikePattern(term), userId);
+
+        return repository.countFullText(query, userId);
+    }
+
+    /**
+     * Builds a boolean mode query requiring every indexable term as a prefix, e.g. "Buy milk" becomes "+buy* +milk*".
+     * Terms shorter than the index token size are left out, an empty result means none could be used.
+     */
+    String toBooleanQuery(String term) {
+        return tokenize(term).stream()
+            .filter(token -> token.length() >= minTokenSize)
+            .map(token -> "+" + token + "*")
+            .collect(Collectors.joining(" "));
+    }
+
+    static List<String> tokenize(String term) {
+        if (term == null)
+            return List.of();
+
+        return Arrays.stream(term.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+            .filter(token -> !token.isEmpty())
+            .distinct()
+            .limit(MAX_TERMS)
+            .toList();
+    }
+
+    static String toLikePattern(String term) {
+        var escaped = term.trim().toLowerCase(Locale.ROOT)
+            .replace("\\", "\\\\")
+            .replace("%", "\\%")
+            .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
+}
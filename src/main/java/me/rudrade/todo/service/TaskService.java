@@ -1,23 +1,44 @@
 package me.rudrade.todo.service;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
-import me.rudrade.todo.dto.TagDto;
+import me.rudrade.todo.dto.TaskBatchDto;
+import me.rudrade.todo.dto.filter.SearchCursor;
+import me.rudrade.todo.dto.filter.TaskCursor;
 import me.rudrade.todo.dto.filter.TaskListFilter;
+import me.rudrade.todo.dto.response.TaskBatchResponse;
+import me.rudrade.todo.dto.response.TaskChangesResponse;
 import me.rudrade.todo.dto.response.TaskListResponse;
+import me.rudrade.todo.dto.response.TaskOperationResult;
+import me.rudrade.todo.dto.types.TaskOperationType;
 import me.rudrade.todo.model.Tag;
 import me.rudrade.todo.model.User;
 import me.rudrade.todo.model.UserList;
+import me.rudrade.todo.model.types.ChangeType;
 
 import org.springframework.context.MessageSource;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
 import lombok.RequiredArgsConstructor;
 import me.rudrade.todo.dto.Mapper;
 import me.rudrade.todo.dto.TaskDto;
@@ -27,16 +48,28 @@ import me.rudrade.todo.model.Task;
 import me.rudrade.todo.repository.TaskRepository;
 import me.rudrade.todo.util.ServiceUtil;
 import me.rudrade.todo.dto.filter.TaskListFilter.Filter;
+import me.rudrade.todo.dto.filter.TaskListFilter.TagMatch;
 
 @Service
 @RequiredArgsConstructor
 public class TaskService extends ServiceUtil {
 
+	static final int DEFAULT_PAGE_SIZE = 50;
+	static final int MAX_PAGE_SIZE = 200;
+	static final int FETCH_CHUNK_SIZE = 1000;
+	static final int MAX_TAGS = 20;
+	static final int MAX_BATCH_SIZE = 500;
+
 	private final UserListService userListService;
 	private final TaskRepository repository;
 	private final TagService tagService;
 	private final MessageSource messageSource;
+	private final TaskSearchService searchService;
+	private final SummaryCache summaryCache;
+	private final ChangeVersions changeVersions;
+	private final ChangeLog changeLog;
 
+	@Transactional
 	public TaskDto saveTask(TaskDto input, User user) {
 
 		if (input.getId() != null) {
@@ -57,27 +90,158 @@ public class TaskService extends ServiceUtil {
 			}
 		}
 
-		// Find all tasks by name and user
+		// Find all tags by name and user, creating the missing ones
 		List<Tag> lstTags = null;
 		if (input.getTags() != null && !input.getTags().isEmpty()) {
-			// If missing some, create them
-			lstTags = new ArrayList<>();
-			for (TagDto tag : input.getTags()) {
-				lstTags.add(tagService.findOrCreateByUser(user, Mapper.toTag(tag)));
-			}
-
+			lstTags = tagService.findOrCreateAllByUser(user, input.getTags().stream().map(Mapper::toTag).toList());
 		}
 		// Associate final list of tags to task
 		inputTask.setTags(lstTags);
 
 		Task task = repository.save(inputTask);
+		changeLog.saved(user.getId(), ChangeType.TASK, task.getId());
+		summaryCache.evictLists(user.getId());
+		changeVersions.bump(user.getId());
 		return Mapper.toTaskDto(task);
 	}
 	
+	/**
+	 * Applies every valid operation of the batch in a single transaction, lists and tags are resolved once per name.
+	 * Invalid operations are skipped and reported in their result.
+	 */
+	@Transactional
+	public TaskBatchResponse saveBatch(TaskBatchDto batch, User user) {
+		if (user == null || user.getId() == null)
+			throw new InvalidAccessException();
+
+		if (batch == null || batch.operations() == null || batch.operations().isEmpty() || batch.operations().size() > MAX_BATCH_SIZE)
+			throw new InvalidDataException(messageSource.getMessage("task.batch.size", new Object[] {MAX_BATCH_SIZE}, user.getLocale()));
+
+		var operations = batch.operations();
+		var results = new TaskOperationResult[operations.size()];
+
+		// Every referenced task is loaded with one query
+		Set<UUID> ids = new HashSet<>();
+		for (var operation : operations) {
+			if (operation == null)
+				continue;
+
+			if (operation.id() != null)
+				ids.add(operation.id());
+			if (operation.task() != null && operation.task().getId() != null)
+				ids.add(operation.task().getId());
+		}
+
+		Map<UUID, Task> owned = new HashMap<>();
+		if (!ids.isEmpty())
+			repository.findAllByIdInAndUserId(ids, user.getId()).forEach(task -> owned.put(task.getId(), task));
+
+		// Validate before resolving lists and tags, so invalid operations don't create them
+		Map<Integer, Task> saves = new LinkedHashMap<>();
+		List<Task> deletes = new ArrayList<>();
+		Set<UUID> deleted = new HashSet<>();
+		for (int i = 0; i < operations.size(); i++) {
+			var operation = operations.get(i);
+			var type = operation == null ? null : operation.type();
+
+			if (TaskOperationType.DELETE.equals(type) && operation.id() != null) {
+				var task = owned.get(operation.id());
+				if (task == null || !deleted.add(task.getId())) {
+					results[i] = TaskOperationResult.failed(i, type, operation.id(), messageSource.getMessage("task.missing", null, user.getLocale()));
+				} else {
+					deletes.add(task);
+					results[i] = TaskOperationResult.ok(i, type, task.getId(), null);
+				}
+
+			} else if (TaskOperationType.SAVE.equals(type) && operation.task() != null) {
+				var input = operation.task();
+				if (input.getId() != null && (!owned.containsKey(input.getId()) || deleted.contains(input.getId()))) {
+					results[i] = TaskOperationResult.failed(i, type, input.getId(), messageSource.getMessage("task.missing", null, user.getLocale()));
+					continue;
+				}
+
+				if (input.getTags() != null && input.getTags().stream().anyMatch(tag -> tag == null || tag.name() == null || tag.name().isBlank())) {
+					results[i] = TaskOperationResult.failed(i, type, input.getId(), messageSource.getMessage("tag.name.missing", null, user.getLocale()));
+					continue;
+				}
+
+				var task = Mapper.toTask(input);
+				task.setUser(user);
+				try {
+					validate(task);
+					saves.put(i, task);
+				} catch (ConstraintViolationException e) {
+					results[i] = TaskOperationResult.failed(i, type, input.getId(), e.getConstraintViolations().stream()
+						.map(ConstraintViolation::getMessage)
+						.sorted()
+						.collect(Collectors.joining(" ")));
+				}
+
+			} else {
+				results[i] = TaskOperationResult.failed(i, type, operation == null ? null : operation.id(),
+					messageSource.getMessage("task.operation.invalid", null, user.getLocale()));
+			}
+		}
+
+		// Tags of every operation are resolved together
+		var inputTags = saves.keySet().stream()
+			.map(i -> operations.get(i).task().getTags())
+			.filter(Objects::nonNull)
+			.flatMap(List::stream)
+			.map(Mapper::toTag)
+			.toList();
+
+		Map<String, Tag> tags = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		if (!inputTags.isEmpty())
+			tagService.findOrCreateAllByUser(user, inputTags).forEach(tag -> tags.put(tag.getName(), tag));
+
+		Map<String, UserList> lists = new HashMap<>();
+		List<Task> created = new ArrayList<>();
+		for (var entry : saves.entrySet()) {
+			var input = operations.get(entry.getKey()).task();
+			var task = entry.getValue();
+
+			// A blank list name means no list, like in saveTask
+			task.setUserList(input.getListName() == null || input.getListName().isBlank() ? null
+				: lists.computeIfAbsent(input.getListName(), name -> userListService.saveByName(name, user)));
+
+			task.setTags(input.getTags() == null || input.getTags().isEmpty() ? null
+				: input.getTags().stream().map(tag -> tags.get(tag.name())).distinct().toList());
+
+			if (task.getId() == null) {
+				created.add(task);
+			} else {
+				var existing = owned.get(task.getId());
+				existing.setTitle(task.getTitle());
+				existing.setDescription(task.getDescription());
+				existing.setDueDate(task.getDueDate());
+				existing.setUserList(task.getUserList());
+				existing.setTags(task.getTags());
+				entry.setValue(existing);
+			}
+		}
+
+		// Inserts, updates and deletes are sent in JDBC batches when the transaction is flushed
+		repository.saveAll(created);
+		repository.deleteAll(deletes);
+		if (!saves.isEmpty() || !deletes.isEmpty()) {
+			changeLog.saved(user.getId(), ChangeType.TASK, saves.values().stream().map(Task::getId).filter(id -> !deleted.contains(id)).toList());
+			changeLog.deleted(user.getId(), ChangeType.TASK, deleted);
+			summaryCache.evictLists(user.getId());
+			changeVersions.bump(user.getId());
+		}
+
+		saves.forEach((i, task) -> results[i] = TaskOperationResult.ok(i, TaskOperationType.SAVE, task.getId(), Mapper.toTaskDto(task)));
+		return new TaskBatchResponse(List.of(results));
+	}
+
 	@Transactional(readOnly = true)
 	public TaskListResponse getAll(TaskListFilter filter) {
 		validateFilter(filter);
 
+		if (filter.isPaged())
+			return getPage(filter);
+
 		Page<Task> result;
 		UUID userId = filter.user().getId();
         if (Filter.TODAY.equals(filter.filter())) {
@@ -87,13 +251,15 @@ public class TaskService extends ServiceUtil {
             result = repository.findDueUpcoming(userId, Pageable.unpaged());
 
         } else if (Filter.SEARCH.equals(filter.filter())) {
-			result = repository.findByTitleContains(filter.searchTerm(), userId, Pageable.unpaged());
+			var tasks = searchService.search(filter.searchTerm(), userId, Integer.MAX_VALUE, 0);
+			return new TaskListResponse(tasks.size(), toTaskDtos(tasks));
 
 		} else if (Filter.LIST.equals(filter.filter())) {
 			result = repository.findAllByUserListNameAndUserId(filter.searchTerm(), userId, Pageable.unpaged());
 
 		} else if (Filter.TAG.equals(filter.filter())) {
-			result = repository.findAllByTagsNameAndUserId(filter.searchTerm(), userId, Pageable.unpaged());
+			var tasks = seekByTags(filter, null, null, Pageable.unpaged());
+			return new TaskListResponse(tasks.size(), toTaskDtos(tasks));
 
         } else {
             result = repository.findAllByUserId(userId, Pageable.unpaged());
@@ -101,21 +267,204 @@ public class TaskService extends ServiceUtil {
 
 		return new TaskListResponse(
 			result.getTotalElements(),
-			result.map(Mapper::toTaskDto).toList()
+			toTaskDtos(result.getContent())
+		);
+	}
+
+	private TaskListResponse getPage(TaskListFilter filter) {
+		int size = filter.size() == null || filter.size() < 1 ? DEFAULT_PAGE_SIZE : Math.min(filter.size(), MAX_PAGE_SIZE);
+		if (Filter.SEARCH.equals(filter.filter()))
+			return getSearchPage(filter, size);
+
+		TaskCursor after = decodeCursor(filter);
+
+		// Fetch one extra row to know if there's a next page without counting
+		Pageable limit = PageRequest.ofSize(size + 1);
+		LocalDate lastDueDate = after == null ? null : after.dueDate();
+		UUID lastId = after == null ? null : after.id();
+		UUID userId = filter.user().getId();
+
+		List<Task> result;
+		if (Filter.TODAY.equals(filter.filter())) {
+			result = repository.seekDueToday(userId, lastDueDate, lastId, limit);
+
+		} else if (Filter.UPCOMING.equals(filter.filter())) {
+			result = repository.seekDueUpcoming(userId, lastDueDate, lastId, limit);
+
+		} else if (Filter.LIST.equals(filter.filter())) {
+			result = repository.seekByUserListName(filter.searchTerm(), userId, lastDueDate, lastId, limit);
+
+		} else if (Filter.TAG.equals(filter.filter())) {
+			result = seekByTags(filter, lastDueDate, lastId, limit);
+
+		} else {
+			result = repository.seekAllByUserId(userId, lastDueDate, lastId, limit);
+		}
+
+		String nextCursor = null;
+		if (result.size() > size) {
+			result = result.subList(0, size);
+			nextCursor = TaskCursor.of(result.getLast()).encode();
+		}
+
+		return new TaskListResponse(
+			filter.withTotal() ? countAll(filter) : null,
+			toTaskDtos(result),
+			nextCursor
 		);
 	}
 
+	private List<Task> seekByTags(TaskListFilter filter, LocalDate lastDueDate, UUID lastId, Pageable limit) {
+		var names = filter.tagNames();
+		UUID userId = filter.user().getId();
+
+		if (TagMatch.ALL.equals(filter.tagMatch()))
+			return repository.seekByAllTags(names, names.size(), userId, lastDueDate, lastId, limit);
+
+		return repository.seekByAnyTag(names, userId, lastDueDate, lastId, limit);
+	}
+
+	/**
+	 * Search results are ordered by relevance, their pages are taken by offset.
+	 */
+	private TaskListResponse getSearchPage(TaskListFilter filter, int size) {
+		long offset = 0;
+		if (filter.cursor() != null && !filter.cursor().isBlank()) {
+			try {
+				offset = SearchCursor.decode(filter.cursor()).offset();
+			} catch (IllegalArgumentException e) {
+				throw new InvalidDataException(messageSource.getMessage("cursor.invalid", null, filter.user().getLocale()));
+			}
+		}
+
+		UUID userId = filter.user().getId();
+		List<Task> result = searchService.search(filter.searchTerm(), userId, size + 1, offset);
+
+		String nextCursor = null;
+		if (result.size() > size) {
+			result = result.subList(0, size);
+			nextCursor = new SearchCursor(offset + size).encode();
+		}
+
+		return new TaskListResponse(
+			filter.withTotal() ? searchService.count(filter.searchTerm(), userId) : null,
+			toTaskDtos(result),
+			nextCursor
+		);
+	}
+
+	/**
+	 * Tasks, tags and lists changed after {@code since}, deleted ones are returned as tombstones.
+	 * Runs on one snapshot, so the returned sequence number matches the changes read.
+	 */
+	@Transactional(readOnly = true)
+	public TaskChangesResponse getChanges(User user, long since) {
+		if (user == null || user.getId() == null)
+			throw new InvalidAccessException();
+
+		long seq = changeLog.getSeq(user.getId());
+		Map<ChangeType, List<UUID>> saved = new EnumMap<>(ChangeType.class);
+		List<UUID> deletedTasks = new ArrayList<>();
+		Set<String> deletedTags = new LinkedHashSet<>();
+		Set<String> deletedLists = new LinkedHashSet<>();
+
+		for (var change : changeLog.findSince(user.getId(), Math.max(0, since))) {
+			if (!change.isDeleted()) {
+				saved.computeIfAbsent(change.getType(), type -> new ArrayList<>()).add(change.getEntityId());
+			} else if (ChangeType.TASK.equals(change.getType())) {
+				deletedTasks.add(change.getEntityId());
+			} else if (ChangeType.TAG.equals(change.getType())) {
+				deletedTags.add(change.getName());
+			} else {
+				deletedLists.add(change.getName());
+			}
+		}
+
+		List<UUID> taskIds = saved.getOrDefault(ChangeType.TASK, List.of());
+		List<Task> tasks = new ArrayList<>();
+		for (int i = 0; i < taskIds.size(); i += FETCH_CHUNK_SIZE) {
+			tasks.addAll(repository.findAllByIdInAndUserId(taskIds.subList(i, Math.min(i + FETCH_CHUNK_SIZE, taskIds.size())), user.getId()));
+		}
+
+		var tags = tagService.findAllById(saved.getOrDefault(ChangeType.TAG, List.of()), user);
+		var lists = userListService.getUserLists(saved.getOrDefault(ChangeType.LIST, List.of()), user);
+
+		// A name deleted and created again is only sent as created
+		tags.forEach(tag -> deletedTags.remove(tag.name()));
+		lists.forEach(list -> deletedLists.remove(list.name()));
+
+		return new TaskChangesResponse(seq, toTaskDtos(tasks), deletedTasks, tags, List.copyOf(deletedTags), lists, List.copyOf(deletedLists));
+	}
+
+	/**
+	 * Maps the tasks after loading their lists and tags with one query per chunk of tasks,
+	 * instead of initializing both lazy associations row by row.
+	 */
+	private List<TaskDto> toTaskDtos(List<Task> tasks) {
+		List<UUID> ids = tasks.stream().map(Task::getId).toList();
+
+		Map<UUID, Task> loaded = new HashMap<>();
+		for (int i = 0; i < ids.size(); i += FETCH_CHUNK_SIZE) {
+			repository.fetchListsAndTags(ids.subList(i, Math.min(i + FETCH_CHUNK_SIZE, ids.size())))
+				.forEach(task -> loaded.put(task.getId(), task));
+		}
+
+		return tasks.stream()
+			.map(task -> Mapper.toTaskDto(loaded.getOrDefault(task.getId(), task)))
+			.toList();
+	}
+
+	private TaskCursor decodeCursor(TaskListFilter filter) {
+		if (filter.cursor() == null || filter.cursor().isBlank())
+			return null;
+
+		try {
+			return TaskCursor.decode(filter.cursor());
+		} catch (IllegalArgumentException e) {
+			throw new InvalidDataException(messageSource.getMessage("cursor.invalid", null, filter.user().getLocale()));
+		}
+	}
+
+	private long countAll(TaskListFilter filter) {
+		UUID userId = filter.user().getId();
+		if (Filter.TODAY.equals(filter.filter())) {
+			return repository.countDueToday(userId);
+
+		} else if (Filter.UPCOMING.equals(filter.filter())) {
+			return repository.countDueUpcoming(userId);
+
+		} else if (Filter.LIST.equals(filter.filter())) {
+			return repository.countByUserListNameAndUserId(filter.searchTerm(), userId);
+
+		} else if (Filter.TAG.equals(filter.filter())) {
+			var names = filter.tagNames();
+			return TagMatch.ALL.equals(filter.tagMatch())
+				? repository.countByAllTags(names, names.size(), userId)
+				: repository.countByAnyTag(names, userId);
+		}
+
+		return repository.countByUserId(userId);
+	}
+
 	private void validateFilter(TaskListFilter filter) {
 		if (filter == null || filter.user() == null || filter.user().getId() == null)
 			throw new InvalidAccessException();
 
 		if ((filter.searchTerm() == null || filter.searchTerm().isBlank()) && (
 			Filter.SEARCH.equals(filter.filter()) ||
-			Filter.LIST.equals(filter.filter()) ||
-			Filter.TAG.equals(filter.filter())
+			Filter.LIST.equals(filter.filter())
 		)) {
 			throw new InvalidDataException(messageSource.getMessage("searchTerm.missing", null, filter.user().getLocale()));
 		}
+
+		if (Filter.TAG.equals(filter.filter())) {
+			var names = filter.tagNames();
+			if (names.isEmpty())
+				throw new InvalidDataException(messageSource.getMessage("searchTerm.missing", null, filter.user().getLocale()));
+
+			if (names.size() > MAX_TAGS)
+				throw new InvalidDataException(messageSource.getMessage("tags.max", new Object[] {MAX_TAGS}, filter.user().getLocale()));
+		}
 	}
 	
 	public TaskDto getById(UUID id, User user) {
@@ -130,6 +479,7 @@ public class TaskService extends ServiceUtil {
 		return Mapper.toTaskDto(optTask.get());
 	}
 	
+	@Transactional
 	public void deleteById(UUID id, User user) {
 		if (id == null || user == null || user.getId() == null)
 			throw new InvalidAccessException();
@@ -140,6 +490,9 @@ public class TaskService extends ServiceUtil {
 		}
 		
 		repository.deleteById(id);
+		changeLog.deleted(user.getId(), ChangeType.TASK, List.of(id));
+		summaryCache.evictLists(user.getId());
+		changeVersions.bump(user.getId());
 	}
 	
 }
@@ -1,11 +1,11 @@
 package me.rudrade.todo.service;
 
-import me.rudrade.todo.dto.Mapper;
 import me.rudrade.todo.dto.UserListDto;
 import me.rudrade.todo.exception.InvalidAccessException;
 import me.rudrade.todo.exception.InvalidDataException;
 import me.rudrade.todo.model.User;
 import me.rudrade.todo.model.UserList;
+import me.rudrade.todo.model.types.ChangeType;
 import me.rudrade.todo.repository.UserListRepository;
 import me.rudrade.todo.util.ServiceUtil;
 
@@ -15,27 +15,29 @@ import org.springframework.transaction.annotation.Transactional;
 
 import lombok.RequiredArgsConstructor;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class UserListService extends ServiceUtil {
 
     private final UserListRepository userListRepository;
-    private final AuthenticationService authenticationService;
     private final MessageSource messageSource;
+    private final SummaryCache summaryCache;
+    private final ChangeVersions changeVersions;
+    private final ChangeLog changeLog;
 
-    @Transactional(readOnly = true)
-    public List<UserListDto> getUserListsByToken(String authToken) {
-        if (authToken == null || authToken.isBlank())
+    public List<UserListDto> getUserLists(User user) {
+        if (user == null || user.getId() == null)
             throw new InvalidAccessException();
 
-        User user = authenticationService.getUserByAuth(authToken);
-
-        return user.getUserLists().stream().map(Mapper::toListDto).toList();
+        return summaryCache.getLists(user.getId());
     }
 
+    @Transactional
     public UserList saveByName(String listName, User user) {
         if (user == null)
             throw new InvalidAccessException();
@@ -44,7 +46,23 @@ public class UserListService extends ServiceUtil {
             throw new InvalidDataException(messageSource.getMessage("list.name.missing", null, user.getLocale()));
 
         Optional<UserList> optList = findByName(listName, user);
-        return optList.orElseGet(() -> userListRepository.save(new UserList(null, listName, generateRandomHexColor(), user, null)));
+        return optList.orElseGet(() -> {
+            var saved = userListRepository.save(new UserList(null, listName, generateRandomHexColor(), user, null));
+            changeLog.saved(user.getId(), ChangeType.LIST, saved.getId());
+            summaryCache.evictLists(user.getId());
+            changeVersions.bump(user.getId());
+            return saved;
+        });
+    }
+
+    public List<UserListDto> getUserLists(Collection<UUID> ids, User user) {
+        if (user == null || user.getId() == null)
+            throw new InvalidAccessException();
+
+        if (ids.isEmpty())
+            return List.of();
+
+        return userListRepository.findSummariesByIdIn(ids, user.getId());
     }
 
     public Optional<UserList> findByName(String name, User user) {
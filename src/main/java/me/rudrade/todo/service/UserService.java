@@ -5,11 +5,17 @@ import java.util.UUID;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.ConstraintViolationException.ConstraintKind;
 import org.springframework.context.MessageSource;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
 import jakarta.validation.constraints.NotNull;
@@ -30,6 +36,7 @@ import me.rudrade.todo.model.PasswordRequest;
 import me.rudrade.todo.model.User;
 import me.rudrade.todo.model.UserRequest;
 import me.rudrade.todo.model.types.Language;
+import me.rudrade.todo.model.types.MailType;
 import me.rudrade.todo.model.types.Role;
 import me.rudrade.todo.repository.PasswordRequestRepository;
 import me.rudrade.todo.repository.UserRepository;
@@ -44,23 +51,33 @@ public class UserService extends ServiceUtil {
     private final UserRepository userRepository;
     private final UserRequestRepository userRequestRepository;
     private final PasswordEncoder passwordEncoder;
-    private final MailService mailService;
     private final PasswordRequestRepository passwordRequestRepository;
     private final S3Service s3Service;
     private final MessageSource messageSource;
+    private final MailOutboxService mailOutboxService;
+    private final AvailabilityService availabilityService;
 
+    @Transactional
     public UserRequest createUser(@NotNull UserRequestDto request, Locale locale) {
         var user = Mapper.toUserRequest(request);
         user.setDtCreated(LocalDateTime.now());
         validate(user);
 
-        validateAlreadyExists(user.getUsername(), user.getEmail(), null, locale);
+        // Other requests are caught by the unique constraints on insert, users are in another table
+        if (availabilityService.mightBeTaken(user.getUsername(), user.getEmail()) &&
+            !userRepository.findActiveByUsernameOrEmail(user.getUsername(), user.getEmail()).isEmpty())
+            throw new EntityAlreadyExistsException(messageSource.getMessage("user.alreadyExists", null, locale));
 
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        
-        userRequestRepository.save(user);
 
-        mailService.sendActivationMail(user);
+        try {
+            userRequestRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw alreadyExistsOr(e, locale);
+        }
+        availabilityService.taken(user.getUsername(), user.getEmail());
+
+        mailOutboxService.enqueue(MailType.ACTIVATION, user.getId(), user.getEmail());
 
         return user;
     }
@@ -106,43 +123,58 @@ public class UserService extends ServiceUtil {
         var user = validateUpdateAccess(id, data, requester);
 
         // If changing username or email, validate if already doesn't exist on in DB
-        validateAlreadyExists(data.getUsername(), data.getEmail(), id, requester.getLocale());
+        if ((data.getUsername() != null || data.getEmail() != null) &&
+            availabilityService.mightBeTaken(data.getUsername(), data.getEmail()))
+            validateAlreadyExists(data.getUsername(), data.getEmail(), id, requester.getLocale());
+
+        // Upload image while the other changes are applied, outside of any transaction
+        var upload = data.getImage() == null ? null : s3Service.uploadImage(data.getImage(), id);
+
+        // A failure past this point would leave the uploaded version orphaned, it's deleted once the upload ends
+        try {
+            // Update only setted values
+            if (data.getUsername() != null) {
+                user.setUsername(data.getUsername());
+            }
 
-        // Update only setted values
-        if (data.getUsername() != null) {
-            user.setUsername(data.getUsername());
-        }
+            if (data.getPassword() != null) {
+                user.setPassword(passwordEncoder.encode(data.getPassword()));
+            }
 
-        if (data.getPassword() != null) {
-            user.setPassword(passwordEncoder.encode(data.getPassword()));
-        }
+            if (data.getEmail() != null) {
+                user.setEmail(data.getEmail());
+            }
 
-        if (data.getEmail() != null) {
-            user.setEmail(data.getEmail());
-        }
+            if (data.getRole() != null) {
+                user.setRole(data.getRole());
+            }
 
-        if (data.getRole() != null) {
-            user.setRole(data.getRole());
-        }
+            if (data.getActive() != null) {
+                user.setActive(data.getActive());
+            }
 
-        if (data.getActive() != null) {
-            user.setActive(data.getActive());
-        }
+            if (data.getLanguage() != null) {
+                user.setLanguage(data.getLanguage());
+            } else {
+                user.setLanguage(Language.EN);
+            }
 
-        if (data.getLanguage() != null) {
-            user.setLanguage(data.getLanguage());
-        } else {
-            user.setLanguage(Language.EN);
-        }
+            if (upload != null) {
+                user.setImageVersion(awaitUpload(upload));
+            }
 
-        // Upload image
-        if (data.getImage() != null) {
-            var version = s3Service.uploadImage(data.getImage(), id);
-            user.setImageVersion(version);
+            // Save resource
+            try {
+                userRepository.save(user);
+            } catch (DataIntegrityViolationException e) {
+                throw alreadyExistsOr(e, requester.getLocale());
+            }
+        } catch (RuntimeException e) {
+            if (upload != null)
+                s3Service.discardUpload(upload, id);
+            throw e;
         }
-
-        // Save resource
-        userRepository.save(user);
+        availabilityService.taken(data.getUsername(), data.getEmail());
 
         var result = Mapper.toUserDto(user);
         if (user.getImageVersion() != null) {
@@ -152,6 +184,16 @@ public class UserService extends ServiceUtil {
         return result;
     }
 
+    private static String awaitUpload(CompletableFuture<String> upload) {
+        try {
+            return upload.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw new UnexpectedErrorException(e.getCause());
+        }
+    }
+
     private User validateUpdateAccess(@NotNull UUID id, @NotNull UserChangeDto data, @NotNull User requester) {
         // Only admins can update role or active properties
         if (!Role.ROLE_ADMIN.equals(requester.getRole()) && (data.getRole() != null || data.getActive() != null))
@@ -204,6 +246,12 @@ public class UserService extends ServiceUtil {
             throw new EntityAlreadyExistsException(messageSource.getMessage("user.alreadyExists", null, locale));
     }
 
+    private RuntimeException alreadyExistsOr(DataIntegrityViolationException e, Locale locale) {
+        if (e.getCause() instanceof ConstraintViolationException violation && violation.getKind() == ConstraintKind.UNIQUE)
+            return new EntityAlreadyExistsException(messageSource.getMessage("user.alreadyExists", null, locale));
+        return e;
+    }
+
     public List<UserDto> getAllUsers(
         Boolean active,
         UserSearchType searchType,
@@ -263,8 +311,12 @@ public class UserService extends ServiceUtil {
         user.setActive(true);
         user.setLanguage(request.getLanguage());
 
-        // Insert user
-        userRepository.save(user);
+        // Insert user, a name taken since the request was made fails on the unique constraints
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            throw alreadyExistsOr(e, request.getLocale());
+        }
 
         // delete the request
         userRequestRepository.deleteById(id);
@@ -291,16 +343,14 @@ public class UserService extends ServiceUtil {
         return lst;
     }
 
+    @Transactional
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     public void resendMail(@NotNull UUID id, Locale locale) {
         var request = userRequestRepository.findById(id);
         if (request.isEmpty())
             throw new InvalidDataException("User request not found");
 
-        boolean result = mailService.sendActivationMail(request.get());
-        if (!result) {
-            throw new UnexpectedErrorException("An error occured while trying to resend mail.");
-        }
+        mailOutboxService.enqueue(MailType.ACTIVATION, request.get().getId(), request.get().getEmail());
     }
 
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
@@ -308,6 +358,7 @@ public class UserService extends ServiceUtil {
         userRequestRepository.deleteById(id);
     }
 
+    @Transactional
     public void resetPassword(@NotNull PasswordResetDto body, Locale locale) {
         // Validate if one of the values is passed
         if (body.getUsername() == null && body.getEmail() == null)
@@ -322,7 +373,7 @@ public class UserService extends ServiceUtil {
             request.setDtCreated(LocalDateTime.now());
             passwordRequestRepository.save(request);
 
-            mailService.sendPasswordReset(request);
+            mailOutboxService.enqueue(MailType.PASSWORD_RESET, request.getId(), request.getUser().getEmail());
         }
 
     }
@@ -0,0 +1,81 @@
+package me.rudrade.todo.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Set membership in a fixed bit array: {@link #mightContain(long)} is never wrong when it answers
+ * false, and answers true for an absent value with about the false positive rate it was sized for.
+ * Values are added as a 64 bit hash (see {@link #hash(String)}), the bit positions derive from it.
+ * Safe for concurrent use, values can't be removed.
+ */
+public class BloomFilter {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final LongAdder size = new LongAdder();
+
+    public BloomFilter(long expectedValues, double falsePositiveRate) {
+        if (expectedValues < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1)
+            throw new IllegalArgumentException("Bloom filter needs a positive size and a rate between 0 and 1");
+
+        var optimalBits = (long) Math.ceil(-expectedValues * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray(Math.toIntExact(Math.max(1, (optimalBits + 63) / 64)));
+        this.bitCount = bits.length() * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedValues * Math.log(2)));
+    }
+
+    public void put(long hash) {
+        var second = mix(hash);
+        for (int i = 0; i < hashCount; i++) {
+            var bit = Math.floorMod(hash + i * second, bitCount);
+            var word = (int) (bit >>> 6);
+            var mask = 1L << bit;
+            if ((bits.get(word) & mask) == 0)
+                bits.getAndUpdate(word, value -> value | mask);
+        }
+        size.increment();
+    }
+
+    public boolean mightContain(long hash) {
+        var second = mix(hash);
+        for (int i = 0; i < hashCount; i++) {
+            var bit = Math.floorMod(hash + i * second, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Values added so far, repeated values included.
+     */
+    public long size() {
+        return size.sum();
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes of the value.
+     */
+    public static long hash(String value) {
+        var hash = FNV_OFFSET;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    // Second hash for double hashing, never zero so the positions of a value differ
+    private static long mix(long hash) {
+        var z = hash + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return (z ^ (z >>> 31)) | 1;
+    }
+}
@@ -0,0 +1,44 @@
+package me.rudrade.todo.util;
+
+import java.util.function.Supplier;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Conditional GET on a precomputed ETag: a matching If-None-Match gets a 304 before the body is built.
+ * Responses may be stored by the client only, and must be revalidated before every use.
+ */
+public final class ConditionalResponse {
+
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private ConditionalResponse() {}
+
+    public static <T> ResponseEntity<T> of(String ifNoneMatch, String etag, Supplier<T> body) {
+        if (matches(ifNoneMatch, etag))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CACHE_CONTROL).build();
+
+        return ResponseEntity.ok().eTag(etag).cacheControl(CACHE_CONTROL).body(body.get());
+    }
+
+    // Weak comparison, as required for If-None-Match
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank())
+            return false;
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*"))
+                return true;
+
+            if (candidate.startsWith("W/"))
+                candidate = candidate.substring(2);
+
+            if (candidate.equals(etag))
+                return true;
+        }
+        return false;
+    }
+}
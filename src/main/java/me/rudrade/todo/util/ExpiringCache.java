@@ -0,0 +1,142 @@
+package me.rudrade.todo.util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Small in-memory cache bounded by size (least recently used entries are evicted first)
+ * and by a time to live per entry.
+ * Loaders run outside the lock, so a slow load doesn't block readers of other keys.
+ */
+public class ExpiringCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAt) {}
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<K, Entry<V>> entries;
+
+    // Bumped on every invalidation so a load that started before it isn't cached afterwards
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ExpiringCache(int maxSize, Duration ttl) {
+        if (maxSize < 1)
+            throw new IllegalArgumentException("Cache size must be positive");
+
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > ExpiringCache.this.maxSize;
+            }
+        };
+    }
+
+    public Optional<V> get(K key) {
+        lock.lock();
+        try {
+            var entry = entries.get(key);
+            if (entry != null && entry.expiresAt() - System.nanoTime() > 0) {
+                hits.increment();
+                return Optional.of(entry.value());
+            }
+
+            if (entry != null)
+                entries.remove(key);
+
+            misses.increment();
+            return Optional.empty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Doesn't count as a hit or a miss
+    public boolean contains(K key) {
+        lock.lock();
+        try {
+            var entry = entries.get(key);
+            return entry != null && entry.expiresAt() - System.nanoTime() > 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the cached value or loads it, a {@code null} from the loader is returned but not cached.
+     */
+    public V get(K key, Function<K, V> loader) {
+        var cached = get(key);
+        if (cached.isPresent())
+            return cached.get();
+
+        long loadGeneration = generation.get();
+        var value = loader.apply(key);
+        if (value != null)
+            putIfGeneration(key, value, loadGeneration);
+
+        return value;
+    }
+
+    public void put(K key, V value) {
+        putIfGeneration(key, value, generation.get());
+    }
+
+    private void putIfGeneration(K key, V value, long expectedGeneration) {
+        lock.lock();
+        try {
+            if (generation.get() == expectedGeneration)
+                entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            generation.incrementAndGet();
+            entries.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            generation.incrementAndGet();
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+}
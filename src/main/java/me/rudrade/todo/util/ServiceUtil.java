@@ -1,27 +1,38 @@
 package me.rudrade.todo.util;
 
+import java.nio.ByteBuffer;
+import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
 
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import jakarta.validation.constraints.NotNull;
 
 public class ServiceUtil {
 
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
     public String generateRandomHexColor() {
         int nextInt = ThreadLocalRandom.current().nextInt(0xffffff + 1);
         return String.format("#%06x", nextInt);
     }
 
     public void validate(@NotNull Object obj) {
-        var validator = Validation.buildDefaultValidatorFactory().getValidator();
-
-        var result = validator.validate(obj);
+        var result = VALIDATOR.validate(obj);
         if (result != null && !result.isEmpty()) {
             throw new ConstraintViolationException(result);
         }
     }
 
+    // Same layout Hibernate uses for UUID columns, for statements sent through JDBC
+    public static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+            .putLong(id.getMostSignificantBits())
+            .putLong(id.getLeastSignificantBits())
+            .array();
+    }
+
     public static String trimString(String str) {
         if (str == null || str.isBlank()) return null;
 
@@ -0,0 +1,40 @@
+package me.rudrade.todo.util;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.uuid.UuidValueGenerator;
+
+/**
+ * Time ordered UUIDs (RFC 9562 version 7): 48 bits of unix milliseconds, a 12 bit counter and 62 random bits.
+ * Stored big-endian in BINARY(16) they sort by creation time, so new rows are appended to the end of the
+ * clustered index instead of landing on random pages. Ids from one JVM are strictly increasing, the counter
+ * starts at a random point each millisecond and carries into the timestamp when it overflows.
+ * Only the low 62 bits are random, don't use them where the id is a secret.
+ */
+public class UuidV7 implements UuidValueGenerator {
+
+    private static final AtomicLong LAST = new AtomicLong();
+
+    public static UUID next() {
+        var now = System.currentTimeMillis();
+        var state = LAST.updateAndGet(last -> (last >>> 12) >= now
+            ? last + 1
+            : now << 12 | ThreadLocalRandom.current().nextInt(0x800));
+
+        var msb = (state >>> 12) << 16 | 0x7000L | (state & 0xfffL);
+        var lsb = ThreadLocalRandom.current().nextLong() & 0x3fffffffffffffffL | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    public static long timestamp(UUID id) {
+        return id.getMostSignificantBits() >>> 16;
+    }
+
+    @Override
+    public UUID generateUuid(SharedSessionContractImplementor session) {
+        return next();
+    }
+}
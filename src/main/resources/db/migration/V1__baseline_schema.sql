@@ -0,0 +1,29 @@
+-- Schema as previously generated by hibernate.ddl-auto=update from the entities, before the migrations.
+-- Databases created that way are baselined at this version and only run the later migrations.
+
+create table password_request (mail_sent bit, dt_created datetime(6) not null, id binary(16) not null, user_id binary(16) not null, primary key (id)) engine=InnoDB;
+
+create table tag (id binary(16) not null, user_id binary(16) not null, color varchar(255) not null, name varchar(255) not null, primary key (id)) engine=InnoDB;
+
+create table tag_task (tag_id binary(16) not null, task_id binary(16) not null) engine=InnoDB;
+
+create table task (due_date date, id binary(16) not null, user_id binary(16) not null, user_list_id binary(16), title varchar(100) not null, description varchar(500), primary key (id)) engine=InnoDB;
+
+create table user (is_active bit not null, id binary(16) not null, email varchar(255) not null, image_version varchar(255), password varchar(255) not null, username varchar(255) not null, language enum ('EN','PT') not null, role enum ('ROLE_ADMIN','ROLE_USER') not null, primary key (id)) engine=InnoDB;
+
+create table user_list (id binary(16) not null, user_id binary(16) not null, color varchar(255) not null, name varchar(255) not null, primary key (id)) engine=InnoDB;
+
+create table user_request (mail_sent bit not null, dt_created datetime(6) not null, id binary(16) not null, email varchar(255) not null, password varchar(255) not null, username varchar(255) not null, language enum ('EN','PT') not null, role enum ('ROLE_ADMIN','ROLE_USER') not null, primary key (id)) engine=InnoDB;
+
+alter table user add constraint UKob8kqyqqgmefl0aco34akdtpe unique (email);
+alter table user add constraint UKsb8bbouer5wak8vyiiy4pf2bx unique (username);
+alter table user_request add constraint UKjn5na5ydju2ujiya97ynv8v9i unique (email);
+alter table user_request add constraint UKsuljvlpekgehu4oqusthihx63 unique (username);
+
+alter table password_request add constraint FKbam63r8u9y6t3vlt2si4of3cg foreign key (user_id) references user (id);
+alter table tag add constraint FKld85w5kr7ky5w4wda3nrdo0p8 foreign key (user_id) references user (id);
+alter table tag_task add constraint FKsn2gvp5n6rliuxcan6ac2c1o3 foreign key (tag_id) references tag (id);
+alter table tag_task add constraint FKm4b8jkg8t7g2227pjjlu56rli foreign key (task_id) references task (id);
+alter table task add constraint FK2hsytmxysatfvt0p1992cw449 foreign key (user_id) references user (id);
+alter table task add constraint FKlvfp8w7wj9jv95vq9i3ecoem8 foreign key (user_list_id) references user_list (id);
+alter table user_list add constraint FKl55t4lsmeal3xv7ok4s1xi32f foreign key (user_id) references user (id);
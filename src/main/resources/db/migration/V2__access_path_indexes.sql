@@ -0,0 +1,22 @@
+-- Composite indexes for the repository access paths. Each one leads with the foreign key column,
+-- so it replaces the single column index MySQL created for that foreign key.
+
+-- Tasks of a user, filtered by due date and paged in (due_date, id) order
+create index idx_task_user_due_date on task (user_id, due_date, id);
+drop index FK2hsytmxysatfvt0p1992cw449 on task;
+
+-- Tags of the selected tasks and the tag filters, joined from the task side
+create index idx_tag_task_task_tag on tag_task (task_id, tag_id);
+drop index FKm4b8jkg8t7g2227pjjlu56rli on tag_task;
+
+-- Lists of a user, looked up and sorted by name
+create index idx_user_list_user_name on user_list (user_id, name);
+drop index FKl55t4lsmeal3xv7ok4s1xi32f on user_list;
+
+-- Users filtered by status on the admin listing
+create index idx_user_active_username on user (is_active, username);
+create index idx_user_active_email on user (is_active, email);
+
+-- Tasks of the selected tags, for the tag filters and the tag task counts
+create index idx_tag_task_tag_task on tag_task (tag_id, task_id);
+drop index FKsn2gvp5n6rliuxcan6ac2c1o3 on tag_task;
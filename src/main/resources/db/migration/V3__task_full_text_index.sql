@@ -0,0 +1,2 @@
+-- Task search matches words of the title and the description
+create fulltext index ft_task_title_description on task (title, description);
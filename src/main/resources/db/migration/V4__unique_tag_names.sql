@@ -0,0 +1,26 @@
+-- Tag names are unique per user. Duplicates, equal under the column collation like the unique key,
+-- are merged into the tag with the lowest id: their tasks move to it and they are deleted.
+
+create table tag_duplicate (id binary(16) not null, keep_id binary(16) not null, primary key (id)) engine=InnoDB;
+
+insert into tag_duplicate (id, keep_id)
+select t.id, k.keep_id
+from tag t
+join (select user_id, name, min(id) keep_id from tag group by user_id, name having count(*) > 1) k
+    on k.user_id = t.user_id and k.name = t.name
+where t.id <> k.keep_id;
+
+insert into tag_task (tag_id, task_id)
+select distinct d.keep_id, tt.task_id
+from tag_task tt
+join tag_duplicate d on d.id = tt.tag_id
+where not exists (select 1 from tag_task kept where kept.tag_id = d.keep_id and kept.task_id = tt.task_id);
+
+delete tt from tag_task tt join tag_duplicate d on d.id = tt.tag_id;
+delete t from tag t join tag_duplicate d on d.id = t.id;
+
+drop table tag_duplicate;
+
+-- Leads with the foreign key column, so it replaces the single column index MySQL created for it
+alter table tag add constraint uk_tag_user_name unique (user_id, name);
+drop index FKld85w5kr7ky5w4wda3nrdo0p8 on tag;
@@ -0,0 +1,5 @@
+-- Activation and password reset mails waiting to be sent, claimed by one instance at a time
+create table mail_outbox (attempts integer not null, claimed_until datetime(6), dt_created datetime(6) not null, next_attempt_at datetime(6) not null, id binary(16) not null, request_id binary(16) not null, claimed_by varchar(36), last_error varchar(500), recipient varchar(255) not null, status enum ('FAILED','PENDING','SENT') not null, type enum ('ACTIVATION','PASSWORD_RESET') not null, primary key (id)) engine=InnoDB;
+
+create index idx_mail_outbox_status_next_attempt on mail_outbox (status, next_attempt_at);
+create index idx_mail_outbox_claimed_by on mail_outbox (claimed_by);
@@ -0,0 +1,6 @@
+-- Per user change sequence and the last change of each task, tag and list, read by /task/changes
+create table change_counter (seq bigint not null, user_id binary(16) not null, primary key (user_id)) engine=InnoDB;
+
+create table entity_change (deleted bit not null, seq bigint not null, entity_id binary(16) not null, user_id binary(16) not null, name varchar(255), type enum ('LIST','TAG','TASK') not null, primary key (entity_id)) engine=InnoDB;
+
+create index idx_entity_change_user_seq on entity_change (user_id, seq);
@@ -0,0 +1,86 @@
+package me.rudrade.todo.config;
+
+import me.rudrade.todo.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BoundedPasswordEncoderTest {
+
+    @Test
+    void itShouldEncodeAndMatchOnThePool() {
+        try (var encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 4)) {
+            var hash = encoder.encode("password");
+
+            assertThat(encoder.matches("password", hash)).isTrue();
+            assertThat(encoder.matches("other", hash)).isFalse();
+
+            var metrics = encoder.getMetrics();
+            assertThat(metrics.encodeCount()).isEqualTo(1);
+            assertThat(metrics.matchesCount()).isEqualTo(2);
+            assertThat(metrics.matchesMaxMs()).isGreaterThanOrEqualTo(metrics.matchesAvgMs()).isPositive();
+            assertThat(metrics.rejected()).isZero();
+            assertThat(metrics.threads()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void itShouldRejectWhenQueueIsFull() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var blocking = new BlockingEncoder(started, release);
+
+        try (var encoder = new BoundedPasswordEncoder(blocking, 1, 1)) {
+            var running = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            var queued = CompletableFuture.supplyAsync(() -> encoder.encode("second"));
+            while (encoder.getMetrics().queued() == 0)
+                Thread.onSpinWait();
+
+            assertThrows(ServiceUnavailableException.class, () -> encoder.encode("third"));
+
+            release.countDown();
+            assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+
+            var metrics = encoder.getMetrics();
+            assertThat(metrics.rejected()).isEqualTo(1);
+            assertThat(metrics.encodeCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void itShouldAskToUpgradeWeakerHashes() {
+        try (var encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(5), 1, 1)) {
+            assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password"))).isTrue();
+            assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("password"))).isFalse();
+        }
+    }
+
+    private record BlockingEncoder(CountDownLatch started, CountDownLatch release) implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package me.rudrade.todo.config;
+
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheRegionFactoryTest {
+
+    @Mock private RedisCacheRelay relay;
+    @Mock private DomainDataRegionConfig regionConfig;
+
+    private CacheRegionFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        factory = new CacheRegionFactory(relay, 100, 60);
+    }
+
+    private CacheRegionFactory.Storage entityRegion(String name) {
+        when(regionConfig.getRegionName()).thenReturn(name);
+        return (CacheRegionFactory.Storage) factory.createDomainDataStorageAccess(regionConfig, null);
+    }
+
+    @Test
+    void itShouldEvictEntitiesOnOtherInstances() {
+        var storage = entityRegion("tag");
+        var id = UUID.randomUUID();
+        storage.putIntoCache(id, "cached", null);
+
+        assertThat(storage.getFromCache(id, null)).isEqualTo("cached");
+
+        storage.removeFromCache(id, null);
+
+        assertThat(storage.getFromCache(id, null)).isNull();
+        verify(relay, times(1)).evict("tag", id);
+
+        storage.evictData();
+        verify(relay, times(1)).clear("tag");
+    }
+
+    @Test
+    void itShouldKeepQueryResultsLocal() {
+        var storage = factory.createQueryResultsRegionStorageAccess("tag-queries", null);
+
+        storage.putIntoCache("key", "result", null);
+        storage.evictData("key");
+        storage.evictData();
+
+        verify(relay, never()).evict(any(), any());
+        verify(relay, never()).clear(any());
+        verify(relay, never()).timestamp(any(), any(), anyLong());
+    }
+
+    @Test
+    void itShouldSendTableTimestamps() {
+        var storage = factory.createTimestampsRegionStorageAccess("timestamps", null);
+
+        factory.invalidateTable("tag");
+
+        assertThat(storage.getFromCache("tag", null)).isInstanceOf(Long.class);
+        verify(relay, times(1)).timestamp(eq("timestamps"), eq("tag"), anyLong());
+    }
+
+    @Test
+    void itShouldApplyInvalidationsOfOtherInstances() {
+        var tags = entityRegion("tag");
+        var timestamps = factory.createTimestampsRegionStorageAccess("timestamps", null);
+        var first = UUID.randomUUID();
+        var second = UUID.randomUUID();
+        tags.putIntoCache(first, "first", null);
+        tags.putIntoCache(second, "second", null);
+
+        factory.apply(new RedisCacheRelay.Invalidation(RedisCacheRelay.Kind.EVICT, "tag", first.toString(), 0));
+        assertThat(tags.contains(first)).isFalse();
+        assertThat(tags.contains(second)).isTrue();
+
+        factory.apply(new RedisCacheRelay.Invalidation(RedisCacheRelay.Kind.CLEAR, "tag", "-", 0));
+        assertThat(tags.contains(second)).isFalse();
+
+        factory.apply(new RedisCacheRelay.Invalidation(RedisCacheRelay.Kind.TIMESTAMP, "timestamps", "tag", 42L));
+        assertThat(timestamps.getFromCache("tag", null)).isEqualTo(42L);
+
+        factory.apply(new RedisCacheRelay.Invalidation(RedisCacheRelay.Kind.CLEAR, "unknown", "-", 0));
+        verify(relay, never()).evict(any(), any());
+        verify(relay, never()).clear(any());
+    }
+
+    @Test
+    void itShouldReportHitsPerRegion() {
+        var tags = entityRegion("tag");
+        var queries = factory.createQueryResultsRegionStorageAccess("tag-queries", null);
+        var id = UUID.randomUUID();
+        tags.putIntoCache(id, "cached", null);
+
+        tags.getFromCache(id, null);
+        tags.getFromCache(id, null);
+        tags.getFromCache(UUID.randomUUID(), null);
+        queries.getFromCache("key", null);
+
+        assertThat(factory.getRegionMetrics()).satisfiesExactly(
+            tag -> {
+                assertThat(tag.region()).isEqualTo("tag");
+                assertThat(tag.hits()).isEqualTo(2);
+                assertThat(tag.misses()).isEqualTo(1);
+                assertThat(tag.hitRatio()).isCloseTo(2.0 / 3, within(0.001));
+                assertThat(tag.size()).isEqualTo(1);
+            },
+            query -> {
+                assertThat(query.region()).isEqualTo("tag-queries");
+                assertThat(query.hitRatio()).isZero();
+            });
+    }
+
+    @Test
+    void itShouldBypassRegionsWhileInvalidationsMayBeMissed() {
+        var tags = entityRegion("tag");
+        var timestamps = factory.createTimestampsRegionStorageAccess("timestamps", null);
+        var id = UUID.randomUUID();
+        tags.putIntoCache(id, "cached", null);
+
+        when(relay.mayMissMessages()).thenReturn(true);
+
+        assertThat(tags.getFromCache(id, null)).isNull();
+        assertThat(tags.contains(id)).isFalse();
+        tags.putIntoCache(UUID.randomUUID(), "skipped", null);
+        factory.invalidateTable("tag");
+        verify(relay, times(1)).timestamp(eq("timestamps"), eq("tag"), anyLong());
+
+        when(relay.mayMissMessages()).thenReturn(false);
+
+        assertThat(tags.getFromCache(id, null)).isEqualTo("cached");
+        assertThat(timestamps.getFromCache("tag", null)).isInstanceOf(Long.class);
+        assertThat(factory.getRegionMetrics()).first().satisfies(tag -> assertThat(tag.size()).isEqualTo(1));
+
+        factory.clear();
+
+        assertThat(tags.getFromCache(id, null)).isNull();
+    }
+}
@@ -0,0 +1,115 @@
+package me.rudrade.todo.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder.EndpointConfiguration;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Minimal S3 compatible server for tests. It only stores objects sent with a path style PUT
+ * and answers with a new version id for each of them.
+ */
+public class LocalS3Server implements AutoCloseable {
+
+    private final HttpServer server;
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, String> contentTypes = new ConcurrentHashMap<>();
+
+    public LocalS3Server() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public AmazonS3 client() {
+        return AmazonS3ClientBuilder.standard()
+            .withEndpointConfiguration(new EndpointConfiguration("http://localhost:" + server.getAddress().getPort(), "us-east-1"))
+            .withPathStyleAccessEnabled(true)
+            .withCredentials(new AWSStaticCredentialsProvider(new BasicAWSCredentials("test", "test")))
+            .build();
+    }
+
+    public byte[] getObject(String bucket, String key) {
+        return objects.get(bucket + "/" + key);
+    }
+
+    public String getContentType(String bucket, String key) {
+        return contentTypes.get(bucket + "/" + key);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"PUT".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(501, -1);
+                return;
+            }
+
+            var path = exchange.getRequestURI().getPath().substring(1);
+            var body = exchange.getRequestBody().readAllBytes();
+            var sha256 = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+            if (sha256 != null && sha256.startsWith("STREAMING-"))
+                body = decodeChunks(body);
+
+            objects.put(path, body);
+            var contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            if (contentType != null)
+                contentTypes.put(path, contentType);
+
+            exchange.getResponseHeaders().add("ETag", "\"" + HexFormat.of().formatHex(md5(body)) + "\"");
+            exchange.getResponseHeaders().add("x-amz-version-id", UUID.randomUUID().toString());
+            exchange.sendResponseHeaders(200, -1);
+        }
+    }
+
+    // aws-chunked: <hex size>;chunk-signature=<signature>\r\n<data>\r\n, ending with a 0 sized chunk
+    private static byte[] decodeChunks(byte[] body) throws IOException {
+        var result = new ByteArrayOutputStream();
+        int position = 0;
+        while (position < body.length) {
+            int lineEnd = indexOfCrlf(body, position);
+            var header = new String(body, position, lineEnd - position, StandardCharsets.US_ASCII);
+            int size = Integer.parseInt(header.split(";")[0], 16);
+            if (size == 0)
+                break;
+
+            result.write(body, lineEnd + 2, size);
+            position = lineEnd + 2 + size + 2;
+        }
+        return result.toByteArray();
+    }
+
+    private static int indexOfCrlf(byte[] body, int from) throws IOException {
+        for (int i = from; i < body.length - 1; i++) {
+            if (body[i] == '\r' && body[i + 1] == '\n')
+                return i;
+        }
+        throw new IOException("Malformed chunk");
+    }
+
+    private static byte[] md5(byte[] body) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,123 @@
+package me.rudrade.todo.config;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Migrates a database holding only the baseline schema, as created by ddl-auto=update before the
+ * migrations, with the same Flyway settings as the app profiles.
+ */
+class MigrationTest {
+
+    private static final String SCHEMA = "migration_test";
+    private static final String PARAMETERS = "?useSSL=false&allowPublicKeyRetrieval=true&createDatabaseIfNotExist=true";
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    // Increasing ids, so the tag kept from duplicates is the first one inserted
+    private long nextId;
+
+    @BeforeEach
+    void createBaselineSchema() {
+        var container = SqlIntegrationTest.sqlContainer;
+        var server = "jdbc:mysql://" + container.getHost() + ":" + container.getMappedPort(3306);
+
+        new JdbcTemplate(new DriverManagerDataSource(server + "/" + PARAMETERS, "root", container.getPassword()))
+            .execute("drop database if exists " + SCHEMA);
+
+        dataSource = new DriverManagerDataSource(server + "/" + SCHEMA + PARAMETERS, "root", container.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__baseline_schema.sql")).execute(dataSource);
+    }
+
+    @Test
+    void itShouldMigrateFromTheBaselineSchema() {
+        var user = insertUser();
+        var work = insertTag(user, "Work");
+        var workDuplicate = insertTag(user, "work");
+        var home = insertTag(user, "Home");
+        var first = insertTask(user);
+        var second = insertTask(user);
+        link(work, first);
+        link(workDuplicate, first);
+        link(workDuplicate, second);
+        link(home, second);
+
+        var result = migrate();
+
+        assertThat(result.migrationsExecuted).isEqualTo(5);
+        assertThat(jdbcTemplate.queryForList("select name from tag order by name", String.class))
+            .containsExactly("Home", "Work");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from tag_task where tag_id = ?", Integer.class, work))
+            .isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from tag_task", Integer.class)).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from information_schema.tables where table_schema = ? and table_name = 'tag_duplicate'", Integer.class, SCHEMA))
+            .isZero();
+
+        assertThrows(DuplicateKeyException.class, () -> insertTag(user, "WORK"));
+    }
+
+    @Test
+    void itShouldCreateTheLaterTables() {
+        migrate();
+
+        assertThat(jdbcTemplate.queryForList(
+            "select table_name from information_schema.tables where table_schema = ? order by table_name", String.class, SCHEMA))
+            .contains("change_counter", "entity_change", "mail_outbox", "tag", "task");
+        assertThat(jdbcTemplate.queryForList(
+            "select distinct index_name from information_schema.statistics where table_schema = ?", String.class, SCHEMA))
+            .contains("uk_tag_user_name", "idx_tag_task_tag_task", "ft_task_title_description",
+                "idx_mail_outbox_status_next_attempt", "idx_entity_change_user_seq");
+    }
+
+    private MigrateResult migrate() {
+        return Flyway.configure()
+            .dataSource(dataSource)
+            .baselineOnMigrate(true)
+            .baselineVersion("1")
+            .load()
+            .migrate();
+    }
+
+    private byte[] insertUser() {
+        var id = bytes(new UUID(1, ++nextId));
+        jdbcTemplate.update("insert into user (id, username, email, password, is_active, role, language) values (?, 'user', 'user@mail.com', 'x', 1, 'ROLE_USER', 'EN')", id);
+        return id;
+    }
+
+    private byte[] insertTag(byte[] user, String name) {
+        var id = bytes(new UUID(1, ++nextId));
+        jdbcTemplate.update("insert into tag (id, user_id, name, color) values (?, ?, ?, 'black')", id, user, name);
+        return id;
+    }
+
+    private byte[] insertTask(byte[] user) {
+        var id = bytes(new UUID(1, ++nextId));
+        jdbcTemplate.update("insert into task (id, user_id, title) values (?, ?, 'task')", id, user);
+        return id;
+    }
+
+    private void link(byte[] tag, byte[] task) {
+        jdbcTemplate.update("insert into tag_task (tag_id, task_id) values (?, ?)", tag, task);
+    }
+
+    private static byte[] bytes(UUID id) {
+        return ByteBuffer.allocate(16)
+            .putLong(id.getMostSignificantBits())
+            .putLong(id.getLeastSignificantBits())
+            .array();
+    }
+}
@@ -0,0 +1,98 @@
+package me.rudrade.todo.config;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RatelimiterFilterTest {
+
+    @Mock private TieredRatelimiter ratelimiter;
+    @Mock private FilterChain chain;
+
+    private RatelimiterFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        filter = new RatelimiterFilter(ratelimiter);
+        ReflectionTestUtils.setField(filter, "profile", "prod");
+
+        request = new MockHttpServletRequest("GET", "/task");
+        request.setRemoteAddr("10.0.0.1");
+        request.setAsyncSupported(true);
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void itShouldContinueWhenDecidedLocally() throws Exception {
+        when(ratelimiter.tryConsume("10.0.0.1")).thenReturn(CompletableFuture.completedFuture(true));
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain, times(1)).doFilter(request, response);
+        assertThat(request.isAsyncStarted()).isFalse();
+    }
+
+    @Test
+    void itShouldRejectWhenDecidedLocally() throws Exception {
+        when(ratelimiter.tryConsume("10.0.0.1")).thenReturn(CompletableFuture.completedFuture(false));
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(429);
+        verifyNoInteractions(chain);
+    }
+
+    @Test
+    void itShouldDispatchWhenRedisAllows() throws Exception {
+        var decision = new CompletableFuture<Boolean>();
+        when(ratelimiter.tryConsume("10.0.0.1")).thenReturn(decision);
+
+        filter.doFilter(request, response, chain);
+        assertThat(request.isAsyncStarted()).isTrue();
+
+        decision.complete(true);
+
+        assertThat(request.getAsyncContext()).isNotNull();
+        assertThat(((MockAsyncContext) request.getAsyncContext()).getDispatchedPath()).isEqualTo("/task");
+        verifyNoInteractions(chain);
+    }
+
+    @Test
+    void itShouldRejectWhenRedisRejects() throws Exception {
+        var decision = new CompletableFuture<Boolean>();
+        when(ratelimiter.tryConsume("10.0.0.1")).thenReturn(decision);
+
+        filter.doFilter(request, response, chain);
+        decision.complete(false);
+
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getContentAsString()).isEqualTo("Too many requests");
+        verifyNoInteractions(chain);
+    }
+
+    @Test
+    void itShouldSkipLimitingOnAsyncDispatch() throws Exception {
+        request.setDispatcherType(DispatcherType.ASYNC);
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain, times(1)).doFilter(request, response);
+        verifyNoInteractions(ratelimiter);
+    }
+}
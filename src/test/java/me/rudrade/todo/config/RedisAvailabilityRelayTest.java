@@ -0,0 +1,23 @@
+package me.rudrade.todo.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedisAvailabilityRelayTest {
+
+    @Test
+    void itShouldReadMessagesOfOtherInstances() {
+        var message = RedisAvailabilityRelay.encode("other", -42L);
+
+        assertThat(RedisAvailabilityRelay.decode("this", message)).isEqualTo(-42L);
+        assertThat(RedisAvailabilityRelay.decode("other", message)).isNull();
+    }
+
+    @Test
+    void itShouldIgnoreInvalidMessages() {
+        assertThat(RedisAvailabilityRelay.decode("this", "other")).isNull();
+        assertThat(RedisAvailabilityRelay.decode("this", "other rui")).isNull();
+        assertThat(RedisAvailabilityRelay.decode("this", "other 1 2")).isNull();
+    }
+}
@@ -0,0 +1,88 @@
+package me.rudrade.todo.config;
+
+import io.github.bucket4j.BucketConfiguration;
+import io.lettuce.core.ConnectionFuture;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionException;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.RedisCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedisBucketPoolTest {
+
+    private static final RedisURI URI = RedisURI.builder().withHost("redis").withTimeout(Duration.ofMillis(100)).build();
+
+    @Mock private RedisClient redisClient;
+
+    private final BucketConfiguration configuration = BucketConfiguration.builder()
+        .addLimit(limit -> limit.capacity(3L).refillGreedy(3L, Duration.ofMinutes(1L)))
+        .build();
+
+    private static <T> ConnectionFuture<T> future(CompletableFuture<T> connection) {
+        return ConnectionFuture.from(InetSocketAddress.createUnresolved("redis", 6379), connection);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void itShouldNotWaitForTheConnection() {
+        var connecting = new CompletableFuture<StatefulRedisConnection<Object, Object>>();
+        when(redisClient.connectAsync(any(RedisCodec.class), eq(URI))).thenReturn(future(connecting));
+
+        try (var pool = new RedisBucketPool(redisClient, URI, configuration, 1, Duration.ofMinutes(1))) {
+            assertThat(pool.getBucket("a")).isNull();
+            assertThat(pool.getBucket("b")).isNull();
+
+            // Connected once, the later calls don't open another connection
+            verify(redisClient, times(1)).connectAsync(any(RedisCodec.class), eq(URI));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void itShouldRetryAfterTheDelayWhenConnectingFails() throws InterruptedException {
+        when(redisClient.connectAsync(any(RedisCodec.class), eq(URI)))
+            .thenReturn(future(CompletableFuture.failedFuture(new RedisConnectionException("down"))));
+
+        try (var pool = new RedisBucketPool(redisClient, URI, configuration, 1, Duration.ofMillis(50))) {
+            assertThat(pool.getBucket("a")).isNull();
+            assertThat(pool.getBucket("a")).isNull();
+            verify(redisClient, times(1)).connectAsync(any(RedisCodec.class), eq(URI));
+
+            Thread.sleep(100);
+
+            assertThat(pool.getBucket("a")).isNull();
+            verify(redisClient, times(2)).connectAsync(any(RedisCodec.class), eq(URI));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void itShouldCloseConnectionsOpenedAfterTheTimeout() {
+        var connecting = new CompletableFuture<StatefulRedisConnection<Object, Object>>();
+        var connection = mock(StatefulRedisConnection.class);
+        when(redisClient.connectAsync(any(RedisCodec.class), eq(URI))).thenReturn(future(connecting));
+
+        try (var pool = new RedisBucketPool(redisClient, URI, configuration, 1, Duration.ofMinutes(1))) {
+            assertThat(pool.getBucket("a")).isNull();
+
+            verify(connection, after(300).never()).close();
+            connecting.complete(connection);
+
+            verify(connection, timeout(1000).times(1)).close();
+            assertThat(pool.getBucket("a")).isNull();
+        }
+    }
+}
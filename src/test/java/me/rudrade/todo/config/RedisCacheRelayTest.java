@@ -0,0 +1,27 @@
+package me.rudrade.todo.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedisCacheRelayTest {
+
+    @Test
+    void itShouldReadMessagesOfOtherInstances() {
+        var invalidation = new RedisCacheRelay.Invalidation(RedisCacheRelay.Kind.EVICT, "user", UUID.randomUUID().toString(), 0);
+
+        var message = RedisCacheRelay.encode("other", invalidation);
+
+        assertThat(RedisCacheRelay.decode("this", message)).isEqualTo(invalidation);
+        assertThat(RedisCacheRelay.decode("other", message)).isNull();
+    }
+
+    @Test
+    void itShouldIgnoreInvalidMessages() {
+        assertThat(RedisCacheRelay.decode("this", "other")).isNull();
+        assertThat(RedisCacheRelay.decode("this", "other DROP tag - 0")).isNull();
+        assertThat(RedisCacheRelay.decode("this", "other TIMESTAMP timestamps tag now")).isNull();
+    }
+}
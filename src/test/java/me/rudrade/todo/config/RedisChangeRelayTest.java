@@ -0,0 +1,74 @@
+package me.rudrade.todo.config;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionException;
+import me.rudrade.todo.model.types.ChangeType;
+import me.rudrade.todo.service.ChangeEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RedisChangeRelayTest {
+
+    @Mock private RedisClient redisClient;
+
+    @Test
+    void itShouldReadMessagesOfOtherInstances() {
+        var event = new ChangeEvent(UUID.randomUUID(), ChangeType.TAG, 42L);
+
+        var message = RedisChangeRelay.encode("other", event);
+
+        assertThat(RedisChangeRelay.decode("this", message)).isEqualTo(event);
+        assertThat(RedisChangeRelay.decode("other", message)).isNull();
+    }
+
+    @Test
+    void itShouldIgnoreInvalidMessages() {
+        assertThat(RedisChangeRelay.decode("this", "other")).isNull();
+        assertThat(RedisChangeRelay.decode("this", "other not-a-uuid TAG 1")).isNull();
+        assertThat(RedisChangeRelay.decode("this", "other " + UUID.randomUUID() + " NOTE 1")).isNull();
+    }
+
+    @Test
+    void itShouldStopCallingRedisWhenItIsDown() throws InterruptedException {
+        when(redisClient.connect()).thenThrow(new RedisConnectionException("down"));
+        try (var relay = new RedisChangeRelay(redisClient, 60)) {
+            var event = new ChangeEvent(UUID.randomUUID(), ChangeType.TASK, 1L);
+
+            relay.publish(event);
+            for (int i = 0; i < 500 && !relay.isRedisDown(); i++) {
+                Thread.sleep(10);
+            }
+            assertThat(relay.isRedisDown()).isTrue();
+
+            relay.publish(event);
+            relay.listen(e -> {});
+
+            verify(redisClient, times(1)).connect();
+            verify(redisClient, never()).connectPubSub();
+        }
+    }
+
+    @Test
+    void itShouldCallEveryListener() {
+        try (var relay = new RedisChangeRelay(redisClient, 60)) {
+            var event = new ChangeEvent(UUID.randomUUID(), ChangeType.LIST, 3L);
+            var received = new ArrayList<ChangeEvent>();
+
+            relay.listen(e -> { throw new IllegalStateException("failing listener"); });
+            relay.listen(received::add);
+            relay.receive(RedisChangeRelay.encode("other", event));
+            relay.receive(RedisChangeRelay.encode(relay.instanceId(), event));
+
+            assertThat(received).containsExactly(event);
+        }
+    }
+}
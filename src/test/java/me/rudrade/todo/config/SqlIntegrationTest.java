@@ -4,7 +4,10 @@ import me.rudrade.todo.model.User;
 import me.rudrade.todo.model.types.Language;
 import me.rudrade.todo.model.types.Role;
 import me.rudrade.todo.repository.UserRepository;
+import me.rudrade.todo.service.SummaryCache;
 
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -15,8 +18,8 @@ import org.testcontainers.containers.MySQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
-import io.github.bucket4j.distributed.proxy.ProxyManager;
 import io.lettuce.core.RedisClient;
+import jakarta.persistence.EntityManagerFactory;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -49,6 +52,17 @@ public abstract class SqlIntegrationTest {
 
     @Autowired private UserRepository userRepository;
     @Autowired public PasswordEncoder encoder;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    // Not in the repository slices
+    @Autowired(required = false) private SummaryCache summaryCache;
+
+    // SQL scripts write behind Hibernate and the services, and rolled back tests leave what they read cached
+    @BeforeEach
+    void clearCaches() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        if (summaryCache != null)
+            summaryCache.clear();
+    }
 
     public User getTestUser() {
         Optional<User> user = userRepository.findByUsername(TEST_USERNAME);
@@ -89,7 +103,10 @@ public abstract class SqlIntegrationTest {
     }
 
     @MockitoBean private RedisClient client;
-    @MockitoBean private ProxyManager<String> proxyManager;
+    @MockitoBean private RedisBucketPool bucketPool;
+    @MockitoBean private RedisChangeRelay changeRelay;
+    @MockitoBean private RedisCacheRelay cacheRelay;
+    @MockitoBean private RedisAvailabilityRelay availabilityRelay;
 
 }
 
@@ -0,0 +1,157 @@
+package me.rudrade.todo.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import me.rudrade.todo.dto.UserLoginDto;
+import me.rudrade.todo.dto.response.LoginResponse;
+import me.rudrade.todo.repository.UserRepository;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput and p99 latency of GET /task on the running app against MySQL, first with
+ * spring.threads.virtual.enabled=true and then with Tomcat's default 200 platform threads.
+ * Both runs share the default 10 connection Hikari pool and send more concurrent requests than Tomcat has threads.
+ * Run with {@code mvn test -Dtodo.benchmark=true -Dtest=ThreadModeBenchmarkTest}, it needs Docker for the MySQL container.
+ */
+@EnabledIfSystemProperty(named = "todo.benchmark", matches = "true")
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+class ThreadModeBenchmarkTest {
+
+    private static final int TASKS = 200;
+    private static final int CLIENTS = 400;
+    private static final int WARMUP = 2_000;
+    private static final int REQUESTS = 10_000;
+
+    @Nested
+    @Order(1)
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+    class VirtualThreads extends Benchmark {
+    }
+
+    @Nested
+    @Order(2)
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+    class PlatformThreads extends Benchmark {
+    }
+
+    // Requests share the client address, so the limit is raised out of the way
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "todo.app.ratelimit.capacity=1000000000")
+    @Import(ConfigurationUtil.MailSender.class)
+    abstract static class Benchmark extends SqlIntegrationTest {
+
+        @LocalServerPort private int port;
+        @Value("${spring.threads.virtual.enabled}") private boolean virtualThreads;
+
+        @Autowired private JdbcTemplate jdbcTemplate;
+        @Autowired private UserRepository userRepository;
+        @Autowired private ObjectMapper mapper;
+
+        @Test
+        void getTasks() throws Exception {
+            var user = createUser();
+            user.setActive(true);
+            user = userRepository.save(user);
+            insertTasks(user.getId());
+
+            try (var client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build()) {
+                var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/task?size=50"))
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + login(client, user.getUsername()))
+                    .GET()
+                    .build();
+
+                run(client, request, new long[WARMUP]);
+
+                var latencies = new long[REQUESTS];
+                var start = System.nanoTime();
+                run(client, request, latencies);
+                var elapsed = System.nanoTime() - start;
+
+                Arrays.sort(latencies);
+                System.out.printf("%s threads: %.0f requests/s, p50 %.1f ms, p99 %.1f ms%n",
+                    virtualThreads ? "virtual" : "platform",
+                    REQUESTS / (elapsed / 1e9),
+                    latencies[REQUESTS / 2] / 1e6,
+                    latencies[REQUESTS * 99 / 100] / 1e6);
+            } finally {
+                jdbcTemplate.update("delete from task where user_id = ?", bytes(user.getId()));
+                userRepository.delete(user);
+            }
+        }
+
+        // Each client sends its share of the requests one after the other
+        private void run(HttpClient client, HttpRequest request, long[] latencies) throws Exception {
+            try (var clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> results = new ArrayList<>(CLIENTS);
+                for (int c = 0; c < CLIENTS; c++) {
+                    var first = c;
+                    results.add(clients.submit(() -> {
+                        for (int i = first; i < latencies.length; i += CLIENTS) {
+                            var start = System.nanoTime();
+                            var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            latencies[i] = System.nanoTime() - start;
+                            assertThat(response.statusCode()).isEqualTo(200);
+                        }
+                        return null;
+                    }));
+                }
+                for (var result : results) {
+                    result.get();
+                }
+            }
+        }
+
+        private String login(HttpClient client, String username) throws Exception {
+            var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/auth/login"))
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(new UserLoginDto(username, "test"))))
+                .build();
+
+            var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            assertThat(response.statusCode()).isEqualTo(200);
+            return mapper.readValue(response.body(), LoginResponse.class).token();
+        }
+
+        private void insertTasks(UUID userId) {
+            List<Object[]> rows = new ArrayList<>(TASKS);
+            for (int i = 0; i < TASKS; i++) {
+                rows.add(new Object[] {bytes(UUID.randomUUID()), "Task " + i, "Description of task " + i, bytes(userId)});
+            }
+            jdbcTemplate.batchUpdate("insert into task (id, title, description, user_id) values (?, ?, ?, ?)", rows);
+        }
+
+        private static byte[] bytes(UUID id) {
+            return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+        }
+    }
+}
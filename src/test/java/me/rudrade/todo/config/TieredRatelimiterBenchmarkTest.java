@@ -0,0 +1,72 @@
+package me.rudrade.todo.config;
+
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Per request latency with and without the local tier, against a Redis stand-in with a fixed
+ * round-trip. Run with {@code mvn test -Dtodo.benchmark=true -Dtest=TieredRatelimiterBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "todo.benchmark", matches = "true")
+class TieredRatelimiterBenchmarkTest {
+
+    private static final long ROUND_TRIP_NANOS = Duration.ofMillis(1).toNanos() / 4;
+    private static final int WARMUP = 2_000;
+    private static final int REQUESTS = 20_000;
+
+    private final BucketConfiguration configuration = BucketConfiguration.builder()
+        .addLimit(limit -> limit.capacity(Long.MAX_VALUE / 2).refillGreedy(1L, Duration.ofMinutes(1L)))
+        .build();
+
+    @Test
+    void redisOnly() {
+        report("redis only", ratelimiter(1));
+    }
+
+    @Test
+    void withLocalTier() {
+        report("local tier, batch 5", ratelimiter(5));
+        report("local tier, batch 20", ratelimiter(20));
+    }
+
+    private TieredRatelimiter ratelimiter(long batchSize) {
+        RedisBucketPool bucketPool = mock(RedisBucketPool.class);
+        AsyncBucketProxy bucket = mock(AsyncBucketProxy.class);
+
+        when(bucketPool.getBucket(anyString())).thenReturn(bucket);
+        when(bucket.tryConsumeAsMuchAsPossible(anyLong())).thenAnswer(invocation -> {
+            long tokens = invocation.getArgument(0);
+            return CompletableFuture.supplyAsync(() -> {
+                LockSupport.parkNanos(ROUND_TRIP_NANOS);
+                return tokens;
+            });
+        });
+
+        return new TieredRatelimiter(bucketPool, configuration, batchSize, 10, 1000, 300);
+    }
+
+    private void report(String name, TieredRatelimiter ratelimiter) {
+        for (int i = 0; i < WARMUP; i++) {
+            ratelimiter.tryConsume("warmup").join();
+        }
+
+        var start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            assertThat(ratelimiter.tryConsume("client").join()).isTrue();
+        }
+        var elapsed = System.nanoTime() - start;
+
+        System.out.printf("%s: %.2f us/request, %d Redis calls for %d requests%n",
+            name, elapsed / 1000.0 / REQUESTS, ratelimiter.getRedisCalls(), REQUESTS + WARMUP);
+    }
+}
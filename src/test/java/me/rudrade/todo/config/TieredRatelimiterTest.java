@@ -0,0 +1,127 @@
+package me.rudrade.todo.config;
+
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.lettuce.core.RedisConnectionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TieredRatelimiterTest {
+
+    private static final String KEY = "127.0.0.1";
+
+    @Mock private RedisBucketPool bucketPool;
+    @Mock private AsyncBucketProxy bucket;
+
+    private final BucketConfiguration configuration = BucketConfiguration.builder()
+        .addLimit(limit -> limit.capacity(3L).refillGreedy(3L, Duration.ofMinutes(1L)))
+        .build();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(bucketPool.getBucket(KEY)).thenReturn(bucket);
+    }
+
+    @Test
+    void itShouldReserveTokensInBatches() {
+        when(bucket.tryConsumeAsMuchAsPossible(5L)).thenReturn(granted(5L));
+        var ratelimiter = ratelimiter(5, 10);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(ratelimiter.tryConsume(KEY)).isCompletedWithValue(true);
+        }
+
+        verify(bucket, times(2)).tryConsumeAsMuchAsPossible(5L);
+        assertThat(ratelimiter.getRedisCalls()).isEqualTo(2);
+        assertThat(ratelimiter.getLocalHits()).isEqualTo(8);
+    }
+
+    @Test
+    void itShouldRejectWhenRedisGrantsNothing() {
+        when(bucket.tryConsumeAsMuchAsPossible(5L)).thenReturn(granted(2L), granted(0L));
+        var ratelimiter = ratelimiter(5, 10);
+
+        assertThat(ratelimiter.tryConsume(KEY)).isCompletedWithValue(true);
+        assertThat(ratelimiter.tryConsume(KEY)).isCompletedWithValue(true);
+        assertThat(ratelimiter.tryConsume(KEY)).isCompletedWithValue(false);
+
+        verify(bucket, times(2)).tryConsumeAsMuchAsPossible(5L);
+    }
+
+    @Test
+    void itShouldLimitLocallyWhenRedisIsDown() {
+        when(bucket.tryConsumeAsMuchAsPossible(anyLong())).thenReturn(CompletableFuture.failedFuture(new RedisConnectionException("down")));
+        var ratelimiter = ratelimiter(5, 60);
+
+        assertThat(ratelimiter.tryConsume(KEY)).isCompletedWithValue(true);
+        assertThat(ratelimiter.tryConsume(KEY)).isCompletedWithValue(true);
+        assertThat(ratelimiter.tryConsume(KEY)).isCompletedWithValue(true);
+        assertThat(ratelimiter.tryConsume(KEY)).isCompletedWithValue(false);
+
+        // Redis isn't retried until the retry window passes
+        verify(bucket, times(1)).tryConsumeAsMuchAsPossible(anyLong());
+        assertThat(ratelimiter.isRedisDown()).isTrue();
+        assertThat(ratelimiter.getFallbackCalls()).isEqualTo(4);
+    }
+
+    @Test
+    void itShouldLimitLocallyWhileConnecting() {
+        when(bucketPool.getBucket(KEY)).thenReturn(null, bucket);
+        when(bucket.tryConsumeAsMuchAsPossible(5L)).thenReturn(granted(5L));
+        var ratelimiter = ratelimiter(5, 60);
+
+        assertThat(ratelimiter.tryConsume(KEY)).isCompletedWithValue(true);
+        assertThat(ratelimiter.isRedisDown()).isFalse();
+        assertThat(ratelimiter.tryConsume(KEY)).isCompletedWithValue(true);
+
+        verify(bucket, times(1)).tryConsumeAsMuchAsPossible(5L);
+        assertThat(ratelimiter.getFallbackCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldGoBackToRedisWhenItRecovers() {
+        when(bucket.tryConsumeAsMuchAsPossible(1L))
+            .thenReturn(CompletableFuture.failedFuture(new RedisConnectionException("down")))
+            .thenReturn(granted(1L));
+        var ratelimiter = ratelimiter(1, 0);
+
+        assertThat(ratelimiter.tryConsume(KEY)).isCompletedWithValue(true);
+        assertThat(ratelimiter.isRedisDown()).isTrue();
+
+        assertThat(ratelimiter.tryConsume(KEY)).isCompletedWithValue(true);
+        assertThat(ratelimiter.isRedisDown()).isFalse();
+        verify(bucket, times(2)).tryConsumeAsMuchAsPossible(1L);
+    }
+
+    @Test
+    void itShouldRemoveIdleKeysWhenFull() {
+        when(bucketPool.getBucket(anyString())).thenReturn(bucket);
+        when(bucket.tryConsumeAsMuchAsPossible(1L)).thenReturn(granted(1L));
+        var ratelimiter = new TieredRatelimiter(bucketPool, configuration, 1, 10, 2, 0);
+
+        ratelimiter.tryConsume("a");
+        ratelimiter.tryConsume("b");
+        ratelimiter.tryConsume("c");
+
+        assertThat(ratelimiter.size()).isLessThanOrEqualTo(2);
+    }
+
+    private TieredRatelimiter ratelimiter(long batchSize, long redisRetrySeconds) {
+        return new TieredRatelimiter(bucketPool, configuration, batchSize, redisRetrySeconds, 1000, 300);
+    }
+
+    private static CompletableFuture<Long> granted(long tokens) {
+        return CompletableFuture.completedFuture(tokens);
+    }
+}
@@ -0,0 +1,81 @@
+package me.rudrade.todo.config;
+
+import me.rudrade.todo.util.ServiceUtil;
+import me.rudrade.todo.util.UuidV7;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Insert throughput into a BINARY(16) primary key with random (v4) and time ordered (v7) ids, reported
+ * per million rows so the slowdown of random keys shows as the table outgrows the buffer pool.
+ * Run with {@code mvn test -Dtodo.benchmark=true -Dtodo.benchmark.rows=20000000 -Dtest=UuidInsertBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "todo.benchmark", matches = "true")
+class UuidInsertBenchmarkTest {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final int REPORT_EVERY = 1_000_000;
+    private static final long ROWS = Long.getLong("todo.benchmark.rows", 2_000_000L);
+
+    @Test
+    void randomIds() throws SQLException {
+        report("v4", "bench_uuid_v4", UUID::randomUUID);
+    }
+
+    @Test
+    void timeOrderedIds() throws SQLException {
+        report("v7", "bench_uuid_v7", UuidV7::next);
+    }
+
+    private void report(String name, String table, Supplier<UUID> ids) throws SQLException {
+        var container = SqlIntegrationTest.sqlContainer;
+        var url = container.getJdbcUrl() + (container.getJdbcUrl().contains("?") ? "&" : "?") + "rewriteBatchedStatements=true";
+
+        try (Connection connection = DriverManager.getConnection(url, container.getUsername(), container.getPassword())) {
+            try (var statement = connection.createStatement()) {
+                statement.execute("drop table if exists " + table);
+                statement.execute("create table " + table + " (id binary(16) not null primary key, user_id binary(16) not null, title varchar(100) not null)");
+            }
+            connection.setAutoCommit(false);
+
+            var userId = ServiceUtil.toBytes(UUID.randomUUID());
+            var start = System.nanoTime();
+            var chunkStart = start;
+            try (var insert = connection.prepareStatement("insert into " + table + " (id, user_id, title) values (?, ?, ?)")) {
+                for (long row = 1; row <= ROWS; row++) {
+                    insert.setBytes(1, ServiceUtil.toBytes(ids.get()));
+                    insert.setBytes(2, userId);
+                    insert.setString(3, "task " + row);
+                    insert.addBatch();
+
+                    if (row % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                        connection.commit();
+                    }
+                    if (row % REPORT_EVERY == 0) {
+                        var now = System.nanoTime();
+                        System.out.printf("%s: %,d rows, %.0f rows/s%n", name, row, REPORT_EVERY / ((now - chunkStart) / 1e9));
+                        chunkStart = now;
+                    }
+                }
+                insert.executeBatch();
+                connection.commit();
+            }
+
+            System.out.printf("%s: %,d rows in %.1f s%n", name, ROWS, (System.nanoTime() - start) / 1e9);
+            try (var statement = connection.createStatement();
+                 var count = statement.executeQuery("select count(*) from " + table)) {
+                assertThat(count.next()).isTrue();
+                assertThat(count.getLong(1)).isEqualTo(ROWS);
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package me.rudrade.todo.controller;
+
+import me.rudrade.todo.config.ControllerIntegration;
+import me.rudrade.todo.dto.response.AvailabilityMetricsResponse;
+import me.rudrade.todo.dto.response.CacheMetricsResponse;
+import me.rudrade.todo.dto.response.MailMetricsResponse;
+import me.rudrade.todo.dto.response.PasswordMetricsResponse;
+import me.rudrade.todo.dto.response.PoolMetricsResponse;
+import me.rudrade.todo.dto.response.RatelimitMetricsResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.assertj.MockMvcTester;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetricsControllerTest extends ControllerIntegration {
+
+    private static final String URI_POOL = "/metrics/pool";
+
+    @Autowired private MockMvcTester mvc;
+
+    @Test
+    void itShouldReturnPoolMetrics() {
+        assertThat(mvc.get().uri(URI_POOL).headers(getAdminAuthHeader()))
+            .hasStatusOk()
+            .bodyJson()
+            .convertTo(PoolMetricsResponse.class)
+            .satisfies(metrics -> {
+                assertThat(metrics.pool()).isEqualTo("todo-pool");
+                assertThat(metrics.total()).isPositive();
+                assertThat(metrics.maxSize()).isGreaterThanOrEqualTo(metrics.total());
+            });
+    }
+
+    @Test
+    void itShouldReturnRatelimitMetrics() {
+        assertThat(mvc.get().uri("/metrics/ratelimit").headers(getAdminAuthHeader()))
+            .hasStatusOk()
+            .bodyJson()
+            .convertTo(RatelimitMetricsResponse.class)
+            .satisfies(metrics -> assertThat(metrics.redisDown()).isFalse());
+    }
+
+    @Test
+    void itShouldReturnMailMetrics() {
+        assertThat(mvc.get().uri("/metrics/mail").headers(getAdminAuthHeader()))
+            .hasStatusOk()
+            .bodyJson()
+            .convertTo(MailMetricsResponse.class)
+            .satisfies(metrics -> {
+                assertThat(metrics.sent()).isNotNegative();
+                assertThat(metrics.remaining()).isNotNegative();
+            });
+    }
+
+    @Test
+    void itShouldReturnCacheMetrics() {
+        assertThat(mvc.get().uri("/metrics/cache").headers(getAdminAuthHeader()))
+            .hasStatusOk()
+            .bodyJson()
+            .convertTo(CacheMetricsResponse.class)
+            .satisfies(metrics -> {
+                assertThat(metrics.tagHits()).isNotNegative();
+                assertThat(metrics.listMisses()).isNotNegative();
+                assertThat(metrics.size()).isNotNegative();
+            });
+    }
+
+    @Test
+    void itShouldReturnPasswordMetrics() {
+        assertThat(mvc.get().uri("/metrics/password").headers(getAdminAuthHeader()))
+            .hasStatusOk()
+            .bodyJson()
+            .convertTo(PasswordMetricsResponse.class)
+            .satisfies(metrics -> {
+                assertThat(metrics.threads()).isPositive();
+                assertThat(metrics.rejected()).isNotNegative();
+                assertThat(metrics.queued()).isNotNegative();
+            });
+    }
+
+    @Test
+    void itShouldReturnAvailabilityMetrics() {
+        assertThat(mvc.get().uri("/metrics/availability").headers(getAdminAuthHeader()))
+            .hasStatusOk()
+            .bodyJson()
+            .convertTo(AvailabilityMetricsResponse.class)
+            .satisfies(metrics -> {
+                assertThat(metrics.checks()).isGreaterThanOrEqualTo(metrics.skipped());
+                assertThat(metrics.falsePositives()).isNotNegative();
+            });
+    }
+
+    @Test
+    void itShouldForbidPoolMetricsForUsers() {
+        assertThat(mvc.get().uri(URI_POOL).headers(getAuthHeader()))
+            .hasStatus(HttpStatus.FORBIDDEN);
+    }
+}
@@ -9,6 +9,8 @@ import me.rudrade.todo.model.User;
 import me.rudrade.todo.repository.TagRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.web.servlet.assertj.MockMvcTester;
 
 import java.util.Comparator;
@@ -45,6 +47,30 @@ class TagControllerTest extends ControllerIntegration {
             );
     }
 
+    @Test
+    void itShouldAnswerNotModifiedUntilTagsChange() {
+        var user = getTestUser();
+
+        var first = mvc.get().uri(BASE_URI).headers(getAuthHeader()).exchange();
+        assertThat(first).hasStatusOk();
+        var etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotBlank();
+
+        assertThat(mvc.get().uri(BASE_URI).headers(getAuthHeader()).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .hasStatus(HttpStatus.NOT_MODIFIED)
+            .hasHeader(HttpHeaders.ETAG, etag)
+            .body().isEmpty();
+
+        Tag tag = new Tag(null, "tag-etag", "black", user, null);
+        tagRepository.save(tag);
+        assertThat(mvc.delete().uri(BASE_URI + "/{id}", tag.getId()).headers(getAuthHeader()))
+            .hasStatusOk();
+
+        var afterDelete = mvc.get().uri(BASE_URI).headers(getAuthHeader()).header(HttpHeaders.IF_NONE_MATCH, etag).exchange();
+        assertThat(afterDelete).hasStatusOk();
+        assertThat(afterDelete.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+    }
+
     @Test
     void itShouldDeleteTag() {
         var user = getTestUser();
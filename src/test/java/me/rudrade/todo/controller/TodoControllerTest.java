@@ -1,16 +1,24 @@
 package me.rudrade.todo.controller;
 
 import me.rudrade.todo.config.ControllerIntegration;
+import me.rudrade.todo.dto.TagDto;
+import me.rudrade.todo.dto.TaskBatchDto;
 import me.rudrade.todo.dto.TaskDto;
+import me.rudrade.todo.dto.TaskOperationDto;
 import me.rudrade.todo.dto.UserListDto;
 import me.rudrade.todo.dto.filter.TaskListFilter;
+import me.rudrade.todo.dto.response.TaskBatchResponse;
+import me.rudrade.todo.dto.response.TaskChangesResponse;
 import me.rudrade.todo.dto.response.TaskListResponse;
+import me.rudrade.todo.dto.response.TaskOperationResult;
 import me.rudrade.todo.dto.response.UserListResponse;
+import me.rudrade.todo.dto.types.TaskOperationType;
 import me.rudrade.todo.exception.InvalidDataException;
 import me.rudrade.todo.model.User;
 import me.rudrade.todo.service.TaskService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.jdbc.Sql;
@@ -18,6 +26,7 @@ import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
 import org.springframework.test.web.servlet.assertj.MockMvcTester;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.*;
@@ -31,6 +40,8 @@ class TodoControllerTest extends ControllerIntegration {
     private static final String URI_GET_DETAIL = "/task/detail/{id}";
     private static final String URI_DELETE = "/task/remove/{id}";
     private static final String URI_GET_LISTS= "/task/lists";
+    private static final String URI_BATCH = "/task/batch";
+    private static final String URI_CHANGES = "/task/changes";
 
     @Autowired private TaskService taskService;
 
@@ -82,6 +93,38 @@ class TodoControllerTest extends ControllerIntegration {
         .hasStatus(HttpStatus.BAD_REQUEST);
     }
 
+    @Test
+    void itShouldApplyBatch() throws Exception {
+        var existing = taskService.saveTask(new TaskDto(null, "batch update", null, null, null, null), getTestUser());
+        var removed = taskService.saveTask(new TaskDto(null, "batch delete", null, null, null, null), getTestUser());
+
+        var batch = new TaskBatchDto(List.of(
+            new TaskOperationDto(TaskOperationType.SAVE, null, new TaskDto(null, "batch new", null, null, "test-list-2", List.of(new TagDto("batch-tag", "#ffffff")))),
+            new TaskOperationDto(TaskOperationType.SAVE, null, new TaskDto(existing.getId(), "batch updated", null, null, "test-list-2", List.of(new TagDto("batch-tag", "#ffffff")))),
+            new TaskOperationDto(TaskOperationType.DELETE, removed.getId(), null),
+            new TaskOperationDto(TaskOperationType.DELETE, UUID.randomUUID(), null)
+        ));
+
+        assertThat(mvc.post().uri(URI_BATCH)
+            .contentType(MediaType.APPLICATION_JSON)
+            .headers(getAuthHeader())
+            .content(mapper().writeValueAsString(batch))
+        )
+        .hasStatusOk()
+        .bodyJson().convertTo(TaskBatchResponse.class)
+        .satisfies(response -> {
+            assertThat(response.results()).extracting(TaskOperationResult::success).containsExactly(true, true, true, false);
+            assertThat(response.results().get(0).id()).isNotNull();
+            assertThat(response.results().get(1).task().getTitle()).isEqualTo("batch updated");
+            assertThat(response.results().get(1).task().getListName()).isEqualTo("test-list-2");
+        });
+
+        var user = getTestUser();
+        assertThat(taskService.getById(existing.getId(), user).getTitle()).isEqualTo("batch updated");
+        var removedId = removed.getId();
+        assertThrows(InvalidDataException.class, () -> taskService.getById(removedId, user));
+    }
+
     @Test
     void itShouldGetAll() {
         assertThat(mvc.get().uri(URI_GET_ALL)
@@ -129,6 +172,43 @@ class TodoControllerTest extends ControllerIntegration {
         });
     }
 
+    @Test
+    void itShouldGetAllPaged() {
+        var firstPage = assertThat(mvc.get().uri(URI_GET_ALL)
+            .headers(getAuthHeader())
+            .queryParam("size", "1")
+            .queryParam("withTotal", "true")
+        ).hasStatusOk()
+        .bodyJson().convertTo(TaskListResponse.class)
+        .satisfies(response -> {
+            assertThat(response.tasks()).hasSize(1);
+            assertThat(response.count()).isGreaterThan(1L);
+            assertThat(response.nextCursor()).isNotBlank();
+        })
+        .actual();
+
+        assertThat(mvc.get().uri(URI_GET_ALL)
+            .headers(getAuthHeader())
+            .queryParam("size", "1")
+            .queryParam("cursor", firstPage.nextCursor())
+        ).hasStatusOk()
+        .bodyJson().convertTo(TaskListResponse.class)
+        .satisfies(response -> {
+            assertThat(response.tasks())
+                .hasSize(1)
+                .doesNotContainAnyElementsOf(firstPage.tasks());
+            assertThat(response.count()).isNull();
+        });
+    }
+
+    @Test
+    void itShouldReturnBadRequestWhenCursorIsInvalid() {
+        assertThat(mvc.get().uri(URI_GET_ALL)
+            .headers(getAuthHeader())
+            .queryParam("cursor", "invalid")
+        ).hasStatus(HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     void itShouldGetDetail() {
         TaskDto input = new TaskDto(
@@ -188,6 +268,57 @@ class TodoControllerTest extends ControllerIntegration {
         ).hasStatus(HttpStatus.BAD_REQUEST);
     }
 
+    @Test
+    void itShouldAnswerNotModifiedUntilTasksChange() throws Exception {
+        var first = mvc.get().uri(URI_GET_ALL).headers(getAuthHeader()).exchange();
+        assertThat(first).hasStatusOk();
+        var etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotBlank();
+
+        var lists = mvc.get().uri(URI_GET_LISTS).headers(getAuthHeader()).exchange();
+        var listsEtag = lists.getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(mvc.get().uri(URI_GET_ALL).headers(getAuthHeader()).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .hasStatus(HttpStatus.NOT_MODIFIED)
+            .body().isEmpty();
+        assertThat(mvc.get().uri(URI_GET_LISTS).headers(getAuthHeader()).header(HttpHeaders.IF_NONE_MATCH, "W/" + listsEtag))
+            .hasStatus(HttpStatus.NOT_MODIFIED);
+
+        assertThat(mvc.post().uri(URI_SAVE_TASK)
+            .contentType(MediaType.APPLICATION_JSON)
+            .headers(getAuthHeader())
+            .content(mapper().writeValueAsString(new TaskDto(null, "etag task", null, null, null, null))))
+            .hasStatusOk();
+
+        var changed = mvc.get().uri(URI_GET_ALL).headers(getAuthHeader()).header(HttpHeaders.IF_NONE_MATCH, etag).exchange();
+        assertThat(changed).hasStatusOk();
+        assertThat(changed.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(etag);
+        assertThat(mvc.get().uri(URI_GET_LISTS).headers(getAuthHeader()).header(HttpHeaders.IF_NONE_MATCH, listsEtag))
+            .hasStatusOk();
+    }
+
+    @Test
+    void itShouldReturnChangesSinceLastSequence() throws Exception {
+        var before = mvc.get().uri(URI_CHANGES).headers(getAuthHeader()).exchange();
+        assertThat(before).hasStatusOk();
+        long since = mapper().readValue(before.getResponse().getContentAsString(), TaskChangesResponse.class).seq();
+
+        User user = getTestUser();
+        TaskDto saved = taskService.saveTask(new TaskDto(null, "changed task", null, null, null, null), user);
+        TaskDto removed = taskService.saveTask(new TaskDto(null, "removed task", null, null, null, null), user);
+        taskService.deleteById(removed.getId(), user);
+
+        assertThat(mvc.get().uri(URI_CHANGES).param("since", String.valueOf(since)).headers(getAuthHeader()))
+            .hasStatusOk()
+            .bodyJson()
+            .convertTo(TaskChangesResponse.class)
+            .satisfies(response -> {
+                assertThat(response.seq()).isGreaterThan(since);
+                assertThat(response.tasks()).extracting(TaskDto::getId).containsExactly(saved.getId());
+                assertThat(response.deletedTasks()).containsExactly(removed.getId());
+            });
+    }
+
     @Test
     void itShouldReturnUserLists() {
         assertThat(mvc.get().uri(URI_GET_LISTS).headers(getAuthHeader()))
@@ -201,4 +332,28 @@ class TodoControllerTest extends ControllerIntegration {
             });
     }
 
+    @Test
+    void itShouldCountSavedTasksInCachedListSummaries() throws Exception {
+        long before = listCount("test-list-2");
+        assertThat(listCount("test-list-2")).isEqualTo(before);
+
+        assertThat(mvc.post().uri(URI_SAVE_TASK)
+            .contentType(MediaType.APPLICATION_JSON)
+            .headers(getAuthHeader())
+            .content(mapper().writeValueAsString(new TaskDto(null, "counted task", null, null, "test-list-2", null))))
+            .hasStatusOk();
+
+        assertThat(listCount("test-list-2")).isEqualTo(before + 1);
+    }
+
+    private long listCount(String name) throws Exception {
+        var result = mvc.get().uri(URI_GET_LISTS).headers(getAuthHeader()).exchange();
+        assertThat(result).hasStatusOk();
+        return mapper().readValue(result.getResponse().getContentAsString(), UserListResponse.class).lists().stream()
+            .filter(list -> list.name().equals(name))
+            .mapToLong(UserListDto::count)
+            .findFirst()
+            .orElseThrow();
+    }
+
 }
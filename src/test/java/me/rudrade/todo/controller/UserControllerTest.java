@@ -12,6 +12,7 @@ import me.rudrade.todo.dto.PasswordResetDto;
 import me.rudrade.todo.dto.UserChangeDto;
 import me.rudrade.todo.dto.UserDto;
 import me.rudrade.todo.dto.UserRequestDto;
+import me.rudrade.todo.dto.response.AvailabilityResponse;
 import me.rudrade.todo.dto.response.RequestListResponse;
 import me.rudrade.todo.dto.response.UsersResponse;
 import me.rudrade.todo.dto.types.UserSearchType;
@@ -19,7 +20,9 @@ import me.rudrade.todo.model.PasswordRequest;
 import me.rudrade.todo.model.User;
 import me.rudrade.todo.model.UserRequest;
 import me.rudrade.todo.model.types.Language;
+import me.rudrade.todo.model.types.MailType;
 import me.rudrade.todo.model.types.Role;
+import me.rudrade.todo.repository.MailOutboxRepository;
 import me.rudrade.todo.repository.PasswordRequestRepository;
 import me.rudrade.todo.repository.UserRepository;
 import me.rudrade.todo.repository.UserRequestRepository;
@@ -44,6 +47,7 @@ class UserControllerTest extends ControllerIntegration {
     @Autowired private UserRequestRepository userRequestRepository;
     @Autowired private UserRepository userRepository;
     @Autowired private PasswordRequestRepository passwordRequestRepository;
+    @Autowired private MailOutboxRepository mailOutboxRepository;
 
     @Test
     void itShouldCreateUserRequestWhenAdmin() throws Exception {
@@ -72,6 +76,28 @@ class UserControllerTest extends ControllerIntegration {
         ).hasStatus(HttpStatus.CONFLICT);
     }
 
+    @Test
+    void itShouldReturnAvailabilityWithoutAuthentication() {
+        User existing = getTestUser();
+
+        assertThat(mvc.get().uri("/users/availability")
+            .param("username", existing.getUsername())
+            .param("email", "free-" + UUID.randomUUID() + "@mail.com")
+        ).hasStatusOk()
+        .bodyJson()
+        .convertTo(AvailabilityResponse.class)
+        .satisfies(availability -> {
+            assertThat(availability.usernameAvailable()).isFalse();
+            assertThat(availability.emailAvailable()).isTrue();
+        });
+    }
+
+    @Test
+    void itShouldReturnBadRequestWhenAvailabilityHasNoNames() {
+        assertThat(mvc.get().uri("/users/availability"))
+            .hasStatus(HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     void itShouldReturnUserWhenAdminRequests() {
         User existing = getTestUser();
@@ -167,6 +193,33 @@ class UserControllerTest extends ControllerIntegration {
         });
     }
 
+    @Test
+    void itShouldReturnTheUpdatedUserAfterItWasCached() {
+        var user = createUser();
+        user.setActive(true);
+        userRepository.save(user);
+
+        assertThat(mvc.get().uri(URI_GET_USER, user.getId()).headers(getAdminAuthHeader()))
+            .hasStatusOk()
+            .bodyJson()
+            .convertTo(UserDto.class)
+            .satisfies(dto -> assertThat(dto.getEmail()).isEqualTo(user.getEmail()));
+
+        var updatedUser = new UserChangeDto(null, null, UUID.randomUUID()+"@mail.com", null, null, null, null, null);
+        assertThat(
+            mvc.patch().uri(URI_UPDATE_USER, user.getId())
+                .headers(getAdminAuthHeader())
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+                .formFields(convertToFormData(updatedUser))
+        ).hasStatusOk();
+
+        assertThat(mvc.get().uri(URI_GET_USER, user.getId()).headers(getAdminAuthHeader()))
+            .hasStatusOk()
+            .bodyJson()
+            .convertTo(UserDto.class)
+            .satisfies(dto -> assertThat(dto.getEmail()).isEqualTo(updatedUser.getEmail()));
+    }
+
     @Test
     void itShouldListUsersForAdmin() throws Exception {
         User activeUser = new User();
@@ -393,9 +446,12 @@ class UserControllerTest extends ControllerIntegration {
         assertThat(mvc.patch().uri("/users/requests/mail/"+userRequest.getId())
             .headers(getAdminAuthHeader())
         ).hasStatusOk();
-        
-        var dbRequest = userRequestRepository.findById(userRequest.getId());
-        assertThat(dbRequest.get().isMailSent()).isTrue();
+
+        // Sent by the outbox workers after the request returns
+        assertThat(mailOutboxRepository.findAll())
+            .filteredOn(mail -> userRequest.getId().equals(mail.getRequestId()))
+            .singleElement()
+            .satisfies(mail -> assertThat(mail.getType()).isEqualTo(MailType.ACTIVATION));
     }
 
     @Test
@@ -0,0 +1,104 @@
+package me.rudrade.todo.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.stereotype.Service;
+
+import me.rudrade.todo.config.ConfigurationUtil;
+import me.rudrade.todo.config.SqlIntegrationTest;
+import me.rudrade.todo.model.MailOutbox;
+import me.rudrade.todo.model.types.MailStatus;
+import me.rudrade.todo.model.types.MailType;
+
+@DataJpaTest(includeFilters = @ComponentScan.Filter(type = FilterType.ANNOTATION, classes = Service.class))
+@Import({ConfigurationUtil.PasswordEncoder.class, ConfigurationUtil.MailSender.class})
+class MailOutboxRepositoryTest extends SqlIntegrationTest {
+
+    @Autowired private MailOutboxRepository target;
+
+    @Test
+    void itShouldClaimDuePendingMailsInOrder() {
+        var now = LocalDateTime.now();
+
+        target.save(data(MailStatus.PENDING, now.minusMinutes(1)));
+        var first = target.save(data(MailStatus.PENDING, now.minusMinutes(10)));
+        target.save(data(MailStatus.PENDING, now.plusMinutes(10)));
+        target.save(data(MailStatus.SENT, now.minusMinutes(20)));
+        target.save(data(MailStatus.FAILED, now.minusMinutes(20)));
+
+        assertThat(target.claimDue("first", now.plusMinutes(5), now, 1)).isEqualTo(1);
+        assertThat(target.findByClaimedBy("first"))
+            .extracting(MailOutbox::getId)
+            .containsExactly(first.getId());
+
+        // Claimed mails aren't picked up again until the claim expires
+        assertThat(target.claimDue("second", now.plusMinutes(5), now, 10)).isEqualTo(1);
+        assertThat(target.claimDue("third", now.plusMinutes(5), now, 10)).isZero();
+        assertThat(target.claimDue("fourth", now.plusMinutes(15), now.plusMinutes(10), 10)).isEqualTo(3);
+    }
+
+    @Test
+    void itShouldClaimASingleMailOnce() {
+        var now = LocalDateTime.now();
+        var mail = target.save(data(MailStatus.PENDING, now));
+
+        assertThat(target.claim(mail.getId(), "first", now.plusMinutes(5), now)).isEqualTo(1);
+        assertThat(target.claim(mail.getId(), "second", now.plusMinutes(5), now)).isZero();
+        assertThat(target.findByClaimedBy("first")).hasSize(1);
+    }
+
+    @Test
+    void itShouldMarkMailsAsSent() {
+        var now = LocalDateTime.now();
+        var mail1 = target.save(data(MailStatus.PENDING, now));
+        var mail2 = target.save(data(MailStatus.PENDING, now));
+        target.save(data(MailStatus.PENDING, now));
+        target.claimDue("token", now.plusMinutes(5), now, 10);
+
+        // Not for mails whose claim was taken over
+        assertThat(target.markSent(List.of(mail1.getId(), mail2.getId()), "other")).isZero();
+        assertThat(target.markSent(List.of(mail1.getId(), mail2.getId()), "token")).isEqualTo(2);
+
+        assertThat(target.findById(mail1.getId())).get().satisfies(mail -> {
+            assertThat(mail.getStatus()).isEqualTo(MailStatus.SENT);
+            assertThat(mail.getAttempts()).isEqualTo(1);
+            assertThat(mail.getClaimedBy()).isNull();
+        });
+        assertThat(target.countByStatus(MailStatus.PENDING)).isEqualTo(1);
+        assertThat(target.countByStatus(MailStatus.SENT)).isEqualTo(2);
+    }
+
+    @Test
+    void itShouldOnlyExtendOwnClaims() {
+        var now = LocalDateTime.now();
+        var mail = target.save(data(MailStatus.PENDING, now));
+        target.claim(mail.getId(), "first", now.plusMinutes(5), now);
+
+        assertThat(target.extendClaim(List.of(mail.getId()), "second", now.plusMinutes(20))).isZero();
+        assertThat(target.extendClaim(List.of(mail.getId()), "first", now.plusMinutes(20))).isEqualTo(1);
+
+        // Still claimed once the first claim would have expired
+        assertThat(target.claim(mail.getId(), "second", now.plusMinutes(15), now.plusMinutes(10))).isZero();
+    }
+
+    private MailOutbox data(MailStatus status, LocalDateTime nextAttemptAt) {
+        var mail = new MailOutbox();
+        mail.setType(MailType.ACTIVATION);
+        mail.setRequestId(UUID.randomUUID());
+        mail.setRecipient("user@mail.com");
+        mail.setStatus(status);
+        mail.setNextAttemptAt(nextAttemptAt);
+        mail.setDtCreated(LocalDateTime.now());
+        return mail;
+    }
+}
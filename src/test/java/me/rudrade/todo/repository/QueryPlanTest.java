@@ -0,0 +1,279 @@
+package me.rudrade.todo.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import me.rudrade.todo.config.ConfigurationUtil;
+import me.rudrade.todo.config.SqlIntegrationTest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Service;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.Sql.ExecutionPhase;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Runs the repository queries and checks the EXPLAIN plan of each statement they execute doesn't scan a whole table.
+ * Statements are recorded at the JDBC level with their parameters, so the plan is the one of the SQL Hibernate generated.
+ */
+@DataJpaTest(includeFilters = @ComponentScan.Filter(type = FilterType.ANNOTATION, classes = Service.class))
+@Import({ConfigurationUtil.PasswordEncoder.class, ConfigurationUtil.MailSender.class})
+@Sql(scripts = "/sql-scripts/INIT_QUERY_PLANS.sql", executionPhase = ExecutionPhase.BEFORE_TEST_CLASS)
+@Sql(scripts = "/sql-scripts/CLEAN_QUERY_PLANS.sql", executionPhase = ExecutionPhase.AFTER_TEST_CLASS)
+class QueryPlanTest extends SqlIntegrationTest {
+
+    private static final List<Executed> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Autowired private TaskRepository taskRepository;
+    @Autowired private TagRepository tagRepository;
+    @Autowired private UserListRepository userListRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private UserRequestRepository userRequestRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = userRepository.findByUsername("plan-user-1").orElseThrow().getId();
+    }
+
+    @Test
+    void itShouldUseIndexesForTasks() {
+        var today = LocalDate.now();
+        var page = PageRequest.of(0, 10);
+        var limit = Pageable.ofSize(10);
+        var task = taskRepository.findAllByUserId(userId, PageRequest.of(0, 1)).getContent().getFirst();
+        var tags = List.of("tag-1", "tag-2");
+
+        assertIndexed("findDueToday", () -> taskRepository.findDueToday(userId, page));
+        assertIndexed("findDueUpcoming", () -> taskRepository.findDueUpcoming(userId, page));
+        assertIndexed("findByIdAndUserId", () -> taskRepository.findByIdAndUserId(task.getId(), userId));
+        assertIndexed("findAllByIdInAndUserId", () -> taskRepository.findAllByIdInAndUserId(List.of(task.getId()), userId));
+        assertIndexed("findAllByUserId", () -> taskRepository.findAllByUserId(userId, page));
+        assertIndexed("findAllByUserListNameAndUserId", () -> taskRepository.findAllByUserListNameAndUserId("list-1", userId, page));
+
+        assertIndexed("seekAllByUserId", () -> taskRepository.seekAllByUserId(userId, null, null, limit));
+        assertIndexed("seekAllByUserId after", () -> taskRepository.seekAllByUserId(userId, today, task.getId(), limit));
+        assertIndexed("seekDueToday", () -> taskRepository.seekDueToday(userId, null, null, limit));
+        assertIndexed("seekDueUpcoming", () -> taskRepository.seekDueUpcoming(userId, today, task.getId(), limit));
+        assertIndexed("seekByUserListName", () -> taskRepository.seekByUserListName("list-1", userId, null, null, limit));
+        assertIndexed("seekByAnyTag", () -> taskRepository.seekByAnyTag(tags, userId, null, null, limit));
+        assertIndexed("seekByAllTags", () -> taskRepository.seekByAllTags(tags, tags.size(), userId, null, null, limit));
+
+        assertIndexed("countByUserId", () -> taskRepository.countByUserId(userId));
+        assertIndexed("countDueToday", () -> taskRepository.countDueToday(userId));
+        assertIndexed("countDueUpcoming", () -> taskRepository.countDueUpcoming(userId));
+        assertIndexed("countByUserListNameAndUserId", () -> taskRepository.countByUserListNameAndUserId("list-1", userId));
+        assertIndexed("countByAnyTag", () -> taskRepository.countByAnyTag(tags, userId));
+        assertIndexed("countByAllTags", () -> taskRepository.countByAllTags(tags, tags.size(), userId));
+
+        assertIndexed("searchFullText", () -> taskRepository.searchFullText("+plan*", userId, 10, 0));
+        assertIndexed("countFullText", () -> taskRepository.countFullText("+plan*", userId));
+        assertIndexed("searchContains", () -> taskRepository.searchContains("%plan%", userId, 10, 0));
+        assertIndexed("countContains", () -> taskRepository.countContains("%plan%", userId));
+        assertIndexed("fetchListsAndTags", () -> taskRepository.fetchListsAndTags(List.of(task.getId())));
+    }
+
+    @Test
+    void itShouldSeekTasksInIndexOrder() {
+        var today = LocalDate.now();
+        var limit = Pageable.ofSize(10);
+        var task = taskRepository.findAllByUserId(userId, PageRequest.of(0, 1)).getContent().getFirst();
+
+        assertNoFilesort("seekAllByUserId", () -> taskRepository.seekAllByUserId(userId, null, null, limit));
+        assertNoFilesort("seekAllByUserId after", () -> taskRepository.seekAllByUserId(userId, today, task.getId(), limit));
+        assertNoFilesort("seekAllByUserId after no due date", () -> taskRepository.seekAllByUserId(userId, null, task.getId(), limit));
+        assertNoFilesort("seekDueToday", () -> taskRepository.seekDueToday(userId, today, task.getId(), limit));
+        assertNoFilesort("seekDueUpcoming", () -> taskRepository.seekDueUpcoming(userId, today, task.getId(), limit));
+    }
+
+    @Test
+    void itShouldUseIndexesForTags() {
+        var tag = tagRepository.findByNameAndUserId("tag-1", userId).orElseThrow();
+        var names = List.of("tag-1", "tag-3");
+
+        assertIndexed("findByUserId", () -> tagRepository.findByUserId(userId));
+        assertIndexed("findByNameAndUserId", () -> tagRepository.findByNameAndUserId("tag-2", userId));
+        assertIndexed("findByIdAndUserId", () -> tagRepository.findByIdAndUserId(tag.getId(), userId));
+        assertIndexed("findByUserIdAndNameIn", () -> tagRepository.findByUserIdAndNameIn(userId, names));
+        assertIndexed("findAllByIdInAndUserId", () -> tagRepository.findAllByIdInAndUserId(List.of(tag.getId()), userId));
+        assertIndexed("findLockedByUserIdAndNameIn", () -> tagRepository.findLockedByUserIdAndNameIn(userId, names));
+    }
+
+    @Test
+    void itShouldUseIndexesForLists() {
+        var list = userListRepository.findByNameAndUserId("list-1", userId).orElseThrow();
+
+        assertIndexed("findByNameAndUserId", () -> userListRepository.findByNameAndUserId("list-2", userId));
+        assertIndexed("findSummariesByUserId", () -> userListRepository.findSummariesByUserId(userId));
+        assertIndexed("findSummariesByIdIn", () -> userListRepository.findSummariesByIdIn(List.of(list.getId()), userId));
+    }
+
+    // Substring searches without the status filter can't seek an index and scan the users on purpose
+    @Test
+    void itShouldUseIndexesForUsers() {
+        assertIndexed("findByUsername", () -> userRepository.findByUsername("plan-user-2"));
+        assertIndexed("findActiveByUsernameOrEmail", () -> userRepository.findActiveByUsernameOrEmail("plan-user-2", "plan-user-3@test"));
+        assertIndexed("existsByUsername", () -> userRepository.existsByUsername("plan-user-2"));
+        assertIndexed("existsByEmail", () -> userRepository.existsByEmail("plan-user-3@test"));
+        assertIndexed("request existsByUsername", () -> userRequestRepository.existsByUsername("plan-user-2"));
+        assertIndexed("request existsByEmail", () -> userRequestRepository.existsByEmail("plan-user-3@test"));
+        assertIndexed("findByActive", () -> userRepository.findByActive(true));
+        assertIndexed("findByActiveAndUsernameContainingIgnoreCase", () -> userRepository.findByActiveAndUsernameContainingIgnoreCase(true, "user"));
+        assertIndexed("findByActiveAndEmailContainingIgnoreCase", () -> userRepository.findByActiveAndEmailContainingIgnoreCase(true, "mail"));
+    }
+
+    private void assertIndexed(String query, Runnable call) {
+        for (var statement : selects(query, call)) {
+            for (var row : explain(statement)) {
+                var table = String.valueOf(row.get("table"));
+                // Rows of derived and temporary tables are scans of the already filtered results
+                if (table.startsWith("<"))
+                    continue;
+
+                assertThat(row.get("type")).as("%s on %s%n%s", query, table, statement.sql()).isNotEqualTo("ALL");
+            }
+        }
+    }
+
+    // The keyset pages must be read in index order, a filesort would sort all the user's matching tasks for each page
+    private void assertNoFilesort(String query, Runnable call) {
+        for (var statement : selects(query, call)) {
+            for (var row : explain(statement)) {
+                assertThat(String.valueOf(row.get("Extra"))).as("%s%n%s", query, statement.sql()).doesNotContain("Using filesort");
+            }
+        }
+    }
+
+    private List<Executed> selects(String query, Runnable call) {
+        STATEMENTS.clear();
+        call.run();
+
+        var selects = STATEMENTS.stream()
+            .filter(statement -> statement.sql().stripLeading().toLowerCase().startsWith("select"))
+            .toList();
+        assertThat(selects).as(query).isNotEmpty();
+        return selects;
+    }
+
+    private List<Map<String, Object>> explain(Executed statement) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Map<String, Object>>>) connection -> {
+            try (var explain = connection.prepareStatement("explain " + statement.sql())) {
+                for (var bind : statement.binds())
+                    bind.apply(explain);
+
+                try (var rows = explain.executeQuery()) {
+                    return new RowMapperResultSetExtractor<>(new ColumnMapRowMapper()).extractData(rows);
+                }
+            }
+        });
+    }
+
+    record Executed(String sql, List<Bind> binds) {}
+
+    record Bind(Method method, Object[] args) {
+        void apply(PreparedStatement statement) throws SQLException {
+            invoke(statement, method, args);
+        }
+    }
+
+    @TestConfiguration
+    static class RecordStatements {
+
+        @Bean
+        static BeanPostProcessor recordingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? new RecordingDataSource(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    static class RecordingDataSource extends DelegatingDataSource {
+
+        RecordingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return connection(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return connection(super.getConnection(username, password));
+        }
+
+        private static Connection connection(Connection target) {
+            return (Connection) Proxy.newProxyInstance(QueryPlanTest.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    var result = invoke(target, method, args);
+                    if (method.getName().equals("prepareStatement") && result instanceof PreparedStatement statement)
+                        return statement(statement, (String) args[0]);
+                    return result;
+                });
+        }
+
+        private static PreparedStatement statement(PreparedStatement target, String sql) {
+            List<Bind> binds = new ArrayList<>();
+            return (PreparedStatement) Proxy.newProxyInstance(QueryPlanTest.class.getClassLoader(), new Class<?>[] {PreparedStatement.class},
+                (proxy, method, args) -> {
+                    var name = method.getName();
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer)
+                        binds.add(new Bind(method, args));
+                    else if (name.equals("clearParameters"))
+                        binds.clear();
+                    else if ((name.equals("executeQuery") || name.equals("execute")) && args == null)
+                        STATEMENTS.add(new Executed(sql, List.copyOf(binds)));
+
+                    return invoke(target, method, args);
+                });
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws SQLException {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException sqlException)
+                throw sqlException;
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            throw new IllegalStateException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
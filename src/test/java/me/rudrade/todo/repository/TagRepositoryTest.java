@@ -4,6 +4,7 @@ import me.rudrade.todo.config.ConfigurationUtil;
 import me.rudrade.todo.config.SqlIntegrationTest;
 import me.rudrade.todo.model.Tag;
 import me.rudrade.todo.model.User;
+import me.rudrade.todo.service.TagService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
@@ -24,6 +25,7 @@ import static org.assertj.core.api.Assertions.*;
 class TagRepositoryTest extends SqlIntegrationTest {
 
     @Autowired private TagRepository repository;
+    @Autowired private TagService tagService;
 
     private List<Tag> lstTags = null;
     private List<Tag> getTags() {
@@ -118,4 +120,54 @@ class TagRepositoryTest extends SqlIntegrationTest {
         assertThat(result).isEmpty();
     }
 
+    @Test
+    void itShouldFindByUserIdAndNameIn() {
+        User user = getTestUser();
+        List<Tag> owned = getTags().stream()
+            .filter(t -> sameUser(t.getUser(), user))
+            .toList();
+        Tag otherUserTag = getTags().stream()
+            .filter(t -> !sameUser(t.getUser(), user))
+            .findFirst()
+            .orElseThrow();
+
+        var names = new ArrayList<>(owned.stream().map(Tag::getName).toList());
+        names.add(otherUserTag.getName());
+        names.add("not-a-tag");
+
+        var result = repository.findByUserIdAndNameIn(user.getId(), names);
+
+        assertThat(result)
+            .extracting(Tag::getId)
+            .containsExactlyInAnyOrderElementsOf(owned.stream().map(Tag::getId).toList());
+    }
+
+    @Test
+    void itShouldCreateOnlyMissingTagsInBulk() {
+        User user = getTestUser();
+        Tag existing = getTags().stream()
+            .filter(t -> sameUser(t.getUser(), user))
+            .findFirst()
+            .orElseThrow();
+
+        var result = tagService.findOrCreateAllByUser(user, List.of(
+            new Tag(null, "bulk-1", "#ffffff", null, null),
+            new Tag(null, existing.getName().toUpperCase(), null, null, null),
+            new Tag(null, "bulk-2", null, null, null),
+            new Tag(null, "bulk-1", null, null, null)));
+
+        assertThat(result)
+            .extracting(Tag::getName)
+            .containsExactly("bulk-1", existing.getName(), "bulk-2");
+        assertThat(result.get(0).getColor()).isEqualTo("#ffffff");
+        assertThat(result.get(1).getId()).isEqualTo(existing.getId());
+        assertThat(result.get(2).getColor()).matches("^#[0-9a-fA-F]{6}$");
+        assertThat(result).allSatisfy(tag -> assertThat(sameUser(tag.getUser(), user)).isTrue());
+
+        // Resolving again doesn't create duplicates
+        var again = tagService.findOrCreateAllByUser(user, List.of(new Tag(null, "bulk-2", null, null, null)));
+        assertThat(again).extracting(Tag::getId).containsExactly(result.get(2).getId());
+        assertThat(repository.findByUserId(user.getId())).hasSize(getTags().stream().filter(t -> sameUser(t.getUser(), user)).toList().size() + 2);
+    }
+
 }
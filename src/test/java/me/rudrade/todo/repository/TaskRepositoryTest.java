@@ -4,22 +4,30 @@ import static org.assertj.core.api.Assertions.*;
 
 import me.rudrade.todo.config.ConfigurationUtil;
 import me.rudrade.todo.config.SqlIntegrationTest;
+import me.rudrade.todo.model.Tag;
 import me.rudrade.todo.model.Task;
 import me.rudrade.todo.model.User;
+import me.rudrade.todo.service.TaskSearchService;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.UUID;
 
 @DataJpaTest(includeFilters = @ComponentScan.Filter(type = FilterType.ANNOTATION, classes = Service.class))
 @Sql("/sql-scripts/INIT_TASKS.sql")
@@ -27,6 +35,10 @@ import java.util.List;
 class TaskRepositoryTest extends SqlIntegrationTest  {
 
     @Autowired private TaskRepository repository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private TagRepository tagRepository;
+    @Autowired private TaskSearchService taskSearchService;
+    @Autowired private TestEntityManager entityManager;
 
     private List<Task> getAllTasks() {
         List<Task> lst = new ArrayList<>();
@@ -83,25 +95,49 @@ class TaskRepositoryTest extends SqlIntegrationTest  {
         assertThat(result.getTotalElements()).isEqualTo(expected.size());
     }
 
+    // Full-text indexes only see committed rows, these run outside of the test transaction
+
     @Test
-    void itShouldFindByTitleContains() {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void itShouldSearchTitlesAndDescriptionsByPrefix() {
         User user = getTestUser();
 
-        var result = repository.findByTitleContains("toDaY", user.getId(), Pageable.unpaged());
-
-        assertThat(result).isNotEmpty();
+        var result = taskSearchService.search("toDa", user.getId(), 100, 0);
 
         var expected = getAllTasks().stream()
-                    .filter(t -> 
+                    .filter(t ->
                         sameUser(t.getUser(), user) &&
-                        t.getTitle() != null &&
-                        t.getTitle().toLowerCase().contains("today")
+                        (t.getTitle().contains("today") || t.getDescription().contains("today"))
                     ).toList();
 
-        assertThat(result.getContent())
+        assertThat(result)
+            .isNotEmpty()
             .containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(taskSearchService.count("toDa", user.getId())).isEqualTo(expected.size());
+    }
 
-        assertThat(result.getTotalElements()).isEqualTo(expected.size());
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void itShouldRequireEverySearchTerm() {
+        User user = getTestUser();
+
+        var result = taskSearchService.search("future description", user.getId(), 100, 0);
+
+        assertThat(result)
+            .isNotEmpty()
+            .allSatisfy(t -> assertThat(t.getTitle()).contains("future"));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void itShouldPageSearchResults() {
+        User user = getTestUser();
+
+        var all = taskSearchService.search("title", user.getId(), 100, 0);
+        var page = taskSearchService.search("title", user.getId(), 2, 1);
+
+        assertThat(all).hasSizeGreaterThan(3);
+        assertThat(page).containsExactlyElementsOf(all.subList(1, 3));
     }
 
     @Test
@@ -182,24 +218,69 @@ class TaskRepositoryTest extends SqlIntegrationTest  {
     }
 
     @Test
-    void itShouldFindAllByTagsNameAndUserId() {
+    void itShouldFilterByAnyOrAllTags() {
         var user = getTestUser();
-        var tag = "test-tag";
+        var other = userRepository.save(createUser());
+
+        Tag home = tagRepository.save(new Tag(null, "home", "red", user, null));
+        Tag urgent = tagRepository.save(new Tag(null, "urgent", "blue", user, null));
+        Tag otherHome = tagRepository.save(new Tag(null, "home", "red", other, null));
+
+        Task both = repository.save(new Task(null, "both", null, LocalDate.now(), user, null, List.of(home, urgent)));
+        Task onlyHome = repository.save(new Task(null, "only home", null, null, user, null, List.of(home)));
+        repository.save(new Task(null, "no tags", null, null, user, null, null));
+        repository.save(new Task(null, "other user", null, null, other, null, List.of(otherHome)));
+        entityManager.flush();
+        entityManager.clear();
+
+        var names = List.of("home", "urgent");
+
+        assertThat(repository.seekByAnyTag(names, user.getId(), null, null, Pageable.unpaged()))
+            .extracting(Task::getId)
+            .containsExactly(both.getId(), onlyHome.getId());
+        assertThat(repository.countByAnyTag(names, user.getId())).isEqualTo(2);
+
+        assertThat(repository.seekByAllTags(names, names.size(), user.getId(), null, null, Pageable.unpaged()))
+            .extracting(Task::getId)
+            .containsExactly(both.getId());
+        assertThat(repository.countByAllTags(names, names.size(), user.getId())).isEqualTo(1);
+
+        // Keyset pages continue after the cursor
+        assertThat(repository.seekByAnyTag(names, user.getId(), both.getDueDate(), both.getId(), PageRequest.ofSize(10)))
+            .extracting(Task::getId)
+            .containsExactly(onlyHome.getId());
+    }
+
+    @Test
+    void itShouldSeekAllByUserIdInDueDateOrder() {
+        User user = getTestUser();
 
         var expected = getAllTasks().stream()
                 .filter(t -> sameUser(t.getUser(), user))
-                .filter(t -> t.getTags() != null)
-                .filter(t -> t.getTags().stream().anyMatch(tg -> tag.equals(tg.getName())))
                 .toList();
 
-        var result = repository.findAllByTagsNameAndUserId(tag, user.getId(), Pageable.unpaged());
+        List<Task> result = new ArrayList<>();
+        LocalDate lastDueDate = null;
+        UUID lastId = null;
+        List<Task> page;
+        do {
+            page = repository.seekAllByUserId(user.getId(), lastDueDate, lastId, PageRequest.ofSize(2));
+            assertThat(page).hasSizeLessThanOrEqualTo(2);
+            result.addAll(page);
+
+            if (!page.isEmpty()) {
+                lastDueDate = page.getLast().getDueDate();
+                lastId = page.getLast().getId();
+            }
+        } while (page.size() == 2);
 
         assertThat(result)
-            .isNotNull();
-        assertThat(result.getContent())
             .usingDefaultElementComparator()
             .containsExactlyInAnyOrderElementsOf(expected);
-        assertThat(result.getTotalElements()).isEqualTo(expected.size());
+        assertThat(result)
+            .extracting(Task::getDueDate)
+            .isSortedAccordingTo(Comparator.nullsFirst(Comparator.naturalOrder()));
+        assertThat(repository.countByUserId(user.getId())).isEqualTo(expected.size());
     }
 
 }
@@ -0,0 +1,114 @@
+package me.rudrade.todo.repository;
+
+import me.rudrade.todo.config.ConfigurationUtil;
+import me.rudrade.todo.config.SqlIntegrationTest;
+import me.rudrade.todo.model.User;
+import me.rudrade.todo.service.TaskSearchService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Search latency of the full-text index against the previous LIKE scan, for one user owning 10k, 100k and 1M tasks.
+ * Run with {@code mvn test -Dtodo.benchmark=true -Dtest=TaskSearchBenchmarkTest}, it needs Docker for the MySQL container.
+ */
+@EnabledIfSystemProperty(named = "todo.benchmark", matches = "true")
+@DataJpaTest(includeFilters = @ComponentScan.Filter(type = FilterType.ANNOTATION, classes = Service.class))
+@Import({ConfigurationUtil.PasswordEncoder.class, ConfigurationUtil.MailSender.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TaskSearchBenchmarkTest extends SqlIntegrationTest {
+
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    private static final int BATCH_SIZE = 5_000;
+    private static final int QUERIES = 50;
+    private static final String[] WORDS = {
+        "buy", "milk", "bread", "call", "mom", "pay", "rent", "book", "flight", "review", "report", "clean",
+        "garage", "fix", "bike", "plan", "trip", "send", "invoice", "water", "plants", "gym", "dentist", "meeting"
+    };
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TaskRepository repository;
+    @Autowired private TaskSearchService searchService;
+    @Autowired private UserRepository userRepository;
+
+    @Test
+    void search() {
+        var user = userRepository.save(createUser());
+        var random = new Random(42);
+        jdbcTemplate.update("delete from task where user_id = ?", bytes(user.getId()));
+
+        int inserted = 0;
+        for (int size : SIZES) {
+            insertTasks(user, size - inserted, random);
+            inserted = size;
+
+            // Scan with LIKE on title and description, as done before the index
+            var like = measure(() -> repository.searchContains("%invoice%", user.getId(), 50, 0));
+            var fullText = measure(() -> searchService.search("invoice", user.getId(), 50, 0));
+            var twoTerms = measure(() -> searchService.search("pay rent", user.getId(), 50, 0));
+            var count = measure(() -> List.of(searchService.count("invoice", user.getId())));
+
+            System.out.printf("%,d tasks: like %.2f ms, full-text %.2f ms, two terms %.2f ms, count %.2f ms%n",
+                size, like, fullText, twoTerms, count);
+        }
+
+        jdbcTemplate.update("delete from task where user_id = ?", bytes(user.getId()));
+    }
+
+    private void insertTasks(User user, int amount, Random random) {
+        var userId = bytes(user.getId());
+        for (int start = 0; start < amount; start += BATCH_SIZE) {
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = start; i < Math.min(amount, start + BATCH_SIZE); i++) {
+                rows.add(new Object[] {bytes(UUID.randomUUID()), sentence(random, 4), sentence(random, 12), userId});
+            }
+            jdbcTemplate.batchUpdate("insert into task (id, title, description, user_id) values (?, ?, ?, ?)", rows);
+        }
+    }
+
+    private static String sentence(Random random, int words) {
+        var result = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0)
+                result.append(' ');
+            result.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return result.toString();
+    }
+
+    private static double measure(Supplier<List<?>> query) {
+        for (int i = 0; i < 5; i++) {
+            assertThat(query.get()).isNotNull();
+        }
+
+        var start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            query.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / QUERIES;
+    }
+
+    private static byte[] bytes(UUID id) {
+        return ByteBuffer.allocate(16)
+            .putLong(id.getMostSignificantBits())
+            .putLong(id.getLeastSignificantBits())
+            .array();
+    }
+}
@@ -2,6 +2,8 @@ package me.rudrade.todo.repository;
 
 import me.rudrade.todo.config.ConfigurationUtil;
 import me.rudrade.todo.config.SqlIntegrationTest;
+import me.rudrade.todo.dto.UserListDto;
+import me.rudrade.todo.model.Task;
 import me.rudrade.todo.model.UserList;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +25,7 @@ import static org.assertj.core.api.Assertions.*;
 class UserListRepositoryTest extends SqlIntegrationTest {
 
     @Autowired private UserListRepository repository;
+    @Autowired private TaskRepository taskRepository;
 
     private List<UserList> getLists() {
         List<UserList> lists = new ArrayList<>();
@@ -64,5 +67,24 @@ class UserListRepositoryTest extends SqlIntegrationTest {
 
         assertThat(result).isEmpty();
     }
-}
 
+    @Test
+    void itShouldCountTasksPerListOfUser() {
+        var user = getTestUser();
+        var list = repository.findByNameAndUserId("list-1", user.getId()).orElseThrow();
+
+        for (int i = 0; i < 3; i++) {
+            var task = new Task();
+            task.setTitle("summary task " + i);
+            task.setUser(user);
+            task.setUserList(list);
+            taskRepository.save(task);
+        }
+
+        var result = repository.findSummariesByUserId(user.getId());
+
+        assertThat(result).containsExactly(
+            new UserListDto("list-1", "red", 3),
+            new UserListDto("list-2", "blue", 0));
+    }
+}
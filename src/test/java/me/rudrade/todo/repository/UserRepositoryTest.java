@@ -137,4 +137,19 @@ class UserRepositoryTest extends  SqlIntegrationTest {
         assertThat(result).containsExactlyInAnyOrderElementsOf(expected);
     }
 
+    @Test
+    void itShouldUpdatePasswordOnlyFromTheHashItWasReadWith() {
+        var user = repository.save(createUser());
+        var hash = user.getPassword();
+
+        assertThat(repository.updatePassword(user.getId(), "other-hash", "new-hash")).isZero();
+        assertThat(repository.updatePassword(user.getId(), hash, "new-hash")).isEqualTo(1);
+        assertThat(repository.updatePassword(user.getId(), hash, "newer-hash")).isZero();
+
+        assertThat(repository.findById(user.getId()))
+            .get()
+            .extracting(User::getPassword)
+            .isEqualTo("new-hash");
+    }
+
 }
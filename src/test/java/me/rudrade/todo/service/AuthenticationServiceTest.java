@@ -11,19 +11,20 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.util.ReflectionTestUtils;
 
-import java.util.Calendar;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -48,31 +49,15 @@ class AuthenticationServiceTest {
 
     @Test
     void itShouldRefreshToken() {
-        var issuedAt = Calendar.getInstance();
-        issuedAt.add(Calendar.MINUTE, -10);
-
         var id = UUID.randomUUID();
 
-        var token = JWT.create()
-            .withIssuer(JWT_ISSUER)
-            .withClaim("username", "test-user")
-            .withClaim("role", "test-role")
-            .withClaim("refreshes", 3)
-            .withSubject(id.toString())
-            .withIssuedAt(issuedAt.getTime())
-            .withExpiresAt(issuedAt.getTime())
-            .sign(getAlgorithm());
-
         var user = new User();
         user.setId(id);
 
-        when(jwtService.getSubjectId(token)).thenReturn(id);
-        when(jwtService.isTokenValidWithLeeway(token, id)).thenReturn(true);
-        when(jwtService.getTokenRefreshes(token)).thenReturn(4);
         when(jwtService.generateToken(any(User.class), anyInt())).thenCallRealMethod();
         when(userRepository.findById(id)).thenReturn(Optional.of(user));
 
-        var result = getAuthenticationService().refreshToken(token);
+        var result = getAuthenticationService().refreshToken(new JwtService.VerifiedToken(id, 4));
         assertThat(result).isNotBlank();
 
         var decodedRefreshes = JWT.require(getAlgorithm())
@@ -82,9 +67,6 @@ class AuthenticationServiceTest {
             .getClaim("refreshes").asInt();
         assertThat(decodedRefreshes).isEqualTo(5);
 
-        verify(jwtService, times(1)).isTokenValidWithLeeway(token, id);
-        verify(jwtService, times(1)).getTokenRefreshes(token);
-        verify(jwtService, times(2)).getSubjectId(token);
         verify(jwtService, times(1)).generateToken(any(User.class), eq(5));
         verifyNoMoreInteractions(jwtService);
 
@@ -94,78 +76,32 @@ class AuthenticationServiceTest {
 
     @Test
     void itShouldThrowWhenTokenIsInvalid() {
-        var id = UUID.randomUUID();
-        when(jwtService.getSubjectId("test-token")).thenReturn(id);
-        when(jwtService.isTokenValidWithLeeway("test-token", id)).thenReturn(false);
+        assertThrows(InvalidAccessException.class, () -> getAuthenticationService().refreshToken(null));
+        assertThrows(InvalidAccessException.class, () -> getAuthenticationService().refreshToken(new JwtService.VerifiedToken(null, 0)));
 
-        assertThrows(InvalidAccessException.class, () -> {
-           getAuthenticationService().refreshToken("test-token");
-        });
-
-        verify(jwtService, times(1)).getSubjectId("test-token");
-        verify(jwtService, times(1)).isTokenValidWithLeeway("test-token", id);
-        verifyNoMoreInteractions(jwtService);
-        verifyNoInteractions(userRepository);
+        verifyNoInteractions(jwtService, userRepository);
     }
 
     @Test
     void itShouldThrowWhenNrRefreshesIsInvalid() {
-        var issuedAt = Calendar.getInstance();
-        issuedAt.add(Calendar.MINUTE, -10);
-
-        var id = UUID.randomUUID();
-
-        var token = JWT.create()
-            .withIssuer(JWT_ISSUER)
-            .withClaim("username", "test-user")
-            .withClaim("role", "test-role")
-            .withClaim("refreshes", 5)
-            .withSubject(id.toString())
-            .withIssuedAt(issuedAt.getTime())
-            .withExpiresAt(issuedAt.getTime())
-            .sign(getAlgorithm());
-
-        when(jwtService.getSubjectId(token)).thenReturn(id);
-        when(jwtService.isTokenValidWithLeeway(token, id)).thenReturn(true);
-        when(jwtService.getTokenRefreshes(token)).thenReturn(5);
+        var token = new JwtService.VerifiedToken(UUID.randomUUID(), 5);
 
         assertThrows(InvalidAccessException.class, () -> getAuthenticationService().refreshToken(token));
 
-        verify(jwtService, times(1)).getSubjectId(token);
-        verify(jwtService, times(1)).isTokenValidWithLeeway(token, id);
-        verify(jwtService, times(1)).getTokenRefreshes(token);
-        verifyNoMoreInteractions(jwtService, userRepository);
+        verifyNoInteractions(jwtService, userRepository);
     }
 
     @Test
     void itShouldThrowWhenUserIsNotFoundWhenRefreshingToken() {
-        var issuedAt = Calendar.getInstance();
-        issuedAt.add(Calendar.MINUTE, -10);
-
         var id = UUID.randomUUID();
-
-        var token = JWT.create()
-            .withIssuer(JWT_ISSUER)
-            .withClaim("username", "test-user")
-            .withClaim("role", "test-role")
-            .withClaim("refreshes", 3)
-            .withSubject(id.toString())
-            .withIssuedAt(issuedAt.getTime())
-            .withExpiresAt(issuedAt.getTime())
-            .sign(getAlgorithm());
-
-        when(jwtService.getSubjectId(token)).thenReturn(id);
-        when(jwtService.isTokenValidWithLeeway(token, id)).thenReturn(true);
-        when(jwtService.getTokenRefreshes(token)).thenReturn(3);
         when(userRepository.findById(id)).thenReturn(Optional.empty());
 
+        var token = new JwtService.VerifiedToken(id, 3);
         assertThrows(InvalidAccessException.class, () -> getAuthenticationService().refreshToken(token));
 
-        verify(jwtService, times(2)).getSubjectId(token);
-        verify(jwtService, times(1)).isTokenValidWithLeeway(token, id);
-        verify(jwtService, times(1)).getTokenRefreshes(token);
         verify(userRepository, times(1)).findById(id);
-        verifyNoMoreInteractions(jwtService, userRepository);
+        verifyNoMoreInteractions(userRepository);
+        verifyNoInteractions(jwtService);
     }
 
     // ### end refreshToken ###
@@ -195,6 +131,32 @@ class AuthenticationServiceTest {
         verifyNoMoreInteractions(userRepository, jwtService);
     }
 
+    @Test
+    void itShouldRehashWeakerPasswordOnLogin() {
+        String rawPassword = "password";
+
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setUsername("rui");
+        user.setPassword(new BCryptPasswordEncoder(4).encode(rawPassword));
+        user.setActive(true);
+
+        when(userRepository.findByUsername("rui"))
+            .thenReturn(Optional.of(user));
+        when(jwtService.generateToken(user))
+            .thenReturn("token");
+
+        var weakHash = user.getPassword();
+        getAuthenticationService().authenticate(new UserLoginDto("rui", rawPassword));
+
+        ArgumentCaptor<String> newHash = ArgumentCaptor.forClass(String.class);
+        verify(userRepository, times(1)).updatePassword(eq(user.getId()), eq(weakHash), newHash.capture());
+        verify(userRepository, never()).save(any());
+
+        assertThat(passwordEncoder.upgradeEncoding(newHash.getValue())).isFalse();
+        assertThat(passwordEncoder.matches(rawPassword, newHash.getValue())).isTrue();
+    }
+
     @ParameterizedTest
     @MethodSource("invalidAuthenticationInputs")
     void itShouldThrowWhenAuthenticatingWithInvalidInput(UserLoginDto invalidInput) {
@@ -238,42 +200,6 @@ class AuthenticationServiceTest {
         verifyNoInteractions(jwtService);
     }
 
-    @Test
-    void itShouldGetUserByAuthToken() {
-        User user = new User();
-        user.setId(UUID.randomUUID());
-        user.setUsername("rui");
-        user.setActive(true);
-
-        when(jwtService.getSubjectId("auth-token"))
-            .thenReturn(user.getId());
-        when(userRepository.findById(user.getId()))
-            .thenReturn(Optional.of(user));
-
-        User result = getAuthenticationService().getUserByAuth("auth-token");
-
-        assertThat(result).isEqualTo(user);
-
-        verify(jwtService, times(1)).getSubjectId("auth-token");
-        verify(userRepository, times(1)).findById(user.getId());
-        verifyNoMoreInteractions(jwtService, userRepository);
-    }
-
-    @Test
-    void itShouldThrowWhenUserNotFoundByExtractedId() {
-        var id = UUID.randomUUID();
-
-        AuthenticationService service = getAuthenticationService();
-        when(jwtService.getSubjectId("auth-token")).thenReturn(id);
-        when(userRepository.findById(id)).thenReturn(Optional.empty());
-
-        assertThrows(InvalidAccessException.class, () -> service.getUserByAuth("auth-token"));
-
-        verify(jwtService, times(1)).getSubjectId("auth-token");
-        verify(userRepository, times(1)).findById(id);
-        verifyNoMoreInteractions(jwtService, userRepository);
-    }
-
     @Test
     void itShouldThrowWhenUserInactiveOnAuthenticate() {
         AuthenticationService service = getAuthenticationService();
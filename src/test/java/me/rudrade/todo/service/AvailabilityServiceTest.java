@@ -0,0 +1,171 @@
+package me.rudrade.todo.service;
+
+import me.rudrade.todo.config.RedisAvailabilityRelay;
+import me.rudrade.todo.exception.InvalidDataException;
+import me.rudrade.todo.repository.UserRepository;
+import me.rudrade.todo.repository.UserRequestRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.Locale;
+import java.util.function.LongConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityServiceTest {
+
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private UserRepository userRepository;
+    @Mock private UserRequestRepository userRequestRepository;
+    @Mock private RedisAvailabilityRelay relay;
+    @Mock private MessageSource messageSource;
+
+    private AvailabilityService service(boolean enabled) {
+        return new AvailabilityService(jdbcTemplate, userRepository, userRequestRepository, relay, messageSource, enabled, 1000, 0.01);
+    }
+
+    private AvailabilityService built(String username, String email) throws Exception {
+        var row = mock(ResultSet.class);
+        when(row.getString(1)).thenReturn(username);
+        when(row.getString(2)).thenReturn(email);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(1L);
+        doAnswer(inv -> {
+            inv.<RowCallbackHandler>getArgument(1).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        var service = service(true);
+        service.rebuild();
+        return service;
+    }
+
+    @Test
+    void itShouldAnswerMissesWithoutTheDatabase() throws Exception {
+        var service = built("rui", "rui@mail.com");
+
+        var availability = service.getAvailability("ana", "ana@mail.com", Locale.ENGLISH);
+
+        assertThat(availability.usernameAvailable()).isTrue();
+        assertThat(availability.emailAvailable()).isTrue();
+        assertThat(service.mightBeTaken("ana", "ana@mail.com")).isFalse();
+        assertThat(service.getMetrics().skipped()).isEqualTo(3);
+        verifyNoInteractions(userRepository, userRequestRepository);
+    }
+
+    @Test
+    void itShouldAskTheDatabaseOnPossibleHits() throws Exception {
+        var service = built("rui", "rui@mail.com");
+        when(userRepository.existsByUsername("Rúi")).thenReturn(true);
+
+        var availability = service.getAvailability("Rúi", null, Locale.ENGLISH);
+
+        assertThat(availability.usernameAvailable()).isFalse();
+        assertThat(availability.emailAvailable()).isNull();
+        assertThat(service.mightBeTaken(null, "RUI@mail.com")).isTrue();
+        verify(userRepository, times(1)).existsByUsername("Rúi");
+    }
+
+    @Test
+    void itShouldCountFalsePositives() throws Exception {
+        var service = built("rui", "rui@mail.com");
+
+        var availability = service.getAvailability(null, "rui@mail.com", Locale.ENGLISH);
+
+        assertThat(availability.emailAvailable()).isTrue();
+        assertThat(service.getMetrics().falsePositives()).isEqualTo(1);
+        verify(userRepository, times(1)).existsByEmail("rui@mail.com");
+        verify(userRequestRepository, times(1)).existsByEmail("rui@mail.com");
+    }
+
+    @Test
+    void itShouldAddTakenNamesAndTellOtherInstances() throws Exception {
+        var service = built("rui", "rui@mail.com");
+
+        service.taken("ana", null);
+
+        assertThat(service.mightBeTaken("ana", null)).isTrue();
+        verify(relay, times(1)).taken(AvailabilityService.key("u:", "ana"));
+    }
+
+    @Test
+    void itShouldAddNamesTakenOnOtherInstances() throws Exception {
+        var service = built("rui", "rui@mail.com");
+        var listener = ArgumentCaptor.forClass(LongConsumer.class);
+        verify(relay).listen(listener.capture());
+
+        listener.getValue().accept(AvailabilityService.key("e:", "ana@mail.com"));
+
+        assertThat(service.mightBeTaken(null, "ana@mail.com")).isTrue();
+        verify(relay, never()).taken(anyLong());
+    }
+
+    @Test
+    void itShouldShareKeysBetweenNamesTheCollationTreatsAsEqual() throws Exception {
+        var service = built("Straße", "rui@mail.com");
+        when(userRepository.existsByUsername("STRASSE")).thenReturn(true);
+
+        assertThat(service.mightBeTaken("strasse", null)).isTrue();
+        assertThat(service.getAvailability("STRASSE", null, Locale.ENGLISH).usernameAvailable()).isFalse();
+        assertThat(service.mightBeTaken("strase", null)).isFalse();
+
+        assertThat(AvailabilityService.key("u:", "Æsir")).isEqualTo(AvailabilityService.key("u:", "aesir"));
+        assertThat(AvailabilityService.key("u:", "Ｒｕｉ")).isEqualTo(AvailabilityService.key("u:", "rui"));
+        assertThat(AvailabilityService.key("u:", "Zoë\u200b")).isEqualTo(AvailabilityService.key("u:", "zoe"));
+        assertThat(AvailabilityService.key("u:", "rui")).isNotEqualTo(AvailabilityService.key("e:", "rui"));
+    }
+
+    @Test
+    void itShouldAskTheDatabaseWhileNamesMayBeMissed() throws Exception {
+        var service = built("rui", "rui@mail.com");
+        when(relay.mayMissMessages()).thenReturn(true);
+
+        assertThat(service.mightBeTaken("ana", null)).isTrue();
+        assertThat(service.getAvailability("ana", null, Locale.ENGLISH).usernameAvailable()).isTrue();
+        verify(userRepository, times(1)).existsByUsername("ana");
+    }
+
+    @Test
+    void itShouldListenOnceAndRebuildAfterReconnecting() throws Exception {
+        var service = built("rui", "rui@mail.com");
+        service.rebuild();
+
+        var subscribed = ArgumentCaptor.forClass(Runnable.class);
+        verify(relay, times(1)).listen(any());
+        verify(relay, times(1)).onSubscribed(subscribed.capture());
+
+        subscribed.getValue().run();
+
+        verify(jdbcTemplate, timeout(1000).times(3)).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void itShouldAskTheDatabaseWhenDisabled() {
+        var service = service(false);
+        service.rebuild();
+
+        assertThat(service.mightBeTaken("ana", "ana@mail.com")).isTrue();
+        assertThat(service.getAvailability("ana", null, Locale.ENGLISH).usernameAvailable()).isTrue();
+        verify(userRepository, times(1)).existsByUsername("ana");
+        verifyNoInteractions(jdbcTemplate, relay);
+    }
+
+    @Test
+    void itShouldThrowWithoutNames() {
+        var service = service(true);
+
+        assertThrows(InvalidDataException.class, () -> service.getAvailability(" ", null, Locale.ENGLISH));
+    }
+}
@@ -0,0 +1,100 @@
+package me.rudrade.todo.service;
+
+import me.rudrade.todo.exception.UnexpectedErrorException;
+import me.rudrade.todo.model.ChangeCounter;
+import me.rudrade.todo.model.EntityChange;
+import me.rudrade.todo.model.types.ChangeType;
+import me.rudrade.todo.repository.ChangeCounterRepository;
+import me.rudrade.todo.repository.EntityChangeRepository;
+import me.rudrade.todo.util.ServiceUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChangeLogTest {
+
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private ChangeCounterRepository counterRepository;
+    @Mock private EntityChangeRepository changeRepository;
+    @Mock private ApplicationEventPublisher eventPublisher;
+
+    private ChangeLog changeLog() {
+        return new ChangeLog(jdbcTemplate, counterRepository, changeRepository, eventPublisher);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void itShouldRecordAllChangesWithOneSequence() throws Exception {
+        UUID userId = UUID.randomUUID();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        when(jdbcTemplate.queryForObject("select last_insert_id()", Long.class)).thenReturn(7L);
+
+        changeLog().deleted(userId, ChangeType.TASK, List.of(first, second));
+
+        verify(jdbcTemplate, times(1)).update(ChangeLog.NEXT_SEQ, (Object) ServiceUtil.toBytes(userId));
+
+        ArgumentCaptor<Collection<EntityChange>> changes = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<EntityChange>> setter = ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(ChangeLog.UPSERT), changes.capture(), eq(2), setter.capture());
+        assertThat(changes.getValue()).extracting(EntityChange::getEntityId).containsExactly(first, second);
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps, changes.getValue().iterator().next());
+        verify(ps).setString(3, "TASK");
+        verify(ps).setLong(5, 7L);
+        verify(ps).setBoolean(6, true);
+
+        verify(eventPublisher, times(1)).publishEvent(new ChangeEvent(userId, ChangeType.TASK, 7L));
+    }
+
+    @Test
+    void itShouldNotTakeSequenceWithoutChanges() {
+        changeLog().saved(UUID.randomUUID(), ChangeType.TAG, List.of());
+
+        verifyNoInteractions(jdbcTemplate, eventPublisher);
+    }
+
+    @Test
+    void itShouldThrowWhenSequenceIsMissing() {
+        UUID userId = UUID.randomUUID();
+        UUID id = UUID.randomUUID();
+        ChangeLog changeLog = changeLog();
+
+        assertThrows(UnexpectedErrorException.class, () -> changeLog.saved(userId, ChangeType.LIST, id));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+    }
+
+    @Test
+    void itShouldReturnZeroSequenceForNewUser() {
+        UUID userId = UUID.randomUUID();
+        when(counterRepository.findById(userId)).thenReturn(Optional.empty());
+
+        assertThat(changeLog().getSeq(userId)).isZero();
+
+        ChangeCounter counter = new ChangeCounter();
+        counter.setUserId(userId);
+        counter.setSeq(3L);
+        when(counterRepository.findById(userId)).thenReturn(Optional.of(counter));
+
+        assertThat(changeLog().getSeq(userId)).isEqualTo(3L);
+    }
+}
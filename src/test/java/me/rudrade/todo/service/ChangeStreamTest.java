@@ -0,0 +1,98 @@
+package me.rudrade.todo.service;
+
+import me.rudrade.todo.config.RedisChangeRelay;
+import me.rudrade.todo.exception.InvalidAccessException;
+import me.rudrade.todo.exception.InvalidDataException;
+import me.rudrade.todo.model.User;
+import me.rudrade.todo.model.types.ChangeType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChangeStreamTest {
+
+    @Mock private RedisChangeRelay relay;
+    @Mock private MessageSource messageSource;
+
+    private ChangeStream stream(int maxPerUser) {
+        return new ChangeStream(relay, messageSource, 60_000, maxPerUser);
+    }
+
+    private User user() {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        return user;
+    }
+
+    @Test
+    void itShouldSubscribeAndListenToOtherInstances() {
+        var stream = stream(2);
+        var user = user();
+
+        assertThat(stream.subscribe(user)).isNotNull();
+        assertThat(stream.subscribe(user)).isNotNull();
+
+        assertThat(stream.size()).isEqualTo(2);
+        verify(relay, times(1)).listen(any());
+    }
+
+    @Test
+    void itShouldLimitStreamsPerUser() {
+        var stream = stream(1);
+        var user = user();
+        var other = user();
+        stream.subscribe(user);
+
+        assertThrows(InvalidDataException.class, () -> stream.subscribe(user));
+        assertThat(stream.subscribe(other)).isNotNull();
+        assertThat(stream.size()).isEqualTo(2);
+    }
+
+    @Test
+    void itShouldRemoveCompletedStreams() throws InterruptedException {
+        var stream = stream(1);
+        var user = user();
+        var emitter = stream.subscribe(user);
+
+        // Without a request the emitter only drops its handlers, so the stream is closed by sending to it
+        emitter.complete();
+        stream.deliver(new ChangeEvent(user.getId(), ChangeType.TASK, 1L));
+
+        for (int i = 0; i < 500 && stream.size() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(stream.size()).isZero();
+        assertThat(stream.subscribe(user)).isNotNull();
+    }
+
+    @Test
+    void itShouldPublishCommittedChanges() {
+        var stream = stream(1);
+        var event = new ChangeEvent(UUID.randomUUID(), ChangeType.LIST, 3L);
+
+        stream.onChange(event);
+
+        verify(relay, times(1)).publish(event);
+    }
+
+    @Test
+    void itShouldThrowWhenSubscribingWithoutUser() {
+        var stream = stream(1);
+        var userNoId = new User();
+
+        assertThrows(InvalidAccessException.class, () -> stream.subscribe(null));
+        assertThrows(InvalidAccessException.class, () -> stream.subscribe(userNoId));
+        verify(relay, times(1)).listen(any());
+        verifyNoMoreInteractions(relay);
+    }
+}
@@ -0,0 +1,150 @@
+package me.rudrade.todo.service;
+
+import me.rudrade.todo.config.RedisChangeRelay;
+import me.rudrade.todo.exception.InvalidAccessException;
+import me.rudrade.todo.model.User;
+import me.rudrade.todo.model.types.ChangeType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChangeVersionsTest {
+
+    @Mock private RedisChangeRelay relay;
+
+    private ChangeVersions versions(int maxSize) {
+        return new ChangeVersions(relay, maxSize, 300);
+    }
+
+    private User user() {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        return user;
+    }
+
+    @Test
+    void itShouldKeepTheEtagUntilBumped() {
+        var versions = versions(10);
+        var user = user();
+
+        var etag = versions.etag(user);
+        assertThat(etag).startsWith("\"").endsWith("\"");
+        assertThat(versions.etag(user)).isEqualTo(etag);
+
+        versions.bump(user.getId());
+        assertThat(versions.etag(user)).isNotEqualTo(etag);
+    }
+
+    @Test
+    void itShouldKeepUsersApart() {
+        var versions = versions(10);
+        var user = user();
+        var other = user();
+
+        var etag = versions.etag(user);
+        var otherEtag = versions.etag(other);
+        versions.bump(other.getId());
+
+        assertThat(otherEtag).isNotEqualTo(etag);
+        assertThat(versions.etag(user)).isEqualTo(etag);
+    }
+
+    @Test
+    void itShouldNotReuseVersionsAfterEviction() {
+        var versions = versions(1);
+        var user = user();
+
+        var version = versions.getVersion(user.getId());
+        versions.getVersion(UUID.randomUUID());
+
+        assertThat(versions.getVersion(user.getId())).isGreaterThan(version);
+    }
+
+    @Test
+    void itShouldIncludeTheDay() {
+        var versions = versions(10);
+        var user = user();
+        var today = LocalDate.now();
+
+        assertThat(versions.etag(user, today))
+            .isEqualTo(versions.etag(user, today))
+            .isNotEqualTo(versions.etag(user, today.plusDays(1)));
+    }
+
+    @Test
+    void itShouldBumpAgainAfterCommit() {
+        var versions = versions(10);
+        var user = user();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            versions.bump(user.getId());
+
+            // Read before the commit, still the old rows
+            var etag = versions.etag(user);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCommit());
+            assertThat(versions.etag(user)).isNotEqualTo(etag);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void itShouldThrowWithoutUser() {
+        var versions = versions(10);
+        var user = new User();
+
+        assertThrows(InvalidAccessException.class, () -> versions.etag(null));
+        assertThrows(InvalidAccessException.class, () -> versions.etag(user));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void itShouldBumpOnChangesOfOtherInstances() {
+        var versions = versions(10);
+        var user = user();
+        var etag = versions.etag(user);
+
+        ArgumentCaptor<Consumer<ChangeEvent>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(relay, times(1)).listen(listener.capture());
+        listener.getValue().accept(new ChangeEvent(user.getId(), ChangeType.TASK, 1L));
+
+        assertThat(versions.etag(user)).isNotEqualTo(etag);
+    }
+
+    @Test
+    void itShouldNotKeepVersionsWhileMessagesMayBeMissed() {
+        var versions = versions(10);
+        var user = user();
+
+        when(relay.mayMissMessages()).thenReturn(true);
+
+        assertThat(versions.etag(user)).isNotEqualTo(versions.etag(user));
+    }
+
+    @Test
+    void itShouldStartOverWhenSubscribedAgain() {
+        var versions = versions(10);
+        var user = user();
+        var etag = versions.etag(user);
+
+        ArgumentCaptor<Runnable> subscribed = ArgumentCaptor.forClass(Runnable.class);
+        verify(relay, times(1)).onSubscribed(subscribed.capture());
+        subscribed.getValue().run();
+
+        assertThat(versions.etag(user)).isNotEqualTo(etag);
+    }
+}
@@ -0,0 +1,100 @@
+package me.rudrade.todo.service;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import me.rudrade.todo.model.User;
+import me.rudrade.todo.model.types.Role;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput of token issue and verify, run with {@code mvn test -Dtodo.benchmark=true -Dtest=JwtServiceBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "todo.benchmark", matches = "true")
+class JwtServiceBenchmarkTest {
+
+    private static final String SECRET = "benchmark-secret";
+    private static final String ISSUER = "benchmark-issuer";
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    private static final long WARMUP_MILLIS = 2_000;
+    private static final long MEASURE_MILLIS = 5_000;
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "issuer", ISSUER);
+
+        user = new User();
+        user.setId(UUID.randomUUID());
+        user.setUsername("benchmark");
+        user.setRole(Role.ROLE_USER);
+
+        token = jwtService.generateToken(user);
+    }
+
+    @Test
+    void issueThroughput() throws Exception {
+        report("issue", () -> jwtService.generateToken(user));
+    }
+
+    @Test
+    void verifyThroughput() throws Exception {
+        report("verify (shared verifier)", () -> jwtService.verifyWithLeeway(token));
+    }
+
+    @Test
+    void verifyThroughputRebuildingVerifier() throws Exception {
+        // Previous behaviour, a new algorithm and verifier for every call
+        report("verify (verifier per call)", () -> JWT.require(Algorithm.HMAC256(SECRET))
+            .withIssuer(ISSUER)
+            .acceptLeeway(60)
+            .build()
+            .verify(token));
+    }
+
+    private void report(String name, Supplier<Object> operation) throws Exception {
+        run(operation, WARMUP_MILLIS);
+        var ops = run(operation, MEASURE_MILLIS);
+
+        System.out.printf("%s: %,d ops/s with %d threads%n", name, ops * 1000 / MEASURE_MILLIS, THREADS);
+        assertThat(ops).isPositive();
+    }
+
+    private long run(Supplier<Object> operation, long millis) throws Exception {
+        var counter = new LongAdder();
+        var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+
+        try (var executor = Executors.newFixedThreadPool(THREADS)) {
+            var futures = new Future<?>[THREADS];
+            for (int i = 0; i < THREADS; i++) {
+                futures[i] = executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        if (operation.get() != null)
+                            counter.increment();
+                    }
+                });
+            }
+            for (var future : futures) {
+                future.get();
+            }
+        }
+        return counter.sum();
+    }
+}
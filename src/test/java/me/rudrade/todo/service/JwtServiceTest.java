@@ -3,6 +3,7 @@ package me.rudrade.todo.service;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import me.rudrade.todo.exception.InvalidAccessException;
 import me.rudrade.todo.exception.InvalidDataException;
 import me.rudrade.todo.model.User;
 import me.rudrade.todo.model.types.Role;
@@ -55,19 +56,72 @@ class JwtServiceTest {
     }
 
     @Test
-    void itShouldValidateToken() {
+    void itShouldVerifyTokenWithLeeway() {
         User user = user();
-        String token = jwtService.generateToken(user);
+        String token = jwtService.generateToken(user, 2);
+
+        var verified = jwtService.verifyWithLeeway("Bearer " + token);
 
-        assertThat(jwtService.isTokenValid(token, user.getId())).isTrue();
+        assertThat(verified.subjectId()).isEqualTo(user.getId());
+        assertThat(verified.refreshes()).isEqualTo(2);
     }
 
     @Test
-    void itShouldReturnFalseWhenUsernameDoesNotMatch() {
+    void itShouldAcceptTokenExpiredWithinLeeway() {
+        var id = UUID.randomUUID();
+        var now = System.currentTimeMillis();
+
+        String token = JWT.create()
+            .withIssuer(ISSUER)
+            .withSubject(id.toString())
+            .withClaim("refreshes", 1)
+            .withIssuedAt(new Date(now - 60_000))
+            .withExpiresAt(new Date(now - 30_000))
+            .sign(Algorithm.HMAC256(SECRET));
+
+        assertThat(jwtService.verifyWithLeeway(token).subjectId()).isEqualTo(id);
+    }
+
+    @Test
+    void itShouldThrowWhenVerifyingInvalidToken() {
+        var now = System.currentTimeMillis();
+
+        String expired = JWT.create()
+            .withIssuer(ISSUER)
+            .withSubject(UUID.randomUUID().toString())
+            .withExpiresAt(new Date(now - 120_000))
+            .sign(Algorithm.HMAC256(SECRET));
+
+        String wrongSecret = JWT.create()
+            .withIssuer(ISSUER)
+            .withSubject(UUID.randomUUID().toString())
+            .sign(Algorithm.HMAC256("other-secret"));
+
+        String invalidSubject = JWT.create()
+            .withIssuer(ISSUER)
+            .withSubject("not-an-id")
+            .sign(Algorithm.HMAC256(SECRET));
+
+        assertThrows(InvalidAccessException.class, () -> jwtService.verifyWithLeeway(expired));
+        assertThrows(InvalidAccessException.class, () -> jwtService.verifyWithLeeway(wrongSecret));
+        assertThrows(InvalidAccessException.class, () -> jwtService.verifyWithLeeway(invalidSubject));
+        assertThrows(InvalidAccessException.class, () -> jwtService.verifyWithLeeway("not-a-token"));
+    }
+
+    @Test
+    void itShouldReuseAlgorithmAndVerifiers() {
         User user = user();
-        String token = jwtService.generateToken(user);
+        jwtService.verifyWithLeeway(jwtService.generateToken(user));
+
+        var algorithm = ReflectionTestUtils.getField(jwtService, "algorithm");
+        var leewayVerifier = ReflectionTestUtils.getField(jwtService, "leewayVerifier");
+
+        jwtService.verifyWithLeeway(jwtService.generateToken(user));
 
-        assertThat(jwtService.isTokenValid(token, UUID.randomUUID())).isFalse();
+        assertThat(algorithm).isNotNull();
+        assertThat(leewayVerifier).isNotNull();
+        assertThat(ReflectionTestUtils.getField(jwtService, "algorithm")).isSameAs(algorithm);
+        assertThat(ReflectionTestUtils.getField(jwtService, "leewayVerifier")).isSameAs(leewayVerifier);
     }
 
     private User user() {
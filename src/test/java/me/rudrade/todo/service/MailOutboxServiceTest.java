@@ -0,0 +1,353 @@
+package me.rudrade.todo.service;
+
+import jakarta.mail.internet.MimeMessage;
+import me.rudrade.todo.model.MailOutbox;
+import me.rudrade.todo.model.PasswordRequest;
+import me.rudrade.todo.model.UserRequest;
+import me.rudrade.todo.model.types.MailStatus;
+import me.rudrade.todo.model.types.MailType;
+import me.rudrade.todo.repository.MailOutboxRepository;
+import me.rudrade.todo.repository.PasswordRequestRepository;
+import me.rudrade.todo.repository.UserRequestRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MailOutboxServiceTest {
+
+    @Mock private MailOutboxRepository outboxRepository;
+    @Mock private UserRequestRepository userRequestRepository;
+    @Mock private PasswordRequestRepository passwordRequestRepository;
+    @Mock private MailService mailService;
+
+    private MailOutboxService target;
+
+    @BeforeEach
+    void setup() {
+        target = service(4, 2);
+        // Claims are kept unless a test takes them over
+        lenient().when(outboxRepository.extendClaim(anyCollection(), anyString(), any(LocalDateTime.class)))
+            .thenAnswer(inv -> inv.<Collection<?>>getArgument(0).size());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        target.destroy();
+    }
+
+    private MailOutboxService service(int workers, int perDomain) {
+        return new MailOutboxService(outboxRepository, userRequestRepository, passwordRequestRepository, mailService,
+            workers, perDomain, 3, 30, 3600, 1000, 300);
+    }
+
+    private MailOutbox mail(MailType type, String recipient) {
+        var mail = new MailOutbox();
+        mail.setId(UUID.randomUUID());
+        mail.setType(type);
+        mail.setRequestId(UUID.randomUUID());
+        mail.setRecipient(recipient);
+        mail.setStatus(MailStatus.PENDING);
+        mail.setNextAttemptAt(LocalDateTime.now());
+        mail.setDtCreated(LocalDateTime.now());
+        return mail;
+    }
+
+    private void claim(MailOutbox... mails) {
+        when(outboxRepository.claim(any(UUID.class), anyString(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        when(outboxRepository.findByClaimedBy(anyString())).thenReturn(List.of(mails));
+    }
+
+    private UserRequest userRequest(MailOutbox mail) {
+        var request = new UserRequest();
+        request.setId(mail.getRequestId());
+        return request;
+    }
+
+    @Test
+    void itShouldEnqueueAndDeliverMail() throws Exception {
+        var requestId = UUID.randomUUID();
+        var mailId = UUID.randomUUID();
+        var message = mock(MimeMessage.class);
+
+        when(outboxRepository.save(any(MailOutbox.class))).thenAnswer(inv -> {
+            MailOutbox mail = inv.getArgument(0);
+            if (mail.getId() == null)
+                mail.setId(mailId);
+            return mail;
+        });
+        when(outboxRepository.claim(eq(mailId), anyString(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        when(outboxRepository.findByClaimedBy(anyString())).thenAnswer(inv -> {
+            var mail = mail(MailType.ACTIVATION, "user@mail.com");
+            mail.setRequestId(requestId);
+            return List.of(mail);
+        });
+        when(userRequestRepository.findAllById(List.of(requestId))).thenAnswer(inv -> {
+            var request = new UserRequest();
+            request.setId(requestId);
+            return List.of(request);
+        });
+        when(mailService.buildActivationMail(any(UserRequest.class))).thenReturn(message);
+        when(mailService.sendAll(List.of(message))).thenReturn(Map.of());
+
+        var result = target.enqueue(MailType.ACTIVATION, requestId, "user@mail.com");
+
+        assertThat(result.getStatus()).isEqualTo(MailStatus.PENDING);
+        assertThat(result.getRequestId()).isEqualTo(requestId);
+        assertThat(result.getAttempts()).isZero();
+
+        verify(mailService, timeout(2000).times(1)).sendAll(List.of(message));
+        verify(userRequestRepository, timeout(2000).times(1)).markMailSent(List.of(requestId));
+    }
+
+    @Test
+    void itShouldMarkMailsAsSentInOneUpdate() throws Exception {
+        var activation = mail(MailType.ACTIVATION, "a@mail.com");
+        var reset = mail(MailType.PASSWORD_RESET, "b@mail.com");
+        var passwordRequest = new PasswordRequest();
+        passwordRequest.setId(reset.getRequestId());
+        var activationMessage = mock(MimeMessage.class);
+        var resetMessage = mock(MimeMessage.class);
+
+        claim(activation, reset);
+        when(userRequestRepository.findAllById(List.of(activation.getRequestId()))).thenReturn(List.of(userRequest(activation)));
+        when(passwordRequestRepository.findAllById(List.of(reset.getRequestId()))).thenReturn(List.of(passwordRequest));
+        when(mailService.buildActivationMail(any(UserRequest.class))).thenReturn(activationMessage);
+        when(mailService.buildPasswordReset(passwordRequest)).thenReturn(resetMessage);
+        when(mailService.sendAll(List.of(activationMessage, resetMessage))).thenReturn(Map.of());
+
+        target.deliver(activation.getId());
+
+        var captor = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxRepository, times(1)).markSent(captor.capture(), anyString());
+        assertThat(captor.getValue()).containsExactlyInAnyOrder(activation.getId(), reset.getId());
+        verify(userRequestRepository, times(1)).markMailSent(List.of(activation.getRequestId()));
+        verify(passwordRequestRepository, times(1)).markMailSent(List.of(reset.getRequestId()));
+        verify(outboxRepository, never()).save(any());
+        assertThat(target.getSentCount()).isEqualTo(2);
+    }
+
+    @Test
+    void itShouldRetryWithBackoffWhenSendingFails() throws Exception {
+        var mail = mail(MailType.ACTIVATION, "user@mail.com");
+        var message = mock(MimeMessage.class);
+
+        claim(mail);
+        when(userRequestRepository.findAllById(any())).thenReturn(List.of(userRequest(mail)));
+        when(mailService.buildActivationMail(any(UserRequest.class))).thenReturn(message);
+        when(mailService.sendAll(List.of(message))).thenReturn(Map.of(message, "Connection refused"));
+
+        target.deliver(mail.getId());
+
+        assertThat(mail.getStatus()).isEqualTo(MailStatus.PENDING);
+        assertThat(mail.getAttempts()).isEqualTo(1);
+        assertThat(mail.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(20));
+        assertThat(mail.getLastError()).isEqualTo("Connection refused");
+        assertThat(mail.getClaimedBy()).isNull();
+        verify(outboxRepository, times(1)).save(mail);
+        verify(outboxRepository, never()).markSent(any(), any());
+        assertThat(target.getFailedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldRetryWhenMailIsMisconfigured() throws Exception {
+        var mail = mail(MailType.ACTIVATION, "user@mail.com");
+
+        claim(mail);
+        when(userRequestRepository.findAllById(any())).thenReturn(List.of(userRequest(mail)));
+        when(mailService.buildActivationMail(any(UserRequest.class))).thenThrow(new IllegalStateException("Activation url is miss configured"));
+
+        target.deliver(mail.getId());
+
+        assertThat(mail.getStatus()).isEqualTo(MailStatus.PENDING);
+        assertThat(mail.getLastError()).isEqualTo("Activation url is miss configured");
+        verify(mailService, never()).sendAll(any());
+    }
+
+    @Test
+    void itShouldGiveUpAfterMaxAttempts() throws Exception {
+        var mail = mail(MailType.ACTIVATION, "user@mail.com");
+        mail.setAttempts(2);
+        var message = mock(MimeMessage.class);
+
+        claim(mail);
+        when(userRequestRepository.findAllById(any())).thenReturn(List.of(userRequest(mail)));
+        when(mailService.buildActivationMail(any(UserRequest.class))).thenReturn(message);
+        when(mailService.sendAll(List.of(message))).thenReturn(Map.of(message, "Connection refused"));
+
+        target.deliver(mail.getId());
+
+        assertThat(mail.getStatus()).isEqualTo(MailStatus.FAILED);
+        assertThat(mail.getAttempts()).isEqualTo(3);
+    }
+
+    @Test
+    void itShouldFailWhenRequestNoLongerExists() {
+        var mail = mail(MailType.ACTIVATION, "user@mail.com");
+
+        claim(mail);
+        when(userRequestRepository.findAllById(any())).thenReturn(List.of());
+
+        target.deliver(mail.getId());
+
+        assertThat(mail.getStatus()).isEqualTo(MailStatus.FAILED);
+        verifyNoInteractions(mailService);
+    }
+
+    @Test
+    void itShouldSkipMailsClaimedElsewhere() {
+        var id = UUID.randomUUID();
+
+        when(outboxRepository.claim(eq(id), anyString(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(0);
+
+        target.deliver(id);
+
+        verify(outboxRepository, never()).findByClaimedBy(anyString());
+        verify(outboxRepository, never()).save(any());
+        verifyNoInteractions(userRequestRepository, mailService);
+    }
+
+    @Test
+    void itShouldRecoverDueMailsInPages() throws Exception {
+        var mail1 = mail(MailType.ACTIVATION, "a@mail.com");
+        var mail2 = mail(MailType.ACTIVATION, "b@mail.com");
+        var mail3 = mail(MailType.ACTIVATION, "c@mail.com");
+        var message = mock(MimeMessage.class);
+
+        when(outboxRepository.claimDue(anyString(), any(LocalDateTime.class), any(LocalDateTime.class), eq(2))).thenReturn(2, 1);
+        when(outboxRepository.findByClaimedBy(anyString())).thenReturn(List.of(mail1, mail2), List.of(mail3));
+        when(userRequestRepository.findAllById(any())).thenAnswer(inv -> {
+            List<UserRequest> requests = new ArrayList<>();
+            for (UUID requestId : inv.<Iterable<UUID>>getArgument(0)) {
+                var request = new UserRequest();
+                request.setId(requestId);
+                requests.add(request);
+            }
+            return requests;
+        });
+        when(mailService.buildActivationMail(any(UserRequest.class))).thenReturn(message);
+        when(mailService.sendAll(any())).thenReturn(Map.of());
+
+        assertThat(target.recover(2)).isEqualTo(3);
+
+        // Every page claims with its own token
+        var tokens = ArgumentCaptor.forClass(String.class);
+        verify(outboxRepository, times(2)).claimDue(tokens.capture(), any(LocalDateTime.class), any(LocalDateTime.class), eq(2));
+        assertThat(tokens.getAllValues()).doesNotHaveDuplicates();
+        verify(outboxRepository, times(2)).markSent(any(), any());
+        verify(userRequestRepository, times(2)).markMailSent(any());
+        assertThat(target.getSentCount()).isEqualTo(3);
+    }
+
+    @Test
+    void itShouldStopRecoveringWhenNothingIsClaimed() {
+        when(outboxRepository.claimDue(anyString(), any(LocalDateTime.class), any(LocalDateTime.class), anyInt())).thenReturn(0);
+
+        assertThat(target.recover(10)).isZero();
+
+        verify(outboxRepository, never()).findByClaimedBy(anyString());
+        verifyNoInteractions(mailService);
+    }
+
+    @Test
+    void itShouldLimitConcurrentMailsPerDomain() throws Exception {
+        target.destroy();
+        target = service(10, 1);
+
+        var running = new ConcurrentHashMap<String, AtomicInteger>();
+        var maxRunning = new ConcurrentHashMap<String, Integer>();
+        Map<UUID, MailOutbox> mails = new ConcurrentHashMap<>();
+        Map<MimeMessage, String> domains = new ConcurrentHashMap<>();
+        for (var recipient : List.of("a@same.com", "b@same.com", "c@same.com", "d@other.com")) {
+            var mail = mail(MailType.ACTIVATION, recipient);
+            mails.put(mail.getId(), mail);
+        }
+
+        Map<String, UUID> claims = new ConcurrentHashMap<>();
+        when(outboxRepository.claim(any(UUID.class), anyString(), any(LocalDateTime.class), any(LocalDateTime.class))).thenAnswer(inv -> {
+            claims.put(inv.getArgument(1), inv.getArgument(0));
+            return 1;
+        });
+        when(outboxRepository.findByClaimedBy(anyString())).thenAnswer(inv -> List.of(mails.get(claims.get(inv.<String>getArgument(0)))));
+        when(userRequestRepository.findAllById(any())).thenAnswer(inv -> {
+            List<UserRequest> requests = new ArrayList<>();
+            for (UUID requestId : inv.<Iterable<UUID>>getArgument(0)) {
+                var request = new UserRequest();
+                request.setId(requestId);
+                requests.add(request);
+            }
+            return requests;
+        });
+        when(mailService.buildActivationMail(any(UserRequest.class))).thenAnswer(inv -> {
+            UserRequest request = inv.getArgument(0);
+            var message = mock(MimeMessage.class);
+            domains.put(message, mails.values().stream()
+                .filter(mail -> mail.getRequestId().equals(request.getId()))
+                .findFirst().orElseThrow().getDomain());
+            return message;
+        });
+        when(mailService.sendAll(any())).thenAnswer(inv -> {
+            List<MimeMessage> messages = inv.getArgument(0);
+            var domain = domains.get(messages.getFirst());
+
+            var current = running.computeIfAbsent(domain, d -> new AtomicInteger()).incrementAndGet();
+            maxRunning.merge(domain, current, Math::max);
+            Thread.sleep(50);
+            running.get(domain).decrementAndGet();
+            return Map.of();
+        });
+
+        mails.keySet().forEach(target::dispatch);
+
+        verify(mailService, timeout(Duration.ofSeconds(5).toMillis()).times(4)).sendAll(any());
+        assertThat(maxRunning).containsEntry("same.com", 1);
+        verify(outboxRepository, timeout(Duration.ofSeconds(5).toMillis()).times(4)).markSent(any(), any());
+        assertThat(target.domainCount()).isZero();
+    }
+
+    @Test
+    void itShouldNotSendMailsWhoseClaimWasTakenOver() throws Exception {
+        var kept = mail(MailType.ACTIVATION, "a@mail.com");
+        var lost = mail(MailType.ACTIVATION, "b@mail.com");
+        var keptMessage = mock(MimeMessage.class);
+        var lostMessage = mock(MimeMessage.class);
+
+        when(outboxRepository.claim(any(UUID.class), anyString(), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        when(outboxRepository.findByClaimedBy(anyString())).thenReturn(List.of(kept, lost), List.of(kept));
+        when(outboxRepository.extendClaim(anyCollection(), anyString(), any(LocalDateTime.class))).thenReturn(1);
+        when(userRequestRepository.findAllById(any())).thenReturn(List.of(userRequest(kept), userRequest(lost)));
+        when(mailService.buildActivationMail(any(UserRequest.class))).thenReturn(keptMessage, lostMessage);
+        when(mailService.sendAll(List.of(keptMessage))).thenReturn(Map.of());
+
+        target.deliver(kept.getId());
+
+        verify(mailService, times(1)).sendAll(List.of(keptMessage));
+        verify(outboxRepository, times(1)).markSent(eq(List.of(kept.getId())), anyString());
+        verify(outboxRepository, never()).save(any());
+    }
+
+    @Test
+    void itShouldCapBackoff() {
+        assertThat(target.getBackoff(1)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(target.getBackoff(2)).isEqualTo(Duration.ofSeconds(60));
+        assertThat(target.getBackoff(20)).isEqualTo(Duration.ofHours(1));
+    }
+}
@@ -3,70 +3,108 @@ package me.rudrade.todo.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.test.util.ReflectionTestUtils;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.PutObjectResult;
 
+import me.rudrade.todo.config.LocalS3Server;
 import me.rudrade.todo.exception.InvalidDataException;
 
 class S3ServiceTest {
     private static final String BUCKET_NAME = "s3-test-bucket";
 
+    private AmazonS3 s3;
     private S3Service target;
 
     @BeforeEach
     void setup() {
-        target = new S3Service();
-        ReflectionTestUtils.setField(target, "imageBucket", BUCKET_NAME);
+        s3 = mock(AmazonS3.class);
+        target = new S3Service(s3, BUCKET_NAME, "{id}?v={version}");
+    }
+
+    @AfterEach
+    void tearDown() {
+        target.destroy();
     }
 
     @Test
-    void itShouldUploadImage() throws IOException {
+    void itShouldStreamImage() throws IOException {
         var image = spy(MultipartFile.class);
+        var input = new ByteArrayInputStream(new byte[1024]);
         var id = UUID.randomUUID();
 
-        when(image.getSize()).thenReturn(1048576L);
+        when(image.getSize()).thenReturn(1024L);
         when(image.getOriginalFilename()).thenReturn("image.webp");
-        when(image.getBytes()).thenReturn(new byte[1024]);
+        when(image.getInputStream()).thenReturn(input);
+
+        var s3Result = new PutObjectResult();
+        s3Result.setVersionId("v123b");
+        when(s3.putObject(any(PutObjectRequest.class))).thenReturn(s3Result);
 
-        try (
-            var s3Builder = mockStatic(AmazonS3ClientBuilder.class);
-            var files = mockStatic(Files.class);
-        ) {
-            var s3 = mock(AmazonS3.class);
-            s3Builder.when(AmazonS3ClientBuilder::defaultClient).thenReturn(s3);
+        String result = target.uploadImage(image, id).join();
 
-            var s3Result = new PutObjectResult();
-            s3Result.setVersionId("v123b");
-            when(s3.putObject(eq(BUCKET_NAME), eq(id+".webp"), any(File.class))).thenReturn(s3Result);
+        assertThat(result).isEqualTo(s3Result.getVersionId());
 
-            String result = target.uploadImage(image, id);
+        var captor = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3, times(1)).putObject(captor.capture());
+        verifyNoMoreInteractions(s3);
 
-            assertThat(result).isEqualTo(s3Result.getVersionId());
+        assertThat(captor.getValue().getBucketName()).isEqualTo(BUCKET_NAME);
+        assertThat(captor.getValue().getKey()).isEqualTo(id + ".webp");
+        assertThat(captor.getValue().getInputStream()).isSameAs(input);
+        assertThat(captor.getValue().getFile()).isNull();
+        assertThat(captor.getValue().getMetadata().getContentLength()).isEqualTo(1024L);
+        verify(image, never()).getBytes();
+    }
 
-            s3Builder.verify(AmazonS3ClientBuilder::defaultClient, times(1));
-            s3Builder.verifyNoMoreInteractions();
+    @Test
+    void itShouldDeleteDiscardedUploadVersion() {
+        var id = UUID.randomUUID();
 
-            files.verify(() -> Files.write(any(Path.class), any(byte[].class)), times(1));
-            files.verify(() -> Files.deleteIfExists(any(Path.class)), times(1));
-            files.verifyNoMoreInteractions();
+        target.discardUpload(CompletableFuture.completedFuture("v123b"), id);
+        target.discardUpload(CompletableFuture.completedFuture(null), id);
+        target.discardUpload(CompletableFuture.failedFuture(new IllegalStateException()), id);
+
+        verify(s3, timeout(1000).times(1)).deleteVersion(BUCKET_NAME, id + ".webp", "v123b");
+        verifyNoMoreInteractions(s3);
+    }
+
+    @Test
+    void itShouldUploadToS3CompatibleServer() throws IOException {
+        var content = new byte[300_000];
+        new Random(42).nextBytes(content);
+        var id = UUID.randomUUID();
 
-            verify(s3, times(1)).putObject(eq(BUCKET_NAME), eq(id+".webp"), any(File.class));
-            verifyNoMoreInteractions(s3);
+        try (var server = new LocalS3Server()) {
+            var client = server.client();
+            var service = new S3Service(client, BUCKET_NAME, "{id}?v={version}");
+            try {
+                var version = service.uploadImage(new MockMultipartFile("image", "image.webp", "image/webp", content), id).join();
+
+                assertThat(version).isNotBlank();
+                assertThat(server.getObject(BUCKET_NAME, id + ".webp")).isEqualTo(content);
+                assertThat(server.getContentType(BUCKET_NAME, id + ".webp")).isEqualTo("image/webp");
+                assertThat(service.getImagePath(id, version)).isEqualTo(id + ".webp?v=" + version);
+
+            } finally {
+                service.destroy();
+                client.shutdown();
+            }
         }
     }
 
@@ -78,6 +116,7 @@ class S3ServiceTest {
         when(image.getSize()).thenReturn(1672864L);
 
         assertThrows(InvalidDataException.class, () -> target.uploadImage(image, userId));
+        verifyNoInteractions(s3);
     }
 
     @Test
@@ -89,6 +128,7 @@ class S3ServiceTest {
         when(image.getName()).thenReturn("image.png");
 
         assertThrows(InvalidDataException.class, () -> target.uploadImage(image, userId));
+        verifyNoInteractions(s3);
     }
 
 }
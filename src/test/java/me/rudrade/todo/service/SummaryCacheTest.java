@@ -0,0 +1,171 @@
+package me.rudrade.todo.service;
+
+import me.rudrade.todo.config.RedisChangeRelay;
+import me.rudrade.todo.dto.TagDto;
+import me.rudrade.todo.dto.UserListDto;
+import me.rudrade.todo.model.Tag;
+import me.rudrade.todo.model.types.ChangeType;
+import me.rudrade.todo.repository.TagRepository;
+import me.rudrade.todo.repository.UserListRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SummaryCacheTest {
+
+    @Mock private RedisChangeRelay relay;
+    @Mock private TagRepository tagRepository;
+    @Mock private UserListRepository userListRepository;
+
+    private SummaryCache cache(int maxSize) {
+        return new SummaryCache(relay, tagRepository, userListRepository, maxSize, 300);
+    }
+
+    @Test
+    void itShouldLoadTagsOnlyOnce() {
+        var cache = cache(10);
+        var userId = UUID.randomUUID();
+
+        when(tagRepository.findByUserId(userId)).thenReturn(List.of(new Tag(UUID.randomUUID(), "tag", "black", null, null)));
+
+        assertThat(cache.getTags(userId)).containsExactly(new TagDto("tag", "black"));
+        assertThat(cache.getTags(userId)).containsExactly(new TagDto("tag", "black"));
+
+        verify(tagRepository, times(1)).findByUserId(userId);
+        assertThat(cache.getTagHits()).isEqualTo(1);
+        assertThat(cache.getTagMisses()).isEqualTo(1);
+        verifyNoInteractions(userListRepository);
+    }
+
+    @Test
+    void itShouldLoadListsFromAggregateQuery() {
+        var cache = cache(10);
+        var userId = UUID.randomUUID();
+        var summaries = List.of(new UserListDto("list", "red", 3));
+
+        when(userListRepository.findSummariesByUserId(userId)).thenReturn(summaries);
+
+        assertThat(cache.getLists(userId)).isEqualTo(summaries);
+        assertThat(cache.getLists(userId)).isEqualTo(summaries);
+
+        verify(userListRepository, times(1)).findSummariesByUserId(userId);
+        verifyNoMoreInteractions(userListRepository);
+        assertThat(cache.getListHits()).isEqualTo(1);
+        assertThat(cache.getListMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void itShouldReloadAfterEvict() {
+        var cache = cache(10);
+        var userId = UUID.randomUUID();
+
+        when(tagRepository.findByUserId(userId)).thenReturn(List.of());
+        when(userListRepository.findSummariesByUserId(userId)).thenReturn(List.of());
+
+        cache.getTags(userId);
+        cache.getLists(userId);
+        cache.evictTags(userId);
+        cache.getTags(userId);
+        cache.getLists(userId);
+
+        verify(tagRepository, times(2)).findByUserId(userId);
+        verify(userListRepository, times(1)).findSummariesByUserId(userId);
+    }
+
+    @Test
+    void itShouldEvictAgainAfterCommit() {
+        var cache = cache(10);
+        var userId = UUID.randomUUID();
+
+        when(userListRepository.findSummariesByUserId(userId)).thenReturn(List.of());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.evictLists(userId);
+
+            // A read before the commit still sees the old rows
+            cache.getLists(userId);
+            assertThat(cache.size()).isEqualTo(1);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCommit());
+            assertThat(cache.size()).isZero();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void itShouldEvictLeastRecentlyUsedUsers() {
+        var cache = cache(2);
+
+        when(tagRepository.findByUserId(any())).thenReturn(List.of());
+
+        cache.getTags(UUID.randomUUID());
+        cache.getTags(UUID.randomUUID());
+        cache.getTags(UUID.randomUUID());
+
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void itShouldEvictOnChangesOfOtherInstances() {
+        var cache = cache(10);
+        var userId = UUID.randomUUID();
+
+        when(tagRepository.findByUserId(userId)).thenReturn(List.of());
+        when(userListRepository.findSummariesByUserId(userId)).thenReturn(List.of());
+
+        cache.getTags(userId);
+        cache.getLists(userId);
+        cache.evict(new ChangeEvent(userId, ChangeType.TASK, 1L));
+        cache.getTags(userId);
+        cache.getLists(userId);
+        cache.evict(new ChangeEvent(userId, ChangeType.TAG, 2L));
+        cache.getTags(userId);
+
+        verify(relay, times(1)).listen(any());
+        verify(tagRepository, times(2)).findByUserId(userId);
+        verify(userListRepository, times(2)).findSummariesByUserId(userId);
+    }
+
+    @Test
+    void itShouldNotCacheWhileMessagesMayBeMissed() {
+        var cache = cache(10);
+        var userId = UUID.randomUUID();
+
+        when(relay.mayMissMessages()).thenReturn(true);
+        when(tagRepository.findByUserId(userId)).thenReturn(List.of());
+
+        cache.getTags(userId);
+        cache.getTags(userId);
+
+        verify(tagRepository, times(2)).findByUserId(userId);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void itShouldStartOverWhenSubscribedAgain() {
+        var cache = cache(10);
+        var userId = UUID.randomUUID();
+
+        when(tagRepository.findByUserId(userId)).thenReturn(List.of());
+        cache.getTags(userId);
+
+        ArgumentCaptor<Runnable> subscribed = ArgumentCaptor.forClass(Runnable.class);
+        verify(relay, times(1)).onSubscribed(subscribed.capture());
+        subscribed.getValue().run();
+        cache.getTags(userId);
+
+        verify(tagRepository, times(2)).findByUserId(userId);
+    }
+}
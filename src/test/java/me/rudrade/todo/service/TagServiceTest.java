@@ -1,20 +1,29 @@
 package me.rudrade.todo.service;
 
+import me.rudrade.todo.dto.TagDto;
 import me.rudrade.todo.exception.InvalidAccessException;
 import me.rudrade.todo.exception.InvalidDataException;
+import me.rudrade.todo.exception.UnexpectedErrorException;
 import me.rudrade.todo.model.Tag;
 import me.rudrade.todo.model.User;
+import me.rudrade.todo.model.types.ChangeType;
 import me.rudrade.todo.repository.TagRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.MessageSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.sql.PreparedStatement;
 
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -22,11 +31,16 @@ class TagServiceTest {
 
     @Mock private TagRepository tagRepository;
     @Mock private MessageSource messageSource;
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private SummaryCache summaryCache;
+    @Mock private ChangeVersions changeVersions;
+    @Mock private ChangeLog changeLog;
+    @Mock private EntityCache entityCache;
 
     private TagService tagService;
     private TagService getTagService() {
         if (tagService == null) {
-            tagService = new TagService(tagRepository, messageSource);
+            tagService = new TagService(tagRepository, messageSource, jdbcTemplate, summaryCache, changeVersions, changeLog, entityCache);
         }
         return tagService;
     }
@@ -71,92 +85,25 @@ class TagServiceTest {
     }
 
     @Test
-    void itShouldFindOrCreateByUserWhenExists() {
+    void itShouldGetSummaries() {
         User user = new User();
         user.setId(UUID.randomUUID());
+        List<TagDto> summaries = List.of(new TagDto("tag", "black"));
 
-        Tag tag = new Tag(UUID.randomUUID(), "tag-test", "black", user, null);
-
-        when(tagRepository.findByNameAndUserId(tag.getName(), user.getId()))
-            .thenReturn(Optional.of(tag));
-
-        Tag result = getTagService().findOrCreateByUser(user, tag);
-
-        assertThat(result)
-            .isEqualTo(tag);
-
-        verify(tagRepository, times(1)).findByNameAndUserId(tag.getName(), user.getId());
-        verifyNoMoreInteractions(tagRepository);
-    }
-
-    @Test
-    void itShouldFindOrCreateByUserWhenNotExists() {
-        User user = new User();
-        user.setId(UUID.randomUUID());
-
-        Tag tag = new Tag(null, "tag-test", "black", user, null);
-
-        when(tagRepository.findByNameAndUserId(tag.getName(), user.getId()))
-            .thenReturn(Optional.empty());
-
-        when(tagRepository.save(tag))
-            .thenReturn(tag);
+        when(summaryCache.getTags(user.getId())).thenReturn(summaries);
 
-        Tag result = getTagService().findOrCreateByUser(user, tag);
-
-        assertThat(result)
-            .usingRecursiveComparison()
-            .ignoringFields("id")
-            .isEqualTo(tag);
-
-        verify(tagRepository, times(1)).findByNameAndUserId(tag.getName(), user.getId());
-        verify(tagRepository, times(1)).save(tag);
-        verifyNoMoreInteractions(tagRepository);
-    }
-
-    @Test
-    void itShouldThrowWhenFindOrCreateWithNullUser() {
-        Tag tag = new Tag();
-        TagService service = getTagService();
-
-        assertThrows(InvalidAccessException.class, () -> service.findOrCreateByUser(null, tag));
+        assertThat(getTagService().getSummaries(user)).isEqualTo(summaries);
         verifyNoInteractions(tagRepository);
     }
 
     @Test
-    void itShouldThrowWhenFindOrCreateWithNullTag() {
-        User user = new User();
-        user.setId(UUID.randomUUID());
+    void itShouldThrowWhenGettingSummariesWithoutUser() {
         TagService service = getTagService();
+        User userNoId = new User();
 
-        assertThrows(InvalidDataException.class, () -> service.findOrCreateByUser(user, null));
-        verifyNoInteractions(tagRepository);
-    }
-
-    @Test
-    void itShouldFindOrCreateByUserWhenColorIsNull() {
-        User user = new User();
-        user.setId(UUID.randomUUID());
-
-        Tag tag = new Tag(null, "tag-test", null, null, null);
-
-        when(tagRepository.findByNameAndUserId(tag.getName(), user.getId()))
-            .thenReturn(Optional.empty());
-        when(tagRepository.save(tag))
-            .thenReturn(tag);
-
-        Tag result = getTagService().findOrCreateByUser(user, tag);
-
-        assertThat(tag.getColor())
-            .matches("^#[0-9a-fA-F]{6}$");
-        assertThat(tag.getUser())
-            .isEqualTo(user);
-        assertThat(result)
-            .isEqualTo(tag);
-
-        verify(tagRepository, times(1)).findByNameAndUserId(tag.getName(), user.getId());
-        verify(tagRepository, times(1)).save(tag);
-        verifyNoMoreInteractions(tagRepository);
+        assertThrows(InvalidAccessException.class, () -> service.getSummaries(null));
+        assertThrows(InvalidAccessException.class, () -> service.getSummaries(userNoId));
+        verifyNoInteractions(summaryCache);
     }
 
     @Test
@@ -202,6 +149,9 @@ class TagServiceTest {
 
         verify(tagRepository, times(1)).findByIdAndUserId(id, user.getId());
         verify(tagRepository, times(1)).deleteById(id);
+        verify(changeLog).deleted(user.getId(), ChangeType.TAG, id, "tag");
+        verify(summaryCache, times(1)).evictTags(user.getId());
+        verify(changeVersions).bump(user.getId());
         verifyNoMoreInteractions(tagRepository);
     }
 
@@ -235,29 +185,101 @@ class TagServiceTest {
     }
 
     @Test
-    void itShouldFindOrCreateByUserWhenColorIsEmpty() {
+    void itShouldFindAllByUserWithoutInsertingWhenAllExist() {
         User user = new User();
         user.setId(UUID.randomUUID());
 
-        Tag tag = new Tag(null, "tag-test", "", null, null);
-
-        when(tagRepository.findByNameAndUserId(tag.getName(), user.getId()))
-            .thenReturn(Optional.empty());
-        when(tagRepository.save(tag))
-            .thenReturn(tag);
+        Tag home = new Tag(UUID.randomUUID(), "home", "black", user, null);
+        Tag work = new Tag(UUID.randomUUID(), "Work", "white", user, null);
 
-        Tag result = getTagService().findOrCreateByUser(user, tag);
+        when(tagRepository.findByUserIdAndNameIn(user.getId(), List.of("work", "home")))
+            .thenReturn(List.of(home, work));
 
-        assertThat(tag.getColor())
-            .matches("^#[0-9a-fA-F]{6}$");
-        assertThat(tag.getUser())
-            .isEqualTo(user);
-        assertThat(result)
-            .isEqualTo(tag);
+        List<Tag> result = getTagService().findOrCreateAllByUser(user, List.of(
+            new Tag(null, "work", null, null, null),
+            new Tag(null, "home", null, null, null),
+            new Tag(null, "WORK", null, null, null)));
 
-        verify(tagRepository, times(1)).findByNameAndUserId(tag.getName(), user.getId());
-        verify(tagRepository, times(1)).save(tag);
+        assertThat(result).containsExactly(work, home);
+        verifyNoInteractions(summaryCache);
+        verify(tagRepository, times(1)).findByUserIdAndNameIn(user.getId(), List.of("work", "home"));
         verifyNoMoreInteractions(tagRepository);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void itShouldCreateMissingTagsInOneBatch() throws Exception {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+
+        Tag existing = new Tag(UUID.randomUUID(), "existing", "black", user, null);
+        Tag created1 = new Tag(UUID.randomUUID(), "new-1", "#ffffff", user, null);
+        Tag created2 = new Tag(UUID.randomUUID(), "new-2", "#000000", user, null);
+
+        when(tagRepository.findByUserIdAndNameIn(user.getId(), List.of("new-1", "existing", "new-2")))
+            .thenReturn(List.of(existing));
+        when(tagRepository.findLockedByUserIdAndNameIn(user.getId(), List.of("new-1", "new-2")))
+            .thenReturn(List.of(created2, created1));
+
+        List<Tag> result = getTagService().findOrCreateAllByUser(user, List.of(
+            new Tag(null, "new-1", "#ffffff", null, null),
+            new Tag(null, "existing", null, null, null),
+            new Tag(null, "new-2", "", null, null)));
+
+        assertThat(result).containsExactly(created1, existing, created2);
+        verify(changeLog).saved(user.getId(), ChangeType.TAG, List.of(created2.getId(), created1.getId()));
+        verify(summaryCache, times(1)).evictTags(user.getId());
+        verify(changeVersions).bump(user.getId());
+
+        ArgumentCaptor<Collection<Tag>> inserted = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Tag>> setter = ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(TagService.INSERT_IGNORE), inserted.capture(), eq(2), setter.capture());
+        assertThat(inserted.getValue()).extracting(Tag::getName).containsExactly("new-1", "new-2");
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        Tag withoutColor = inserted.getValue().stream().toList().get(1);
+        setter.getValue().setValues(ps, withoutColor);
+
+        ArgumentCaptor<String> color = ArgumentCaptor.forClass(String.class);
+        verify(ps).setString(3, "new-2");
+        verify(ps).setString(eq(4), color.capture());
+        verify(ps, times(2)).setBytes(anyInt(), argThat(bytes -> bytes.length == 16));
+        assertThat(color.getValue()).matches("^#[0-9a-fA-F]{6}$");
+    }
+
+    @Test
+    void itShouldThrowWhenCreatedTagIsNotFound() {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+
+        when(tagRepository.findByUserIdAndNameIn(user.getId(), List.of("tag"))).thenReturn(List.of());
+        when(tagRepository.findLockedByUserIdAndNameIn(user.getId(), List.of("tag"))).thenReturn(List.of());
+
+        TagService service = getTagService();
+        List<Tag> tags = List.of(new Tag(null, "tag", "black", null, null));
+
+        assertThrows(UnexpectedErrorException.class, () -> service.findOrCreateAllByUser(user, tags));
+    }
+
+    @Test
+    void itShouldThrowWhenFindOrCreateAllWithInvalidInput() {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        TagService service = getTagService();
+
+        List<Tag> tags = List.of(new Tag(null, "tag", "black", null, null));
+        assertThrows(InvalidAccessException.class, () -> service.findOrCreateAllByUser(null, tags));
+
+        List<Tag> blankName = List.of(new Tag(null, " ", "black", null, null));
+        assertThrows(InvalidAccessException.class, () -> service.findOrCreateAllByUser(user, blankName));
+
+        List<Tag> nullTag = Collections.singletonList(null);
+        assertThrows(InvalidDataException.class, () -> service.findOrCreateAllByUser(user, nullTag));
+
+        assertThat(service.findOrCreateAllByUser(user, List.of())).isEmpty();
+
+        verifyNoInteractions(tagRepository, jdbcTemplate);
     }
 
 }
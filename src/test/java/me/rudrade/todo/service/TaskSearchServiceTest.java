@@ -0,0 +1,76 @@
+package me.rudrade.todo.service;
+
+import me.rudrade.todo.model.Task;
+import me.rudrade.todo.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskSearchServiceTest {
+
+    @Mock private TaskRepository repository;
+    @Mock private JdbcTemplate jdbcTemplate;
+
+    private TaskSearchService target;
+
+    @BeforeEach
+    void setup() {
+        target = new TaskSearchService(repository, jdbcTemplate);
+    }
+
+    @Test
+    void itShouldTokenizeTerms() {
+        assertThat(TaskSearchService.tokenize("  Buy MILK, buy bread!  ")).containsExactly("buy", "milk", "bread");
+        assertThat(TaskSearchService.tokenize("café-com-leite")).containsExactly("café", "com", "leite");
+        assertThat(TaskSearchService.tokenize("+\"-*~<>()")).isEmpty();
+        assertThat(TaskSearchService.tokenize("a b c d e f g h i j k l")).hasSize(TaskSearchService.MAX_TERMS);
+    }
+
+    @Test
+    void itShouldRequireEveryTermAsPrefix() {
+        assertThat(target.toBooleanQuery("Buy milk")).isEqualTo("+buy* +milk*");
+        // Operators typed by the user are dropped
+        assertThat(target.toBooleanQuery("-milk +\"bread\"")).isEqualTo("+milk* +bread*");
+        // Terms shorter than the token size aren't indexed
+        assertThat(target.toBooleanQuery("go to gym")).isEqualTo("+gym*");
+    }
+
+    @Test
+    void itShouldSearchWithFullTextIndex() {
+        var userId = UUID.randomUUID();
+        var task = new Task();
+        when(repository.searchFullText("+milk*", userId, 10, 20)).thenReturn(List.of(task));
+
+        assertThat(target.search("Milk", userId, 10, 20)).containsExactly(task);
+        verify(repository, never()).searchContains(anyString(), any(), anyInt(), anyLong());
+    }
+
+    @Test
+    void itShouldScanWhenNoTermCanBeIndexed() {
+        var userId = UUID.randomUUID();
+        when(repository.countContains("%to\\_d\\%%", userId)).thenReturn(2L);
+
+        assertThat(target.count(" To_d% ", userId)).isEqualTo(2L);
+        verify(repository, never()).countFullText(anyString(), any());
+    }
+
+    @Test
+    void itShouldReadTokenSize() {
+        when(jdbcTemplate.queryForObject("select @@innodb_ft_min_token_size", Integer.class)).thenReturn(2);
+
+        target.readTokenSize();
+
+        assertThat(target.toBooleanQuery("go to gym")).isEqualTo("+go* +to* +gym*");
+    }
+}
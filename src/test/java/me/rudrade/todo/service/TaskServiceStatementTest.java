@@ -0,0 +1,89 @@
+package me.rudrade.todo.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import me.rudrade.todo.config.ConfigurationUtil;
+import me.rudrade.todo.config.SqlIntegrationTest;
+import me.rudrade.todo.dto.filter.TaskListFilter;
+import me.rudrade.todo.model.Tag;
+import me.rudrade.todo.model.Task;
+import me.rudrade.todo.model.User;
+import me.rudrade.todo.model.UserList;
+import me.rudrade.todo.repository.TagRepository;
+import me.rudrade.todo.repository.TaskRepository;
+import me.rudrade.todo.repository.UserListRepository;
+import me.rudrade.todo.repository.UserRepository;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the statements {@link TaskService} runs against MySQL to list a user's tasks with their list and tags.
+ */
+@DataJpaTest(includeFilters = @ComponentScan.Filter(type = FilterType.ANNOTATION, classes = Service.class))
+@Import({ConfigurationUtil.PasswordEncoder.class, ConfigurationUtil.MailSender.class})
+class TaskServiceStatementTest extends SqlIntegrationTest {
+
+    @Autowired private TaskService taskService;
+    @Autowired private TaskRepository taskRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private UserListRepository userListRepository;
+    @Autowired private TagRepository tagRepository;
+    @Autowired private TestEntityManager entityManager;
+
+    @Test
+    void itShouldListTasksWithConstantNumberOfStatements() {
+        long statementsFewTasks = countStatementsToList(createUserWithTasks(10));
+        long statementsManyTasks = countStatementsToList(createUserWithTasks(1_000));
+
+        assertThat(statementsManyTasks).isEqualTo(statementsFewTasks);
+    }
+
+    private User createUserWithTasks(int nrTasks) {
+        User user = userRepository.save(createUser());
+        UserList list = userListRepository.save(new UserList(null, "list", "red", user, null));
+        Tag tag1 = tagRepository.save(new Tag(null, "tag-1", "red", user, null));
+        Tag tag2 = tagRepository.save(new Tag(null, "tag-2", "blue", user, null));
+
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < nrTasks; i++) {
+            tasks.add(new Task(null, "title " + i, null, LocalDate.now().plusDays(i % 30), user, list, List.of(tag1, tag2)));
+        }
+        taskRepository.saveAll(tasks);
+
+        return user;
+    }
+
+    private long countStatementsToList(User user) {
+        entityManager.flush();
+        entityManager.clear();
+
+        var statistics = entityManager.getEntityManager().getEntityManagerFactory()
+            .unwrap(SessionFactory.class)
+            .getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        var response = taskService.getAll(new TaskListFilter(null, null, user));
+
+        assertThat(response.tasks())
+            .isNotEmpty()
+            .allSatisfy(task -> {
+                assertThat(task.getListName()).isEqualTo("list");
+                assertThat(task.getTags()).hasSize(2);
+            });
+
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -2,15 +2,25 @@ package me.rudrade.todo.service;
 
 import me.rudrade.todo.dto.Mapper;
 import me.rudrade.todo.dto.TagDto;
+import me.rudrade.todo.dto.TaskBatchDto;
 import me.rudrade.todo.dto.TaskDto;
+import me.rudrade.todo.dto.TaskOperationDto;
+import me.rudrade.todo.dto.UserListDto;
+import me.rudrade.todo.dto.filter.SearchCursor;
+import me.rudrade.todo.dto.filter.TaskCursor;
 import me.rudrade.todo.dto.filter.TaskListFilter;
+import me.rudrade.todo.dto.response.TaskChangesResponse;
 import me.rudrade.todo.dto.response.TaskListResponse;
+import me.rudrade.todo.dto.response.TaskOperationResult;
+import me.rudrade.todo.dto.types.TaskOperationType;
 import me.rudrade.todo.exception.InvalidAccessException;
 import me.rudrade.todo.exception.InvalidDataException;
+import me.rudrade.todo.model.EntityChange;
 import me.rudrade.todo.model.Tag;
 import me.rudrade.todo.model.Task;
 import me.rudrade.todo.model.User;
 import me.rudrade.todo.model.UserList;
+import me.rudrade.todo.model.types.ChangeType;
 import me.rudrade.todo.repository.TaskRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,12 +28,15 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.MessageSource;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -37,12 +50,16 @@ class TaskServiceTest {
     @Mock private UserListService userListService;
     @Mock private TagService tagService;
     @Mock private MessageSource messageSource;
+    @Mock private TaskSearchService searchService;
+    @Mock private SummaryCache summaryCache;
+    @Mock private ChangeVersions changeVersions;
+    @Mock private ChangeLog changeLog;
 
     private TaskService taskService;
 
     private TaskService taskService() {
         if (taskService == null) {
-            taskService = new TaskService(userListService, taskRepository, tagService, messageSource);
+            taskService = new TaskService(userListService, taskRepository, tagService, messageSource, searchService, summaryCache, changeVersions, changeLog);
         }
         return taskService;
     }
@@ -64,6 +81,165 @@ class TaskServiceTest {
         return task;
     }
 
+    // saveBatch
+    @Test
+    void itShouldApplyBatchOperationsInOrder() {
+        User user = user();
+        Task updated = task(UUID.randomUUID(), "old", null, null, null, null);
+        Task removed = task(UUID.randomUUID(), "removed", null, null, null, null);
+
+        when(taskRepository.findAllByIdInAndUserId(anyCollection(), eq(user.getId()))).thenReturn(List.of(updated, removed));
+        when(taskRepository.saveAll(anyList())).thenAnswer(inv -> {
+            List<Task> tasks = inv.getArgument(0);
+            tasks.forEach(t -> t.setId(UUID.randomUUID()));
+            return tasks;
+        });
+
+        var batch = new TaskBatchDto(List.of(
+            new TaskOperationDto(TaskOperationType.SAVE, null, new TaskDto(null, "new", null, null, null, null)),
+            new TaskOperationDto(TaskOperationType.SAVE, null, new TaskDto(updated.getId(), "updated", "desc", null, null, null)),
+            new TaskOperationDto(TaskOperationType.DELETE, removed.getId(), null)
+        ));
+
+        var results = taskService().saveBatch(batch, user).results();
+
+        assertThat(results).extracting(TaskOperationResult::index).containsExactly(0, 1, 2);
+        assertThat(results).extracting(TaskOperationResult::success).containsExactly(true, true, true);
+        assertThat(results.get(0).id()).isNotNull();
+        assertThat(results.get(1).id()).isEqualTo(updated.getId());
+        assertThat(results.get(2).id()).isEqualTo(removed.getId());
+        assertThat(updated.getTitle()).isEqualTo("updated");
+        assertThat(updated.getDescription()).isEqualTo("desc");
+
+        verify(taskRepository).findAllByIdInAndUserId(argThat(ids -> ids.size() == 2), eq(user.getId()));
+        verify(taskRepository).saveAll(argThat(tasks -> ((List<Task>) tasks).size() == 1));
+        verify(taskRepository).deleteAll(List.of(removed));
+        verify(summaryCache).evictLists(user.getId());
+        verify(changeVersions).bump(user.getId());
+        verifyNoInteractions(userListService, tagService);
+    }
+
+    @Test
+    void itShouldReportFailedOperationsAndKeepTheRest() {
+        User user = user();
+        UUID missingId = UUID.randomUUID();
+
+        when(taskRepository.findAllByIdInAndUserId(anyCollection(), eq(user.getId()))).thenReturn(List.of());
+        when(taskRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        when(messageSource.getMessage(eq("task.missing"), any(), any())).thenReturn("missing");
+        when(messageSource.getMessage(eq("task.operation.invalid"), any(), any())).thenReturn("invalid");
+
+        var batch = new TaskBatchDto(List.of(
+            new TaskOperationDto(TaskOperationType.DELETE, missingId, null),
+            new TaskOperationDto(TaskOperationType.SAVE, null, new TaskDto(missingId, "title", null, null, null, null)),
+            new TaskOperationDto(TaskOperationType.SAVE, null, new TaskDto(null, " ", null, null, "list", null)),
+            new TaskOperationDto(TaskOperationType.DELETE, null, null),
+            new TaskOperationDto(TaskOperationType.SAVE, null, new TaskDto(null, "valid", null, null, null, null))
+        ));
+
+        var results = taskService().saveBatch(batch, user).results();
+
+        assertThat(results).extracting(TaskOperationResult::success).containsExactly(false, false, false, false, true);
+        assertThat(results).extracting(TaskOperationResult::error)
+            .containsExactly("missing", "missing", "Title must not be blank", "invalid", null);
+
+        verify(taskRepository).saveAll(argThat(tasks -> ((List<Task>) tasks).size() == 1));
+        verify(taskRepository).deleteAll(List.of());
+        // The invalid operation doesn't create its list
+        verifyNoInteractions(userListService, tagService);
+    }
+
+    @Test
+    void itShouldResolveListsAndTagsOncePerName() {
+        User user = user();
+        UserList list = new UserList();
+        list.setName("work");
+        Tag tag = new Tag();
+        tag.setName("urgent");
+
+        when(taskRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        when(userListService.saveByName("work", user)).thenReturn(list);
+        when(tagService.findOrCreateAllByUser(eq(user), anyList())).thenReturn(List.of(tag));
+
+        var tags = List.of(new TagDto("urgent", "#ffffff"));
+        var batch = new TaskBatchDto(IntStream.range(0, 10)
+            .mapToObj(i -> new TaskOperationDto(TaskOperationType.SAVE, null, new TaskDto(null, "task " + i, null, null, "work", tags)))
+            .toList());
+
+        var results = taskService().saveBatch(batch, user).results();
+
+        assertThat(results).allSatisfy(result -> {
+            assertThat(result.success()).isTrue();
+            assertThat(result.task().getListName()).isEqualTo("work");
+        });
+        verify(userListService, times(1)).saveByName("work", user);
+        verify(tagService, times(1)).findOrCreateAllByUser(eq(user), argThat(lst -> lst.size() == 10));
+        verify(taskRepository, never()).findAllByIdInAndUserId(anyCollection(), any());
+    }
+
+    @Test
+    void itShouldSaveBatchTaskWithoutListWhenListNameIsBlank() {
+        User user = user();
+
+        when(taskRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        var batch = new TaskBatchDto(List.of(
+            new TaskOperationDto(TaskOperationType.SAVE, null, new TaskDto(null, "title", null, null, " ", null))
+        ));
+
+        var results = taskService().saveBatch(batch, user).results();
+
+        assertThat(results).singleElement().satisfies(result -> {
+            assertThat(result.success()).isTrue();
+            assertThat(result.task().getListName()).isNull();
+        });
+        verifyNoInteractions(userListService);
+    }
+
+    @Test
+    void itShouldFailOnlyOperationsWithBlankTagNames() {
+        User user = user();
+        Tag tag = new Tag();
+        tag.setName("urgent");
+
+        when(taskRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        when(messageSource.getMessage(eq("tag.name.missing"), any(), any())).thenReturn("tag name");
+        when(tagService.findOrCreateAllByUser(eq(user), anyList())).thenReturn(List.of(tag));
+
+        var tags = new ArrayList<TagDto>();
+        tags.add(null);
+        var batch = new TaskBatchDto(List.of(
+            new TaskOperationDto(TaskOperationType.SAVE, null, new TaskDto(null, "blank", null, null, null, List.of(new TagDto(" ", null)))),
+            new TaskOperationDto(TaskOperationType.SAVE, null, new TaskDto(null, "null name", null, null, null, List.of(new TagDto(null, null)))),
+            new TaskOperationDto(TaskOperationType.SAVE, null, new TaskDto(null, "null tag", null, null, null, tags)),
+            new TaskOperationDto(TaskOperationType.SAVE, null, new TaskDto(null, "valid", null, null, null, List.of(new TagDto("urgent", null))))
+        ));
+
+        var results = taskService().saveBatch(batch, user).results();
+
+        assertThat(results).extracting(TaskOperationResult::success).containsExactly(false, false, false, true);
+        assertThat(results).extracting(TaskOperationResult::error).containsExactly("tag name", "tag name", "tag name", null);
+        verify(tagService, times(1)).findOrCreateAllByUser(eq(user), argThat(lst -> lst.size() == 1));
+    }
+
+    @Test
+    void itShouldRejectBatchOutOfBounds() {
+        User user = user();
+        TaskService service = taskService();
+
+        var empty = new TaskBatchDto(List.of());
+        assertThrows(InvalidDataException.class, () -> service.saveBatch(empty, user));
+
+        var operation = new TaskOperationDto(TaskOperationType.DELETE, UUID.randomUUID(), null);
+        var tooLarge = new TaskBatchDto(IntStream.range(0, TaskService.MAX_BATCH_SIZE + 1).mapToObj(i -> operation).toList());
+        assertThrows(InvalidDataException.class, () -> service.saveBatch(tooLarge, user));
+
+        var batch = new TaskBatchDto(List.of(operation));
+        assertThrows(InvalidAccessException.class, () -> service.saveBatch(batch, null));
+
+        verifyNoInteractions(taskRepository);
+    }
+
     // saveTask
     @Test
     void itShouldSaveNewTaskWithUser() {
@@ -169,7 +345,7 @@ class TaskServiceTest {
         TaskDto input = new TaskDto(null, "title", "desc", LocalDate.now(), null, List.of(tagDto));
         Tag tag = new Tag(UUID.randomUUID(), tagDto.name(), tagDto.color(), user, null);
 
-        when(tagService.findOrCreateByUser(eq(user), any(Tag.class))).thenReturn(tag);
+        when(tagService.findOrCreateAllByUser(eq(user), anyList())).thenReturn(List.of(tag));
         when(taskRepository.save(any(Task.class))).thenAnswer(inv -> {
             Task t = inv.getArgument(0);
             t.setId(UUID.randomUUID());
@@ -179,7 +355,7 @@ class TaskServiceTest {
         TaskDto output = taskService().saveTask(input, user);
 
         assertThat(output.getTags()).singleElement().isEqualTo(tagDto);
-        verify(tagService).findOrCreateByUser(eq(user), any(Tag.class));
+        verify(tagService).findOrCreateAllByUser(eq(user), argThat(lst -> lst.size() == 1 && tagDto.name().equals(lst.iterator().next().getName())));
         verify(taskRepository).save(argThat(t -> t.getTags() != null && t.getTags().size() == 1));
     }
 
@@ -223,6 +399,7 @@ class TaskServiceTest {
 
         assertThat(response.tasks()).containsExactlyInAnyOrder(Mapper.toTaskDto(t1), Mapper.toTaskDto(t2));
         verify(taskRepository).findDueToday(user.getId(), Pageable.unpaged());
+        verify(taskRepository).fetchListsAndTags(List.of(t1.getId(), t2.getId()));
         verifyNoMoreInteractions(taskRepository);
     }
 
@@ -239,6 +416,7 @@ class TaskServiceTest {
 
         assertThat(response.tasks()).containsExactlyInAnyOrder(Mapper.toTaskDto(t1), Mapper.toTaskDto(t2));
         verify(taskRepository).findDueUpcoming(user.getId(), Pageable.unpaged());
+        verify(taskRepository).fetchListsAndTags(List.of(t1.getId(), t2.getId()));
         verifyNoMoreInteractions(taskRepository);
     }
 
@@ -248,12 +426,14 @@ class TaskServiceTest {
         TaskListFilter filter = new TaskListFilter(TaskListFilter.Filter.SEARCH, "title", user);
         Task t1 = task(UUID.randomUUID(), "title 1", "d1", LocalDate.now(), null, null);
 
-        when(taskRepository.findByTitleContains("title", user.getId(), Pageable.unpaged())).thenReturn(new PageImpl<>(List.of(t1)));
+        when(searchService.search("title", user.getId(), Integer.MAX_VALUE, 0)).thenReturn(List.of(t1));
 
         TaskListResponse response = taskService().getAll(filter);
 
         assertThat(response.tasks()).containsExactly(Mapper.toTaskDto(t1));
-        verify(taskRepository).findByTitleContains("title", user.getId(), Pageable.unpaged());
+        assertThat(response.count()).isEqualTo(1L);
+        verify(searchService).search("title", user.getId(), Integer.MAX_VALUE, 0);
+        verify(taskRepository).fetchListsAndTags(List.of(t1.getId()));
         verifyNoMoreInteractions(taskRepository);
     }
 
@@ -269,6 +449,7 @@ class TaskServiceTest {
 
         assertThat(response.tasks()).containsExactly(Mapper.toTaskDto(task));
         verify(taskRepository, times(1)).findAllByUserListNameAndUserId("Work", user.getId(), Pageable.unpaged());
+        verify(taskRepository).fetchListsAndTags(List.of(task.getId()));
         verifyNoMoreInteractions(taskRepository);
     }
 
@@ -280,12 +461,14 @@ class TaskServiceTest {
         Tag tag = new Tag(UUID.randomUUID(), "tag-1", "color", user, List.of(task));
         task.setTags(List.of(tag));
 
-        when(taskRepository.findAllByTagsNameAndUserId("tag-1", user.getId(), Pageable.unpaged())).thenReturn(new PageImpl<>(List.of(task)));
+        when(taskRepository.seekByAnyTag(List.of("tag-1"), user.getId(), null, null, Pageable.unpaged())).thenReturn(List.of(task));
 
         TaskListResponse response = taskService().getAll(filter);
 
         assertThat(response.tasks()).containsExactly(Mapper.toTaskDto(task));
-        verify(taskRepository, times(1)).findAllByTagsNameAndUserId("tag-1", user.getId(), Pageable.unpaged());
+        assertThat(response.count()).isEqualTo(1L);
+        verify(taskRepository, times(1)).seekByAnyTag(List.of("tag-1"), user.getId(), null, null, Pageable.unpaged());
+        verify(taskRepository).fetchListsAndTags(List.of(task.getId()));
         verifyNoMoreInteractions(taskRepository);
     }
 
@@ -301,9 +484,177 @@ class TaskServiceTest {
 
         assertThat(response.tasks()).containsExactly(Mapper.toTaskDto(t1));
         verify(taskRepository).findAllByUserId(user.getId(), Pageable.unpaged());
+        verify(taskRepository).fetchListsAndTags(List.of(t1.getId()));
+        verifyNoMoreInteractions(taskRepository);
+    }
+
+    @Test
+    void itShouldMapTasksFromFetchedListsAndTags() {
+        User user = user();
+        TaskListFilter filter = new TaskListFilter(null, null, user);
+        Task t1 = task(UUID.randomUUID(), "t1", "d1", LocalDate.now(), null, null);
+        Task loaded = task(t1.getId(), "t1", "d1", LocalDate.now(),
+            new UserList(UUID.randomUUID(), "Work", "red", user, null),
+            List.of(new Tag(UUID.randomUUID(), "tag-1", "color", user, null)));
+
+        when(taskRepository.findAllByUserId(user.getId(), Pageable.unpaged())).thenReturn(new PageImpl<>(List.of(t1)));
+        when(taskRepository.fetchListsAndTags(List.of(t1.getId()))).thenReturn(List.of(loaded));
+
+        TaskListResponse response = taskService().getAll(filter);
+
+        assertThat(response.tasks()).singleElement().satisfies(dto -> {
+            assertThat(dto.getListName()).isEqualTo("Work");
+            assertThat(dto.getTags()).containsExactly(new TagDto("tag-1", "color"));
+        });
+    }
+
+    @Test
+    void itShouldReturnFirstPageWithNextCursor() {
+        User user = user();
+        TaskListFilter filter = new TaskListFilter(null, null, user, null, 2, false);
+        Task t1 = task(UUID.randomUUID(), "t1", "d1", LocalDate.now(), null, null);
+        Task t2 = task(UUID.randomUUID(), "t2", "d2", LocalDate.now().plusDays(1), null, null);
+        Task t3 = task(UUID.randomUUID(), "t3", "d3", LocalDate.now().plusDays(2), null, null);
+
+        when(taskRepository.seekAllByUserId(user.getId(), null, null, PageRequest.ofSize(3))).thenReturn(List.of(t1, t2, t3));
+
+        TaskListResponse response = taskService().getAll(filter);
+
+        assertThat(response.tasks()).containsExactly(Mapper.toTaskDto(t1), Mapper.toTaskDto(t2));
+        assertThat(response.nextCursor()).isEqualTo(TaskCursor.of(t2).encode());
+        assertThat(response.count()).isNull();
+        verify(taskRepository).seekAllByUserId(user.getId(), null, null, PageRequest.ofSize(3));
+        verify(taskRepository).fetchListsAndTags(List.of(t1.getId(), t2.getId()));
+        verifyNoMoreInteractions(taskRepository);
+    }
+
+    @Test
+    void itShouldReturnNextPageFromCursorWithTotal() {
+        User user = user();
+        TaskCursor cursor = new TaskCursor(LocalDate.now(), UUID.randomUUID());
+        TaskListFilter filter = new TaskListFilter(TaskListFilter.Filter.TAG, "tag-1", user, cursor.encode(), 2, true);
+        Task t1 = task(UUID.randomUUID(), "t1", "d1", LocalDate.now().plusDays(1), null, null);
+
+        when(taskRepository.seekByAnyTag(List.of("tag-1"), user.getId(), cursor.dueDate(), cursor.id(), PageRequest.ofSize(3))).thenReturn(List.of(t1));
+        when(taskRepository.countByAnyTag(List.of("tag-1"), user.getId())).thenReturn(3L);
+
+        TaskListResponse response = taskService().getAll(filter);
+
+        assertThat(response.tasks()).containsExactly(Mapper.toTaskDto(t1));
+        assertThat(response.nextCursor()).isNull();
+        assertThat(response.count()).isEqualTo(3L);
+    }
+
+    @Test
+    void itShouldPageSearchResultsByOffset() {
+        User user = user();
+        TaskListFilter filter = new TaskListFilter(TaskListFilter.Filter.SEARCH, "milk", user, new SearchCursor(2).encode(), 2, true);
+        Task t1 = task(UUID.randomUUID(), "buy milk", "d1", null, null, null);
+        Task t2 = task(UUID.randomUUID(), "milk", "d2", null, null, null);
+        Task t3 = task(UUID.randomUUID(), "t3", "milk", null, null, null);
+
+        when(searchService.search("milk", user.getId(), 3, 2)).thenReturn(List.of(t1, t2, t3));
+        when(searchService.count("milk", user.getId())).thenReturn(5L);
+
+        TaskListResponse response = taskService().getAll(filter);
+
+        assertThat(response.tasks()).containsExactly(Mapper.toTaskDto(t1), Mapper.toTaskDto(t2));
+        assertThat(response.nextCursor()).isEqualTo(new SearchCursor(4).encode());
+        assertThat(response.count()).isEqualTo(5L);
+    }
+
+    @Test
+    void itShouldThrowWhenSearchCursorIsInvalid() {
+        User user = user();
+        TaskCursor cursor = new TaskCursor(LocalDate.now(), UUID.randomUUID());
+        TaskListFilter filter = new TaskListFilter(TaskListFilter.Filter.SEARCH, "milk", user, cursor.encode(), null, false);
+        TaskService service = taskService();
+
+        assertThrows(InvalidDataException.class, () -> service.getAll(filter));
+        verifyNoInteractions(taskRepository, searchService);
+    }
+
+    @Test
+    void itShouldFilterByAllTags() {
+        User user = user();
+        TaskListFilter filter = new TaskListFilter(TaskListFilter.Filter.TAG, null, user, null, 2, true,
+            List.of("home", " urgent ", "home", ""), TaskListFilter.TagMatch.ALL);
+        Task t1 = task(UUID.randomUUID(), "t1", "d1", LocalDate.now(), null, null);
+        var names = List.of("home", "urgent");
+
+        when(taskRepository.seekByAllTags(names, 2, user.getId(), null, null, PageRequest.ofSize(3))).thenReturn(List.of(t1));
+        when(taskRepository.countByAllTags(names, 2, user.getId())).thenReturn(1L);
+
+        TaskListResponse response = taskService().getAll(filter);
+
+        assertThat(response.tasks()).containsExactly(Mapper.toTaskDto(t1));
+        assertThat(response.count()).isEqualTo(1L);
+        verify(taskRepository, never()).seekByAnyTag(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void itShouldFilterByAllTagsIgnoringCase() {
+        User user = user();
+        TaskListFilter filter = new TaskListFilter(TaskListFilter.Filter.TAG, null, user, null, 2, false,
+            List.of("Work", "work", "WORK "), TaskListFilter.TagMatch.ALL);
+        Task t1 = task(UUID.randomUUID(), "t1", "d1", LocalDate.now(), null, null);
+
+        when(taskRepository.seekByAllTags(List.of("work"), 1, user.getId(), null, null, PageRequest.ofSize(3))).thenReturn(List.of(t1));
+
+        TaskListResponse response = taskService().getAll(filter);
+
+        assertThat(response.tasks()).containsExactly(Mapper.toTaskDto(t1));
+    }
+
+    @Test
+    void itShouldNotCountTagsWhenTotalIsNotRequested() {
+        User user = user();
+        TaskListFilter filter = new TaskListFilter(TaskListFilter.Filter.TAG, null, user, null, 2, false,
+            List.of("home", "urgent"), null);
+
+        when(taskRepository.seekByAnyTag(List.of("home", "urgent"), user.getId(), null, null, PageRequest.ofSize(3))).thenReturn(List.of());
+
+        TaskListResponse response = taskService().getAll(filter);
+
+        assertThat(response.count()).isNull();
+        verify(taskRepository, never()).countByAnyTag(any(), any());
+    }
+
+    @Test
+    void itShouldThrowWhenFilteringTooManyTags() {
+        User user = user();
+        var tags = IntStream.rangeClosed(0, TaskService.MAX_TAGS).mapToObj(i -> "tag-" + i).toList();
+        TaskListFilter filter = new TaskListFilter(TaskListFilter.Filter.TAG, null, user, null, null, false, tags, null);
+        TaskService service = taskService();
+
+        assertThrows(InvalidDataException.class, () -> service.getAll(filter));
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void itShouldCapPageSize() {
+        User user = user();
+        TaskListFilter filter = new TaskListFilter(TaskListFilter.Filter.TODAY, null, user, null, 10_000, false);
+
+        when(taskRepository.seekDueToday(user.getId(), null, null, PageRequest.ofSize(TaskService.MAX_PAGE_SIZE + 1))).thenReturn(List.of());
+
+        TaskListResponse response = taskService().getAll(filter);
+
+        assertThat(response.tasks()).isEmpty();
+        verify(taskRepository).seekDueToday(user.getId(), null, null, PageRequest.ofSize(TaskService.MAX_PAGE_SIZE + 1));
         verifyNoMoreInteractions(taskRepository);
     }
 
+    @Test
+    void itShouldThrowWhenCursorIsInvalid() {
+        User user = user();
+        TaskListFilter filter = new TaskListFilter(null, null, user, "not-a-cursor", null, false);
+        TaskService service = taskService();
+
+        assertThrows(InvalidDataException.class, () -> service.getAll(filter));
+        verifyNoInteractions(taskRepository);
+    }
+
     // getById
     @Test
     void itShouldGetByIdWhenOwned() {
@@ -345,6 +696,68 @@ class TaskServiceTest {
         verify(taskRepository).findByIdAndUserId(id, user.getId());
     }
 
+    // getChanges
+    @Test
+    void itShouldReturnChangesSinceSequence() {
+        User user = user();
+        UUID taskId = UUID.randomUUID();
+        UUID deletedTaskId = UUID.randomUUID();
+        UUID tagId = UUID.randomUUID();
+        Task task = task(taskId, "t", "d", LocalDate.now(), null, List.of());
+
+        when(changeLog.getSeq(user.getId())).thenReturn(9L);
+        when(changeLog.findSince(user.getId(), 4L)).thenReturn(List.of(
+            new EntityChange(taskId, user.getId(), ChangeType.TASK, null, 5, false),
+            new EntityChange(deletedTaskId, user.getId(), ChangeType.TASK, null, 6, true),
+            new EntityChange(UUID.randomUUID(), user.getId(), ChangeType.TAG, "old-tag", 7, true),
+            new EntityChange(tagId, user.getId(), ChangeType.TAG, null, 8, false),
+            new EntityChange(UUID.randomUUID(), user.getId(), ChangeType.LIST, "old-list", 9, true)
+        ));
+        when(taskRepository.findAllByIdInAndUserId(List.of(taskId), user.getId())).thenReturn(List.of(task));
+        when(taskRepository.fetchListsAndTags(List.of(taskId))).thenReturn(List.of(task));
+        when(tagService.findAllById(List.of(tagId), user)).thenReturn(List.of(new TagDto("new-tag", "red")));
+        when(userListService.getUserLists(List.of(), user)).thenReturn(List.of());
+
+        TaskChangesResponse result = taskService().getChanges(user, 4L);
+
+        assertThat(result.seq()).isEqualTo(9L);
+        assertThat(result.tasks()).extracting(TaskDto::getId).containsExactly(taskId);
+        assertThat(result.deletedTasks()).containsExactly(deletedTaskId);
+        assertThat(result.tags()).containsExactly(new TagDto("new-tag", "red"));
+        assertThat(result.deletedTags()).containsExactly("old-tag");
+        assertThat(result.lists()).isEmpty();
+        assertThat(result.deletedLists()).containsExactly("old-list");
+    }
+
+    @Test
+    void itShouldNotReturnDeletedNameCreatedAgain() {
+        User user = user();
+        UUID listId = UUID.randomUUID();
+
+        when(changeLog.findSince(user.getId(), 0L)).thenReturn(List.of(
+            new EntityChange(UUID.randomUUID(), user.getId(), ChangeType.LIST, "list", 1, true),
+            new EntityChange(listId, user.getId(), ChangeType.LIST, null, 2, false)
+        ));
+        when(tagService.findAllById(List.of(), user)).thenReturn(List.of());
+        when(userListService.getUserLists(List.of(listId), user)).thenReturn(List.of(new UserListDto("list", "blue", 0)));
+
+        TaskChangesResponse result = taskService().getChanges(user, -1L);
+
+        assertThat(result.lists()).containsExactly(new UserListDto("list", "blue", 0));
+        assertThat(result.deletedLists()).isEmpty();
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void itShouldThrowWhenChangesUserInvalid() {
+        TaskService service = taskService();
+        User userNoId = new User();
+
+        assertThrows(InvalidAccessException.class, () -> service.getChanges(null, 0L));
+        assertThrows(InvalidAccessException.class, () -> service.getChanges(userNoId, 0L));
+        verifyNoInteractions(changeLog);
+    }
+
     // deleteById
     @Test
     void itShouldDeleteWhenOwned() {
@@ -360,6 +773,9 @@ class TaskServiceTest {
 
         verify(taskRepository).findByIdAndUserId(id, user.getId());
         verify(taskRepository).deleteById(id);
+        verify(changeLog).deleted(user.getId(), ChangeType.TASK, List.of(id));
+        verify(summaryCache).evictLists(user.getId());
+        verify(changeVersions).bump(user.getId());
     }
 
     @Test
@@ -5,6 +5,7 @@ import me.rudrade.todo.exception.InvalidAccessException;
 import me.rudrade.todo.exception.InvalidDataException;
 import me.rudrade.todo.model.User;
 import me.rudrade.todo.model.UserList;
+import me.rudrade.todo.model.types.ChangeType;
 import me.rudrade.todo.repository.UserListRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -24,58 +25,56 @@ import static org.mockito.Mockito.*;
 class UserListServiceTest {
 
     @Mock private UserListRepository userListRepository;
-    @Mock private AuthenticationService authenticationService;
     @Mock private MessageSource messageSource;
+    @Mock private SummaryCache summaryCache;
+    @Mock private ChangeVersions changeVersions;
+    @Mock private ChangeLog changeLog;
 
     private UserListService userListService;
     private UserListService getUserService() {
         if (userListService == null) {
-            userListService = new UserListService(userListRepository, authenticationService, messageSource);
+            userListService = new UserListService(userListRepository, messageSource, summaryCache, changeVersions, changeLog);
         }
         return userListService;
     }
 
     @Test
-    void itShouldGetUserListByToken() {
-        UserList list1 = new UserList(UUID.randomUUID(), "First", "red", null, null);
-        UserList list2 = new UserList(UUID.randomUUID(), "Name", "blue", null, null);
-
+    void itShouldGetUserLists() {
         User user = new User();
         user.setId(UUID.randomUUID());
         user.setUsername("user-test");
-        user.setUserLists(List.of(list1, list2));
 
-        when(authenticationService.getUserByAuth("token-test"))
-            .thenReturn(user);
+        when(summaryCache.getLists(user.getId()))
+            .thenReturn(List.of(new UserListDto("First", "red", 2), new UserListDto("Name", "blue", 0)));
 
-        List<UserListDto> result = getUserService().getUserListsByToken("token-test");
+        List<UserListDto> result = getUserService().getUserLists(user);
 
         assertThat(result)
             .hasSize(2)
             .extracting(UserListDto::name)
             .containsExactlyInAnyOrder("First", "Name");
 
-        verify(authenticationService, times(1)).getUserByAuth("token-test");
-        verifyNoMoreInteractions(authenticationService);
+        verify(summaryCache, times(1)).getLists(user.getId());
         verifyNoInteractions(userListRepository);
     }
 
     @Test
-    void itShouldThrowWhenTokenIsNull() {
+    void itShouldThrowWhenUserIsNull() {
         UserListService service = getUserService();
 
-        assertThrows(InvalidAccessException.class, () -> service.getUserListsByToken(null));
+        assertThrows(InvalidAccessException.class, () -> service.getUserLists(null));
 
-        verifyNoInteractions(authenticationService, userListRepository);
+        verifyNoInteractions(userListRepository);
     }
 
     @Test
-    void itShouldThrowWhenTokenIsBlank() {
+    void itShouldThrowWhenUserHasNoId() {
         UserListService service = getUserService();
+        User user = new User();
 
-        assertThrows(InvalidAccessException.class, () -> service.getUserListsByToken("   "));
+        assertThrows(InvalidAccessException.class, () -> service.getUserLists(user));
 
-        verifyNoInteractions(authenticationService, userListRepository);
+        verifyNoInteractions(userListRepository);
     }
 
     @Test
@@ -105,8 +104,10 @@ class UserListServiceTest {
 
         verify(userListRepository, times(1)).findByNameAndUserId("test-list", user.getId());
         verify(userListRepository, times(1)).save(any(UserList.class));
+        verify(changeLog).saved(user.getId(), ChangeType.LIST, result.getId());
+        verify(summaryCache, times(1)).evictLists(user.getId());
+        verify(changeVersions).bump(user.getId());
         verifyNoMoreInteractions(userListRepository);
-        verifyNoInteractions(authenticationService);
     }
 
     @Test
@@ -124,7 +125,7 @@ class UserListServiceTest {
 
         verify(userListRepository, times(1)).findByNameAndUserId("test-list", user.getId());
         verifyNoMoreInteractions(userListRepository);
-        verifyNoInteractions(authenticationService);
+        verifyNoInteractions(summaryCache);
     }
 
     @Test
@@ -133,7 +134,7 @@ class UserListServiceTest {
 
         assertThrows(InvalidAccessException.class, () -> service.saveByName("name", null));
 
-        verifyNoInteractions(userListRepository, authenticationService);
+        verifyNoInteractions(userListRepository);
     }
 
     @Test
@@ -144,7 +145,7 @@ class UserListServiceTest {
 
         assertThrows(InvalidDataException.class, () -> service.saveByName("   ", user));
 
-        verifyNoInteractions(userListRepository, authenticationService);
+        verifyNoInteractions(userListRepository);
     }
 
     @Test
@@ -155,7 +156,7 @@ class UserListServiceTest {
 
         assertThrows(InvalidDataException.class, () -> service.saveByName(null, user));
 
-        verifyNoInteractions(userListRepository, authenticationService);
+        verifyNoInteractions(userListRepository);
     }
 
     @Test
@@ -172,7 +173,6 @@ class UserListServiceTest {
         assertThat(result).contains(list);
         verify(userListRepository, times(1)).findByNameAndUserId("Test", user.getId());
         verifyNoMoreInteractions(userListRepository);
-        verifyNoInteractions(authenticationService);
     }
 
     @Test
@@ -187,7 +187,7 @@ class UserListServiceTest {
         assertThrows(InvalidAccessException.class, () -> service.findByName("name", null));
         assertThrows(InvalidAccessException.class, () -> service.findByName("name", userWithoutId));
 
-        verifyNoInteractions(userListRepository, authenticationService);
+        verifyNoInteractions(userListRepository);
     }
 
 }
@@ -5,15 +5,18 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import jakarta.validation.Validation;
 import jakarta.validation.executable.ExecutableValidator;
 import me.rudrade.todo.dto.Mapper;
+import me.rudrade.todo.dto.PasswordResetDto;
 import me.rudrade.todo.dto.UserChangeDto;
 import me.rudrade.todo.dto.UserDto;
 import me.rudrade.todo.dto.UserRequestDto;
@@ -21,9 +24,12 @@ import me.rudrade.todo.dto.types.UserSearchType;
 import me.rudrade.todo.exception.EntityAlreadyExistsException;
 import me.rudrade.todo.exception.InvalidAccessException;
 import me.rudrade.todo.exception.InvalidDataException;
+import me.rudrade.todo.exception.UnexpectedErrorException;
+import me.rudrade.todo.model.PasswordRequest;
 import me.rudrade.todo.model.User;
 import me.rudrade.todo.model.UserRequest;
 import me.rudrade.todo.model.types.Language;
+import me.rudrade.todo.model.types.MailType;
 import me.rudrade.todo.model.types.Role;
 import me.rudrade.todo.repository.PasswordRequestRepository;
 import me.rudrade.todo.repository.UserRepository;
@@ -35,24 +41,29 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.ConstraintViolationException.ConstraintKind;
 import org.springframework.context.MessageSource;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.web.multipart.MultipartFile;
 
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
     
     @Mock private UserRepository userRepository;
     @Mock private UserRequestRepository userRequestRepository;
-    @Mock private MailService mailService;
     @Mock private PasswordRequestRepository passwordRequestRepository;
     @Mock private S3Service s3Service;
     @Mock private MessageSource messageSource;
+    @Mock private MailOutboxService mailOutboxService;
+    @Mock private AvailabilityService availabilityService;
 
     private UserService userService;
 
     @BeforeEach
     void setup() {
-        userService = new UserService(userRepository, userRequestRepository, new BCryptPasswordEncoder(), mailService, passwordRequestRepository, s3Service, messageSource);
+        userService = new UserService(userRepository, userRequestRepository, new BCryptPasswordEncoder(), passwordRequestRepository, s3Service, messageSource, mailOutboxService, availabilityService);
     }
 
     private static User adminUser() {
@@ -71,6 +82,8 @@ class UserServiceTest {
         var user = new User();
         user.setId(UUID.randomUUID());
 
+        when(availabilityService.mightBeTaken("new-user", "new-user@mail.com"))
+            .thenReturn(true);
         when(userRepository.findActiveByUsernameOrEmail("new-user", "new-user@mail.com"))
             .thenReturn(List.of(user));
 
@@ -83,26 +96,35 @@ class UserServiceTest {
 
     @Test
     void itShouldThrowWhenUserRequestAlreadyExists() {
-        when(userRepository.findActiveByUsernameOrEmail("new-user", "new-user@mail.com"))
-            .thenReturn(List.of());
-        when(userRequestRepository.existsByUsernameOrEmail("new-user", "new-user@mail.com"))
-            .thenReturn(true);
+        var violation = new ConstraintViolationException("duplicate", new SQLException(), ConstraintKind.UNIQUE, "uk_user_request_username");
+        when(userRequestRepository.saveAndFlush(any(UserRequest.class)))
+            .thenThrow(new DataIntegrityViolationException("duplicate", violation));
 
         var request = validDto();
         assertThrows(EntityAlreadyExistsException.class, () -> userService.createUser(request, Locale.ENGLISH));
 
-        verify(userRepository, times(1)).findActiveByUsernameOrEmail("new-user", "new-user@mail.com");
-        verify(userRequestRepository, times(1)).existsByUsernameOrEmail("new-user", "new-user@mail.com");
-        verify(userRequestRepository, never()).save(any());
+        verify(availabilityService, never()).taken(any(), any());
+        verifyNoInteractions(userRepository, mailOutboxService);
+    }
+
+    @Test
+    void itShouldNotHideOtherIntegrityViolations() {
+        var violation = new ConstraintViolationException("too long", new SQLException(), ConstraintKind.OTHER, null);
+        var exception = new DataIntegrityViolationException("too long", violation);
+        when(userRequestRepository.saveAndFlush(any(UserRequest.class)))
+            .thenThrow(exception);
+
+        var request = validDto();
+        var thrown = assertThrows(DataIntegrityViolationException.class, () -> userService.createUser(request, Locale.ENGLISH));
+
+        assertThat(thrown).isSameAs(exception);
     }
 
     @Test
     void itShouldCreateUserRequest() {
-        when(userRepository.findActiveByUsernameOrEmail("new-user", "new-user@mail.com"))
-            .thenReturn(List.of());
-        when(userRequestRepository.existsByUsernameOrEmail("new-user", "new-user@mail.com"))
+        when(availabilityService.mightBeTaken("new-user", "new-user@mail.com"))
             .thenReturn(false);
-        when(userRequestRepository.save(any(UserRequest.class)))
+        when(userRequestRepository.saveAndFlush(any(UserRequest.class)))
             .thenAnswer(inv -> inv.getArgument(0));
 
         UserRequest result = userService.createUser(validDto(), Locale.ENGLISH);
@@ -121,11 +143,43 @@ class UserServiceTest {
                 assertThat(matches).isTrue();
             });
 
-        verify(userRepository, times(1)).findActiveByUsernameOrEmail("new-user", "new-user@mail.com");
-        verify(userRequestRepository, times(1)).existsByUsernameOrEmail("new-user", "new-user@mail.com");
-        verify(userRequestRepository, times(1)).save(any(UserRequest.class));
-        verify(mailService, times(1)).sendActivationMail(any(UserRequest.class));
-        verifyNoMoreInteractions(userRepository, userRequestRepository, mailService);
+        verify(userRequestRepository, times(1)).saveAndFlush(any(UserRequest.class));
+        verify(availabilityService, times(1)).taken("new-user", "new-user@mail.com");
+        verify(mailOutboxService, times(1)).enqueue(MailType.ACTIVATION, null, "new-user@mail.com");
+        verifyNoMoreInteractions(userRepository, userRequestRepository, mailOutboxService);
+    }
+
+    @Test
+    void itShouldEnqueuePasswordResetMail() {
+        var user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail("user@mail.com");
+
+        when(userRepository.findActiveByUsernameOrEmail("user", null)).thenReturn(List.of(user));
+        when(passwordRequestRepository.save(any(PasswordRequest.class))).thenAnswer(inv -> {
+            PasswordRequest request = inv.getArgument(0);
+            request.setId(UUID.randomUUID());
+            return request;
+        });
+
+        userService.resetPassword(new PasswordResetDto("user", null), Locale.ENGLISH);
+
+        var captor = ArgumentCaptor.forClass(PasswordRequest.class);
+        verify(passwordRequestRepository, times(1)).save(captor.capture());
+        verify(mailOutboxService, times(1)).enqueue(MailType.PASSWORD_RESET, captor.getValue().getId(), "user@mail.com");
+    }
+
+    @Test
+    void itShouldResendActivationMailThroughTheOutbox() {
+        var request = new UserRequest();
+        request.setId(UUID.randomUUID());
+        request.setEmail("user@mail.com");
+
+        when(userRequestRepository.findById(request.getId())).thenReturn(Optional.of(request));
+
+        userService.resendMail(request.getId(), Locale.ENGLISH);
+
+        verify(mailOutboxService, times(1)).enqueue(MailType.ACTIVATION, request.getId(), "user@mail.com");
     }
 
     @Test
@@ -256,6 +310,8 @@ class UserServiceTest {
         user.setId(UUID.randomUUID());
 
         when(userRepository.findById(id)).thenReturn(Optional.of(stored));
+        when(availabilityService.mightBeTaken("new-user", "new@mail.com"))
+            .thenReturn(true);
         when(userRepository.findActiveByUsernameOrEmail("new-user", "new@mail.com"))
             .thenReturn(List.of(user));
 
@@ -296,6 +352,64 @@ class UserServiceTest {
         verifyNoInteractions(userRepository, userRequestRepository);
     }
 
+    @Test
+    void itShouldSaveImageVersionAfterUpload() {
+        UUID id = UUID.randomUUID();
+        User stored = new User();
+        stored.setId(id);
+        var image = mock(MultipartFile.class);
+
+        when(userRepository.findById(id)).thenReturn(Optional.of(stored));
+        when(s3Service.uploadImage(image, id)).thenReturn(CompletableFuture.completedFuture("v2"));
+        when(s3Service.getImagePath(id, "v2")).thenReturn("url/v2");
+
+        var data = new UserChangeDto("new-user", null, null, null, null, null, image, Language.EN);
+        var result = userService.updateUser(id, data, adminUser());
+
+        assertThat(stored.getImageVersion()).isEqualTo("v2");
+        assertThat(result.getImageUrl()).isEqualTo("url/v2");
+        verify(userRepository, times(1)).save(stored);
+    }
+
+    @Test
+    void itShouldNotSaveUserWhenUploadFails() {
+        UUID id = UUID.randomUUID();
+        User stored = new User();
+        stored.setId(id);
+        var image = mock(MultipartFile.class);
+
+        when(userRepository.findById(id)).thenReturn(Optional.of(stored));
+        when(s3Service.uploadImage(image, id)).thenReturn(CompletableFuture.failedFuture(new UnexpectedErrorException("S3 is down")));
+
+        var data = new UserChangeDto("new-user", null, null, null, null, null, image, Language.EN);
+        var admin = adminUser();
+
+        assertThrows(UnexpectedErrorException.class, () -> userService.updateUser(id, data, admin));
+
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void itShouldDiscardUploadWhenSaveFails() {
+        UUID id = UUID.randomUUID();
+        User stored = new User();
+        stored.setId(id);
+        var image = mock(MultipartFile.class);
+        var upload = CompletableFuture.completedFuture("v2");
+
+        var violation = new ConstraintViolationException("duplicate", new SQLException(), ConstraintKind.UNIQUE, "uk_user_username");
+        when(userRepository.findById(id)).thenReturn(Optional.of(stored));
+        when(s3Service.uploadImage(image, id)).thenReturn(upload);
+        when(userRepository.save(stored)).thenThrow(new DataIntegrityViolationException("duplicate", violation));
+
+        var data = new UserChangeDto("new-user", null, null, null, null, null, image, Language.EN);
+        var admin = adminUser();
+
+        assertThrows(EntityAlreadyExistsException.class, () -> userService.updateUser(id, data, admin));
+
+        verify(s3Service, times(1)).discardUpload(upload, id);
+    }
+
     // ### end updateUser ###
 
     @Test
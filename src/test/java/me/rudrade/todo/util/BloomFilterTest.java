@@ -0,0 +1,31 @@
+package me.rudrade.todo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void itShouldContainEveryAddedValue() {
+        var filter = new BloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.put(BloomFilter.hash("user-" + i)));
+
+        assertThat(IntStream.range(0, 10_000).allMatch(i -> filter.mightContain(BloomFilter.hash("user-" + i)))).isTrue();
+        assertThat(filter.size()).isEqualTo(10_000);
+    }
+
+    @Test
+    void itShouldKeepFalsePositivesNearTheRate() {
+        var filter = new BloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.put(BloomFilter.hash("user-" + i)));
+
+        var falsePositives = IntStream.range(0, 100_000)
+            .filter(i -> filter.mightContain(BloomFilter.hash("other-" + i)))
+            .count();
+
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+}
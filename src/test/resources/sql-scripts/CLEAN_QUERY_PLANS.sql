@@ -0,0 +1,5 @@
+DELETE FROM tag_task WHERE task_id IN (SELECT t.id FROM task t JOIN user u ON u.id = t.user_id WHERE u.username LIKE 'plan-user-%');
+DELETE FROM task WHERE user_id IN (SELECT u.id FROM user u WHERE u.username LIKE 'plan-user-%');
+DELETE FROM tag WHERE user_id IN (SELECT u.id FROM user u WHERE u.username LIKE 'plan-user-%');
+DELETE FROM user_list WHERE user_id IN (SELECT u.id FROM user u WHERE u.username LIKE 'plan-user-%');
+DELETE FROM user WHERE username LIKE 'plan-user-%';
@@ -0,0 +1,34 @@
+-- Enough users and rows for the optimizer to prefer an index over scanning a small table.
+-- The users are inactive, so filtering on active users is selective.
+INSERT INTO user (id, username, password, email, role, is_active, language)
+WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < 200)
+SELECT UUID_TO_BIN(UUID()), CONCAT('plan-user-', n), '', CONCAT('plan-user-', n, '@test'), 'ROLE_USER', false, 'EN'
+FROM seq;
+
+INSERT INTO user_list (id, user_id, color, name)
+SELECT UUID_TO_BIN(UUID()), u.id, '#ffffff', CONCAT('list-', l.n)
+FROM user u CROSS JOIN (SELECT 1 AS n UNION ALL SELECT 2 UNION ALL SELECT 3) l
+WHERE u.username LIKE 'plan-user-%';
+
+INSERT INTO tag (id, user_id, color, name)
+SELECT UUID_TO_BIN(UUID()), u.id, '#ffffff', CONCAT('tag-', g.n)
+FROM user u CROSS JOIN (SELECT 1 AS n UNION ALL SELECT 2 UNION ALL SELECT 3) g
+WHERE u.username LIKE 'plan-user-%';
+
+-- 20 tasks per user spread around today, every fifth one without a due date
+INSERT INTO task (id, title, description, due_date, user_id, user_list_id)
+WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < 20)
+SELECT UUID_TO_BIN(UUID()), CONCAT('plan task ', s.n), 'planned description',
+    IF(s.n % 5 = 0, NULL, DATE_ADD(CURRENT_DATE, INTERVAL s.n - 10 DAY)), u.id,
+    (SELECT l.id FROM user_list l WHERE l.user_id = u.id AND l.name = CONCAT('list-', s.n % 3 + 1))
+FROM user u CROSS JOIN seq s
+WHERE u.username LIKE 'plan-user-%';
+
+INSERT INTO tag_task (tag_id, task_id)
+SELECT g.id, t.id
+FROM task t
+JOIN user u ON u.id = t.user_id
+JOIN tag g ON g.user_id = t.user_id AND g.name IN ('tag-1', 'tag-2')
+WHERE u.username LIKE 'plan-user-%';
+
+ANALYZE TABLE user, user_list, tag, tag_task, task;